@@ -24,7 +24,18 @@ public class Game implements Runnable {
     /** Thread running the game loop. */
     private Thread gameThread;
     private final int FPS_SET = 120;
-    private final int UPS_SET = 200;
+    /**
+     * Simulation updates per second. Entity physics is integrated over {@link #TICK_SECONDS},
+     * so lowering this trades precision for CPU time without changing how the game plays.
+     */
+    public final static int UPS_SET = 200;
+    /** Duration of one simulation update in seconds. */
+    public final static float TICK_SECONDS = 1f / UPS_SET;
+    /**
+     * Steps entity physics in integer sub-pixels so that runs are bit-identical,
+     * e.g. for replays or lockstep simulation.
+     */
+    public final static boolean FIXED_POINT_PHYSICS = false;
     /** Handles background music and sound effects. */
     private AudioHandler audioHandler;
 
@@ -0,0 +1,127 @@
+package cz.cvut.game.terroria;
+
+import cz.cvut.game.terroria.world.WorldStats;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless command-line tool that generates many worlds concurrently and writes their
+ * statistics as CSV, for tuning the generation parameters.
+ * <p>
+ * Usage: {@code SeedBatch <count> [firstSeed] [threads] [output.csv|-]}. Seeds
+ * {@code firstSeed .. firstSeed + count - 1} are generated on a fixed thread pool, rows are
+ * written in seed order, and a summary with the throughput in worlds per second and the
+ * mean of each statistic is printed to standard error.
+ */
+public class SeedBatch {
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 1 || args.length > 4) {
+            Usage();
+            return;
+        }
+        int count, threads;
+        long firstSeed;
+        try {
+            count = Integer.parseInt(args[0]);
+            firstSeed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+            threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        } catch (NumberFormatException e) {
+            Usage();
+            return;
+        }
+        if (count < 1 || threads < 1) {
+            Usage();
+            return;
+        }
+        String output = args.length > 3 ? args[3] : "seeds.csv";
+
+        try (Writer out = output.equals("-")
+                ? new BufferedWriter(new OutputStreamWriter(System.out))
+                : new BufferedWriter(new FileWriter(output))) {
+            Run(count, firstSeed, threads, out, System.err);
+        } catch (IOException e) {
+            System.err.println("Cannot write " + output + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void Usage() {
+        System.err.println("Usage: SeedBatch <count> [firstSeed] [threads] [output.csv|-]");
+        System.exit(2);
+    }
+
+    /**
+     * Generates the worlds and writes one CSV row per seed.
+     *
+     * @param count     number of worlds
+     * @param firstSeed seed of the first world
+     * @param threads   size of the thread pool
+     * @param out       receives the CSV header and rows, in seed order
+     * @param summary   receives the throughput and the mean statistics; may be null
+     * @return throughput in worlds per second
+     * @throws IOException if writing the CSV fails
+     */
+    public static double Run(int count, long firstSeed, int threads, Writer out, PrintStream summary) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        double ores = 0, caves = 0, roughness = 0, trees = 0, structures = 0;
+        try {
+            List<Future<WorldStats>> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long seed = firstSeed + i;
+                results.add(pool.submit(() -> WorldStats.Generate(seed)));
+            }
+
+            out.write(WorldStats.CSV_HEADER);
+            out.write('\n');
+            for (Future<WorldStats> result : results) {
+                WorldStats stats = Await(result);
+                out.write(stats.toCsv());
+                out.write('\n');
+                ores += stats.oreCount;
+                caves += stats.caveRatio;
+                roughness += stats.surfaceRoughness;
+                trees += stats.treeCount;
+                structures += stats.structureCount;
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double throughput = count / seconds;
+        if (summary != null) {
+            summary.printf(Locale.ROOT, "Generated %d worlds in %.2f s on %d threads: %.1f worlds/s%n",
+                    count, seconds, threads, throughput);
+            summary.printf(Locale.ROOT, "Mean ore count %.1f, cave ratio %.4f, surface roughness %.3f, trees %.1f, structures %.1f%n",
+                    ores / count, caves / count, roughness / count, trees / count, structures / count);
+        }
+        return throughput;
+    }
+
+    private static WorldStats Await(Future<WorldStats> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating worlds", e);
+        } catch (ExecutionException e) {
+            throw new IOException("World generation failed", e.getCause());
+        }
+    }
+}
@@ -67,6 +67,23 @@ public class Inventory {
         return false;  // inventory full
     }
 
+    /**
+     * Adds a batch of drops, such as those returned by a committed world edit, with one
+     * {@link #addItem(BlockType, int, BufferedImage)} call per item type.
+     *
+     * @param counts number of items per block id; AIR and zero counts are skipped
+     * @return true if every item type fit, false if the inventory ran out of slots
+     */
+    public boolean addDrops(int[] counts) {
+        boolean all = true;
+        for (int id = 0; id < counts.length; id++) {
+            BlockType type = BlockType.fromId(id);
+            if (counts[id] > 0 && type != BlockType.AIR)
+                all &= addItem(type, counts[id], type.getTile());
+        }
+        return all;
+    }
+
     public ItemStack getItem(int index) {
         if (index < 0 || index >= SLOTS) return null;
         return items[index];
@@ -1,11 +1,17 @@
 package cz.cvut.game.terroria.entities;
 
 import cz.cvut.game.terroria.Game;
+import cz.cvut.game.terroria.world.FlowField;
+import cz.cvut.game.terroria.world.WalkabilityMap;
 
 import java.awt.geom.Rectangle2D;
 
 import static cz.cvut.game.terroria.utils.Constants.Directions.*;
 import static cz.cvut.game.terroria.utils.Constants.EnemyConstants.*;
+import static cz.cvut.game.terroria.utils.FixedPoint.PerTick;
+import static cz.cvut.game.terroria.utils.FixedPoint.PerTickSquared;
+import static cz.cvut.game.terroria.utils.FixedPoint.TileOf;
+import static cz.cvut.game.terroria.utils.FixedPoint.ToFloat;
 
 
 /**
@@ -16,17 +22,19 @@ public abstract class Enemy extends Entity {
     /** Current animation frame index, current state of the enemy,type identifier for different enemy behavior and stats.*/
     protected int aniIndex, enemyState, enemyType;
     /** Tick counter for advancing animation frames, number of ticks between animation frame updates */
-    protected int aniTick, aniSpeed = 25;
+    protected int aniTick, aniSpeed = Math.round(ENEMY_ANI_FRAME_SECONDS * Game.UPS_SET);
     /** Flag to perform initialization on the first update. */
     protected boolean firstUpdate = true;
     /** Flag indicating whether the enemy is in the air (falling). */
     protected boolean inAir;
-    /** Current vertical speed due to gravity. */
+    /** Current vertical speed due to gravity, in pixels per second. */
     protected float fallSpeed;
-    /** Gravity acceleration applied each tick. */
-    protected float gravity = 0.04f * Game.SCALE;
-    /** Horizontal walking speed. */
-    protected float walkSpeed = 0.35f * Game.SCALE;
+    /** Gravity acceleration in pixels per second squared. */
+    protected float gravity = ENEMY_GRAVITY;
+    /** Horizontal walking speed in pixels per second. */
+    protected float walkSpeed = ENEMY_WALK_SPEED;
+    /** Gravity and walking speed in sub-pixels per tick (squared for gravity), for fixed-point mode. */
+    protected int fixedGravity, fixedWalkSpeed;
     /** Direction of walking: LEFT or RIGHT. */
     protected int walkDir = LEFT;
     /** Y-coordinate of the current tile (for positioning). */
@@ -41,6 +49,12 @@ public abstract class Enemy extends Entity {
     protected boolean active = true;
     /** Flag to ensure an attack is only checked once per action. */
     protected boolean attackChecked;
+    /** Walkable-tile prefix sums for constant-time sight checks; null falls back to a tile walk. */
+    protected WalkabilityMap walkMap;
+    /** Shared flow field leading toward the player; null disables pathfinding. */
+    protected FlowField flowField;
+    /** Damage dealt to the player during the planning phase, applied by {@link #applyIntents(Player)}. */
+    protected int pendingPlayerDamage;
 
 
     /**
@@ -64,7 +78,7 @@ public abstract class Enemy extends Entity {
      * @param lvlData tile map data for collision checks
      */
     protected void firstUpdateCheck(int[][] lvlData) {
-        if (!IsEntityOnFloor(hitbox, lvlData))
+        if (!isOnFloor(lvlData))
             inAir = true;
         firstUpdate = false;
     }
@@ -74,13 +88,27 @@ public abstract class Enemy extends Entity {
      * @param lvlData tile map data for collision checks
      */
     protected void updateInAir(int[][] lvlData) {
-        if (CanMoveHere(hitbox.x, hitbox.y + fallSpeed, hitbox.width, hitbox.height, lvlData)) {
-            hitbox.y += fallSpeed;
-            fallSpeed += gravity;
+        if (fixedPoint) {
+            int contact = fallFixed(fixedGravity, lvlData);
+            if (contact < 0) {
+                inAir = false;
+                tileY = TileOf(fixedY);
+            }
+            if (contact != 0)
+                fixedSpeedY = 0;
+            return;
+        }
+        float dy = Displacement(fallSpeed, gravity, dt);
+        if (Sweep(hitbox, 0, dy, lvlData, sweep)) {
+            hitbox.y = sweep.y;
+            if (sweep.normalY < 0) {
+                inAir = false;
+                tileY = (int) (hitbox.y / Game.TILES_SIZE);
+            }
+            fallSpeed = 0;
         } else {
-            inAir = false;
-            hitbox.y = GetEntityYPosUnderRoofOrAboveFloor(hitbox, fallSpeed);
-            tileY = (int) (hitbox.y / Game.TILES_SIZE);
+            hitbox.y += dy;
+            fallSpeed += gravity * dt;
         }
     }
     /**
@@ -88,17 +116,18 @@ public abstract class Enemy extends Entity {
      * @param lvlData tile map data for collision checks
      */
     protected void move(int[][] lvlData) {
-        float xSpeed = (walkDir == LEFT) ? -walkSpeed : walkSpeed;
-        if (CanMoveHere(
-                hitbox.x + xSpeed,
-                hitbox.y,
-                hitbox.width,
-                hitbox.height,
-                lvlData)) {
-            hitbox.x += xSpeed;
+        if (fixedPoint) {
+            if (moveFixedX(walkDir == LEFT ? -fixedWalkSpeed : fixedWalkSpeed, lvlData))
+                changeWalkDir();
             return;
         }
-        changeWalkDir();
+        float xSpeed = ((walkDir == LEFT) ? -walkSpeed : walkSpeed) * dt;
+        if (Sweep(hitbox, xSpeed, 0, lvlData, sweep)) {
+            hitbox.x = sweep.x;
+            changeWalkDir();
+            return;
+        }
+        hitbox.x += xSpeed;
     }
     /**
      * Orients the enemy to face the player.
@@ -117,15 +146,50 @@ public abstract class Enemy extends Entity {
      * @return true if the player is visible and in pursuit range
      */
     protected boolean canSeePlayer(int[][] lvlData, Player player) {
-        int playerTileY = (int) (player.getHitbox().y / Game.TILES_SIZE);
-        if (playerTileY == (int) hitbox.y || playerTileY  + 1 == (int) hitbox.y || playerTileY - 1 == (int) hitbox.y)
+        int playerTileY = FeetTileY(player.hitbox);
+        int enemyTileY = FeetTileY(hitbox);
+        if (playerTileY == enemyTileY || playerTileY + 1 == enemyTileY || playerTileY - 1 == enemyTileY)
             if (isPlayerInRange(player)) {
-                if (IsSightClear(lvlData, hitbox, player.hitbox, (int) hitbox.y))
+                if (IsSightClear(lvlData, walkMap, hitbox, player.hitbox, enemyTileY))
                     return true;
             }
 
         return false;
     }
+
+    /**
+     * Returns the tile row containing the bottom edge of a hitbox.
+     * @param box collision rectangle
+     * @return tile row of the feet
+     */
+    protected static int FeetTileY(Rectangle2D.Float box) {
+        return (int) ((box.y + box.height - 1) / Game.TILES_SIZE);
+    }
+    /**
+     * Turns the enemy along the shared flow field toward the player.
+     * @return true if the route continues with a jump onto a higher tile
+     */
+    protected boolean followFlowField() {
+        if (flowField == null)
+            return false;
+        int tileX = (int) ((hitbox.x + hitbox.width / 2) / Game.TILES_SIZE);
+        switch (flowField.getMove(tileX, FeetTileY(hitbox))) {
+            case FlowField.WALK_LEFT:
+                walkDir = LEFT;
+                return false;
+            case FlowField.WALK_RIGHT:
+                walkDir = RIGHT;
+                return false;
+            case FlowField.JUMP_LEFT:
+                walkDir = LEFT;
+                return true;
+            case FlowField.JUMP_RIGHT:
+                walkDir = RIGHT;
+                return true;
+            default:
+                return false;
+        }
+    }
     /**
      * Checks if the player is within detection range (multiple of attack distance).
      * @param player the player entity
@@ -165,17 +229,30 @@ public abstract class Enemy extends Entity {
             newState(HIT);
     }
     /**
-     * Checks collision between the enemy's attack box and the player, applying damage once.
+     * Checks collision between the enemy's attack box and the player and records the damage
+     * as an intent. The player is only read here; the damage is committed in {@link #applyIntents(Player)}.
      * @param attackBox attack hitbox
      * @param player the player entity
      */
     protected void checkEnemyHit(Rectangle2D.Float attackBox,Player player) {
         if (attackBox.intersects(player.getHitbox())) {
-            player.changeHealth(-GetEnemyDmg(enemyType));
+            pendingPlayerDamage += GetEnemyDmg(enemyType);
         }
         attackChecked = true;
     }
 
+    /**
+     * Commits the effects on shared state that were recorded while planning this tick.
+     * Must be called from the game thread, in a fixed enemy order, after every enemy has planned.
+     * @param player the player entity receiving the damage
+     */
+    public void applyIntents(Player player) {
+        if (pendingPlayerDamage != 0) {
+            player.changeHealth(-pendingPlayerDamage);
+            pendingPlayerDamage = 0;
+        }
+    }
+
 
     protected void checkPlayerHit(Rectangle2D.Float attackBox, Player player) {
         if (attackBox.intersects(player.hitbox))
@@ -213,6 +290,27 @@ public abstract class Enemy extends Entity {
 
     }
 
+    @Override
+    public void setFixedPoint(boolean fixedPoint) {
+        if (fixedPoint && !this.fixedPoint)
+            fixedSpeedY = PerTick(fallSpeed, dt);
+        else if (!fixedPoint && this.fixedPoint)
+            fallSpeed = ToFloat(fixedSpeedY) / dt;
+        super.setFixedPoint(fixedPoint);
+    }
+
+    @Override
+    protected void updateFixedConstants() {
+        fixedGravity = PerTickSquared(gravity, dt);
+        fixedWalkSpeed = PerTick(walkSpeed, dt);
+    }
+
+    @Override
+    public void setUpdatesPerSecond(int ups) {
+        super.setUpdatesPerSecond(ups);
+        aniSpeed = Math.max(1, Math.round(ENEMY_ANI_FRAME_SECONDS * ups));
+    }
+
     public void resetEnemy() {
         hitbox.x = x;
         hitbox.y = y;
@@ -221,6 +319,9 @@ public abstract class Enemy extends Entity {
         newState(IDLE);
         active = true;
         fallSpeed = 0;
+        fixedSpeedY = 0;
+        loadFixedPosition();
+        pendingPlayerDamage = 0;
     }
 
     public int getAniIndex() {
@@ -235,6 +336,14 @@ public abstract class Enemy extends Entity {
         return active;
     }
 
+    public void setWalkabilityMap(WalkabilityMap walkMap) {
+        this.walkMap = walkMap;
+    }
+
+    public void setFlowField(FlowField flowField) {
+        this.flowField = flowField;
+    }
+
     /**
      * Determines if there is a continuous walkable path on the given row between two tile columns.
      * Useful for line-of-sight checks.
@@ -247,9 +356,9 @@ public abstract class Enemy extends Entity {
      */
     protected static boolean IsAllTilesWalkable(int xStart, int xEnd, int y, int[][] lvlData) {
         for (int i = 0; i < xEnd - xStart; i++) {
-            if (IsSolid(xStart + i, y, lvlData))
+            if (IsTileSolid(xStart + i, y, lvlData))
                 return false;
-            if (!IsSolid(xStart + i, y + 1, lvlData))
+            if (!IsTileSolid(xStart + i, y + 1, lvlData))
                 return false;
         }
         return true;
@@ -258,20 +367,23 @@ public abstract class Enemy extends Entity {
     /**
      * Checks if two entities (or points) have line-of-sight on the same row without obstacles.
      *
+     * Uses the walkability prefix sums when available, which makes the check constant-time.
+     *
      * @param lvlData 2D level data array mapping tile indices to block IDs
+     * @param walkMap walkable-tile prefix sums matching lvlData, or null to walk the tiles
      * @param firstHitbox collision rectangle of the first entity
      * @param secondHitbox collision rectangle of the second entity
      * @param yTile    the tile row at which to check visibility
      * @return true if no solid tiles block the horizontal path between the two hitboxes
      */
-    protected static boolean IsSightClear(int[][] lvlData, Rectangle2D.Float firstHitbox, Rectangle2D.Float secondHitbox, int yTile) {
+    protected static boolean IsSightClear(int[][] lvlData, WalkabilityMap walkMap, Rectangle2D.Float firstHitbox, Rectangle2D.Float secondHitbox, int yTile) {
         int firstXTile = (int) (firstHitbox.x / Game.TILES_SIZE);
         int secondXTile = (int) (secondHitbox.x / Game.TILES_SIZE);
+        int xStart = Math.min(firstXTile, secondXTile);
+        int xEnd = Math.max(firstXTile, secondXTile);
 
-        if (firstXTile > secondXTile)
-            return IsAllTilesWalkable(secondXTile, firstXTile, yTile, lvlData);
-        else
-            return IsAllTilesWalkable(firstXTile, secondXTile, yTile, lvlData);
-
+        if (walkMap != null)
+            return walkMap.isRangeWalkable(xStart, xEnd, yTile);
+        return IsAllTilesWalkable(xStart, xEnd, yTile, lvlData);
     }
 }
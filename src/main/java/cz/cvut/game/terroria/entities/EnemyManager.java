@@ -2,9 +2,11 @@ package cz.cvut.game.terroria.entities;
 
 import cz.cvut.game.terroria.Game;
 import cz.cvut.game.terroria.gamestates.Playing;
-import cz.cvut.game.terroria.utils.BlockType;
 import cz.cvut.game.terroria.utils.Constants;
 import cz.cvut.game.terroria.utils.LoadSave;
+import cz.cvut.game.terroria.world.FlowField;
+import cz.cvut.game.terroria.world.SurfaceMap;
+import cz.cvut.game.terroria.world.WorldGenerator;
 
 import static cz.cvut.game.terroria.utils.Constants.EnemyConstants.*;
 
@@ -12,6 +14,7 @@ import java.awt.*;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 /**
  * Manages all enemy instances within the playing state, including loading sprites,
@@ -24,32 +27,67 @@ public class EnemyManager {
     private BufferedImage[][] mushroomArr;
     /** Active list of mushroom enemies in the world. */
     private ArrayList<Mushroom> mushrooms = new ArrayList<>();
+    /** Distance in tiles around the player covered by the flow field. */
+    private static final int FLOW_RADIUS = 32;
+    /** Recycles dead enemies and keeps the population around the player topped up. */
+    private final EnemySpawner spawner = new EnemySpawner();
+    /** Shared route toward the player, read by every mushroom. */
+    private final FlowField flowField = new FlowField(WorldGenerator.WIDTH_TILES, WorldGenerator.HEIGHT_TILES,
+            FLOW_RADIUS, (int) Math.ceil(32 * Game.SCALE / Game.TILES_SIZE), 1, 6, 4096);
+    /** Enemy count from which the planning phase is split across worker threads. */
+    private static final int PARALLEL_THRESHOLD = 256;
 
     /**
-     * Constructs the manager, loads enemy images, and spawns initial enemies.
+     * Constructs the manager and loads enemy images. The first enemies are placed by the
+     * spawner around the player during the first updates.
      * @param playing the playing state providing world data and rendering context
      */
     public EnemyManager(Playing playing) {
         this.playing = playing;
+        spawner.setFlowField(flowField);
+        attachWorld(playing.getWorldGen());
         loadEnemyImgs();
-        addEnemies();
+    }
+
+    /** Points the spawner and the flow field at the derived data of a world. */
+    private void attachWorld(WorldGenerator worldGen) {
+        spawner.setWalkabilityMap(worldGen.getWalkability());
+        spawner.setSurfaceMap(worldGen.getSurface());
+        spawner.setEditStamps(worldGen.getEditStamps());
+        worldGen.addTileChangeListener(flowField);
     }
     /**
-     * Populates the enemy list based on world level data.
+     * Updates each active enemy's behavior and physics.
+     * @param lvlData tile map data for collision checks
+     * @param player reference to the player for AI interactions
      */
-    private void addEnemies() {
-        mushrooms = GetMushrooms(playing.getWorld());
+    public void update(int[][] lvlData, Player player) {
+        Rectangle2D.Float hb = player.getHitbox();
+        flowField.update(lvlData,
+                (int) ((hb.x + hb.width / 2) / Game.TILES_SIZE),
+                (int) ((hb.y + hb.height - 1) / Game.TILES_SIZE));
+        UpdateMushrooms(mushrooms, lvlData, player);
+        spawner.update(mushrooms, lvlData, player);
     }
 
     /**
-     * Updates each active enemy's behavior and physics.
+     * Runs one tick for the given mushrooms in two phases. The planning phase only reads the
+     * level and the player and runs in parallel once the list is large enough; the apply phase
+     * then commits damage and drops sequentially in list order, so the outcome is identical to
+     * updating the mushrooms one after another.
+     * @param mushrooms enemies to update
      * @param lvlData tile map data for collision checks
      * @param player reference to the player for AI interactions
      */
-    public void update(int[][] lvlData, Player player) {
-        for(Mushroom m : mushrooms){
-            m.update(lvlData, player);
-        }
+    public static void UpdateMushrooms(List<Mushroom> mushrooms, int[][] lvlData, Player player) {
+        if (mushrooms.size() >= PARALLEL_THRESHOLD)
+            mushrooms.parallelStream().forEach(m -> m.planUpdate(lvlData, player));
+        else
+            for (Mushroom m : mushrooms)
+                m.planUpdate(lvlData, player);
+
+        for (Mushroom m : mushrooms)
+            m.applyIntents(player);
     }
     /**
      * Draws active enemies to the screen.
@@ -99,26 +137,52 @@ public class EnemyManager {
      * @return list of newly created Mushroom instances
      */
     public static ArrayList<Mushroom> GetMushrooms(int[][] lvlData){
-        ArrayList<Mushroom> mushrooms1 = new ArrayList<>();
+        return GetMushrooms(lvlData, new EnemySpawner());
+    }
+
+    /**
+     * Randomly generates mushroom spawn positions based on world data, taking the
+     * instances from the spawner's pool where possible.
+     * @param lvlData tile map data for level geometry
+     * @param spawner spawner supplying recycled mushrooms
+     * @return list of spawned Mushroom instances
+     */
+    public static ArrayList<Mushroom> GetMushrooms(int[][] lvlData, EnemySpawner spawner){
+        return ObtainAll(SpawnPoints(lvlData, spawner), spawner);
+    }
+
+    /**
+     * Picks random spawn positions above the surface without creating any enemies, so it
+     * can run on a background thread while a new world is being prepared.
+     * @param lvlData tile map data for level geometry
+     * @param surface heightmap of the same world
+     * @return spawn positions in world units, as consecutive x, y pairs
+     */
+    public static float[] SpawnPoints(int[][] lvlData, SurfaceMap surface) {
+        EnemySpawner lookup = new EnemySpawner();
+        lookup.setSurfaceMap(surface);
+        return SpawnPoints(lvlData, lookup);
+    }
+
+    private static float[] SpawnPoints(int[][] lvlData, EnemySpawner spawner) {
         Random random = new Random();
         int widthTiles  = lvlData.length;
-        int heightTiles = lvlData[0].length;
         int spawnCount = Math.max(1, widthTiles / 20);
+        float[] points = new float[spawnCount * 2];
         for (int i = 0; i < spawnCount; i++) {
             int xTile = random.nextInt(widthTiles);
-            int yTile = 0;
-            for (int y = 0; y < heightTiles; y++) {
-                if (lvlData[xTile][y] != BlockType.AIR.ordinal()) {
-                    yTile = y;
-                    break;
-                }
-            }
-            float xPos = xTile * Game.TILES_SIZE;
-            float yPos = yTile * Game.TILES_SIZE - MUSHROOM_HEIGHT_DEFAULT;
-            Mushroom mushroom = new Mushroom(xPos, yPos);
-            mushrooms1.add(mushroom);
+            int yTile = spawner.surfaceY(lvlData, xTile);
+            points[2 * i] = xTile * Game.TILES_SIZE;
+            points[2 * i + 1] = yTile * Game.TILES_SIZE - MUSHROOM_HEIGHT_DEFAULT;
         }
-        return mushrooms1;
+        return points;
+    }
+
+    private static ArrayList<Mushroom> ObtainAll(float[] points, EnemySpawner spawner) {
+        ArrayList<Mushroom> obtained = new ArrayList<>(points.length / 2);
+        for (int i = 0; i + 1 < points.length; i += 2)
+            obtained.add(spawner.obtain(points[i], points[i + 1]));
+        return obtained;
     }
     /**
      * Checks if an attack box intersects any active enemy and applies damage.
@@ -135,11 +199,25 @@ public class EnemyManager {
         }
     }
     /**
-     * Clears and respawns all enemies to reset the level.
+     * Moves the enemies into a freshly generated world: every enemy returns to the pool,
+     * the spawner and the flow field are attached to the new world, and the precomputed
+     * positions inside the spawn ring around the player are populated.
+     * @param worldGen the new world
+     * @param spawnPoints spawn positions from {@link #SpawnPoints(int[][], SurfaceMap)}
      */
-    public void resetAllEnemies() {
-        mushrooms.clear();
-        addEnemies();
+    public void switchWorld(WorldGenerator worldGen, float[] spawnPoints) {
+        flowField.reset();
+        spawner.releaseAll(mushrooms);
+        attachWorld(worldGen);
+        Rectangle2D.Float hb = playing.getPlayer().getHitbox();
+        spawner.seed(mushrooms, spawnPoints, (int) ((hb.x + hb.width / 2) / Game.TILES_SIZE));
+    }
 
+    /**
+     * Returns the spawner, which exposes population and pool hit-rate metrics.
+     * @return the enemy spawner
+     */
+    public EnemySpawner getSpawner() {
+        return spawner;
     }
 }
@@ -0,0 +1,218 @@
+package cz.cvut.game.terroria.entities;
+
+import cz.cvut.game.terroria.Game;
+import cz.cvut.game.terroria.utils.BlockRegistry;
+import cz.cvut.game.terroria.world.ChunkEditStamps;
+import cz.cvut.game.terroria.world.FlowField;
+import cz.cvut.game.terroria.world.SurfaceMap;
+import cz.cvut.game.terroria.world.WalkabilityMap;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Random;
+
+import static cz.cvut.game.terroria.utils.Constants.EnemyConstants.MUSHROOM_HEIGHT_DEFAULT;
+
+/**
+ * Recycles dead mushrooms and keeps a steady enemy population around the player.
+ * <p>
+ * Dead enemies, and live ones more than {@code spawnRadius + despawnMargin} tiles from the
+ * player, are compacted out of the live list every tick and parked in a pool, so the live
+ * list stays bounded however far the player travels. When fewer than
+ * {@code targetPopulation} enemies are within {@code spawnRadius} tiles of the player, up
+ * to {@code spawnBudget} new ones are placed per tick on the surface, outside
+ * {@code minSpawnDistance} so they do not pop in on screen. A fresh world is populated the
+ * same way, so it starts with enemies around the player only. New enemies are taken from
+ * the pool first and only allocated when the pool is empty.
+ */
+public class EnemySpawner {
+    /** Default number of enemies kept within the spawn radius. */
+    public static final int DEFAULT_POPULATION = 12;
+    /** Default maximum number of spawns per tick. */
+    public static final int DEFAULT_SPAWN_BUDGET = 1;
+    /** Default radius around the player, in tiles, counted as "near". */
+    public static final int DEFAULT_SPAWN_RADIUS = 80;
+    /** Default minimum distance from the player, in tiles, for new spawns. */
+    public static final int DEFAULT_MIN_SPAWN_DISTANCE = 40;
+    /** Default distance past the spawn radius, in tiles, at which live enemies are retired. */
+    public static final int DEFAULT_DESPAWN_MARGIN = 40;
+
+    private final ArrayDeque<Mushroom> pool = new ArrayDeque<>();
+    private final Random random = new Random();
+
+    private int targetPopulation = DEFAULT_POPULATION;
+    private int spawnBudget = DEFAULT_SPAWN_BUDGET;
+    private int spawnRadius = DEFAULT_SPAWN_RADIUS;
+    private int minSpawnDistance = DEFAULT_MIN_SPAWN_DISTANCE;
+    private int despawnMargin = DEFAULT_DESPAWN_MARGIN;
+    /** Sight lookup handed to every spawned enemy; may be null. */
+    private WalkabilityMap walkMap;
+    /** Pathfinding field handed to every spawned enemy; may be null. */
+    private FlowField flowField;
+    /** Column heightmap for placing spawns; null falls back to scanning the column. */
+    private SurfaceMap surfaceMap;
+    /** Edit stamps handed to every spawned enemy so it can rest; may be null. */
+    private ChunkEditStamps editStamps;
+
+    /** Population within the spawn radius measured on the last update. */
+    private int population;
+    /** Number of enemies obtained from the pool and number that had to be allocated. */
+    private long poolHits, poolMisses;
+
+    /**
+     * Removes inactive enemies from the live list, preserving the order of the survivors,
+     * and returns them to the pool.
+     *
+     * @param live the live enemy list, compacted in place
+     */
+    public void compact(List<Mushroom> live) {
+        int write = 0;
+        for (int read = 0; read < live.size(); read++) {
+            Mushroom m = live.get(read);
+            if (m.isActive())
+                live.set(write++, m);
+            else
+                pool.push(m);
+        }
+        live.subList(write, live.size()).clear();
+    }
+
+    /**
+     * Compacts dead and far-away enemies out of the live list and spawns enemies near the
+     * player until the target population or this tick's spawn budget is reached.
+     *
+     * @param live    the live enemy list
+     * @param lvlData tile map data used to find spawn surfaces
+     * @param player  the player the population is kept around
+     */
+    public void update(List<Mushroom> live, int[][] lvlData, Player player) {
+        int playerTileX = (int) (player.getHitbox().x / Game.TILES_SIZE);
+        int despawnDistance = spawnRadius + despawnMargin;
+        population = 0;
+        int write = 0;
+        for (int read = 0; read < live.size(); read++) {
+            Mushroom m = live.get(read);
+            int distance = Math.abs((int) (m.getHitbox().x / Game.TILES_SIZE) - playerTileX);
+            if (!m.isActive() || distance > despawnDistance) {
+                pool.push(m);
+                continue;
+            }
+            live.set(write++, m);
+            if (distance <= spawnRadius)
+                population++;
+        }
+        live.subList(write, live.size()).clear();
+
+        int budget = Math.min(spawnBudget, targetPopulation - population);
+        for (int i = 0; i < budget; i++) {
+            int offset = minSpawnDistance + random.nextInt(Math.max(1, spawnRadius - minSpawnDistance + 1));
+            int xTile = playerTileX + (random.nextBoolean() ? offset : -offset);
+            if (xTile < 0 || xTile >= lvlData.length)
+                continue;
+            int yTile = surfaceY(lvlData, xTile);
+            if (yTile <= 0)
+                continue;
+            live.add(obtain(xTile * Game.TILES_SIZE, yTile * Game.TILES_SIZE - MUSHROOM_HEIGHT_DEFAULT));
+            population++;
+        }
+    }
+
+    /**
+     * Spawns enemies at precomputed positions, such as those picked while a new world was
+     * generated. Only positions inside the spawn ring around the player are used, up to the
+     * target population; {@link #update(List, int[][], Player)} tops up the rest.
+     *
+     * @param live        the live enemy list
+     * @param points      spawn positions in world units, as consecutive x, y pairs
+     * @param playerTileX column the player stands in
+     */
+    public void seed(List<Mushroom> live, float[] points, int playerTileX) {
+        for (int i = 0; i + 1 < points.length && live.size() < targetPopulation; i += 2) {
+            int distance = Math.abs((int) (points[i] / Game.TILES_SIZE) - playerTileX);
+            if (distance >= minSpawnDistance && distance <= spawnRadius)
+                live.add(obtain(points[i], points[i + 1]));
+        }
+    }
+
+    /**
+     * Returns a mushroom at the given position, reusing a pooled instance when available.
+     *
+     * @param x spawn X-coordinate in world units
+     * @param y spawn Y-coordinate in world units
+     * @return a fresh or recycled mushroom
+     */
+    public Mushroom obtain(float x, float y) {
+        Mushroom m = pool.poll();
+        if (m == null) {
+            poolMisses++;
+            m = new Mushroom(x, y);
+        } else {
+            poolHits++;
+            m.respawn(x, y);
+        }
+        m.setWalkabilityMap(walkMap);
+        m.setFlowField(flowField);
+        m.setEditStamps(editStamps);
+        return m;
+    }
+
+    /**
+     * Moves every enemy from the live list into the pool.
+     *
+     * @param live the live enemy list, cleared afterwards
+     */
+    public void releaseAll(List<Mushroom> live) {
+        for (Mushroom m : live)
+            pool.push(m);
+        live.clear();
+    }
+
+    /**
+     * Finds the first solid tile from the top of a column, from the heightmap when one is set.
+     *
+     * @param lvlData tile map data
+     * @param xTile   column index
+     * @return row of the surface tile, or 0 if the column has none
+     */
+    int surfaceY(int[][] lvlData, int xTile) {
+        if (surfaceMap != null) {
+            int y = surfaceMap.getSurfaceY(xTile);
+            return y < lvlData[xTile].length ? y : 0;
+        }
+        return SurfaceY(lvlData, xTile);
+    }
+
+    private static int SurfaceY(int[][] lvlData, int xTile) {
+        int[] column = lvlData[xTile];
+        for (int y = 0; y < column.length; y++) {
+            if (BlockRegistry.IsSolid(column[y]))
+                return y;
+        }
+        return 0;
+    }
+
+    public int getPopulation() { return population; }
+    public int getPoolSize() { return pool.size(); }
+    public long getPoolHits() { return poolHits; }
+    public long getPoolMisses() { return poolMisses; }
+
+    /**
+     * Fraction of obtained enemies that were recycled from the pool.
+     *
+     * @return hit rate between 0 and 1, or 0 before the first spawn
+     */
+    public double getPoolHitRate() {
+        long total = poolHits + poolMisses;
+        return total == 0 ? 0 : (double) poolHits / total;
+    }
+
+    public void setWalkabilityMap(WalkabilityMap walkMap) { this.walkMap = walkMap; }
+    public void setFlowField(FlowField flowField) { this.flowField = flowField; }
+    public void setSurfaceMap(SurfaceMap surfaceMap) { this.surfaceMap = surfaceMap; }
+    public void setEditStamps(ChunkEditStamps editStamps) { this.editStamps = editStamps; }
+    public void setTargetPopulation(int targetPopulation) { this.targetPopulation = Math.max(0, targetPopulation); }
+    public void setSpawnBudget(int spawnBudget) { this.spawnBudget = Math.max(0, spawnBudget); }
+    public void setSpawnRadius(int spawnRadius) { this.spawnRadius = Math.max(1, spawnRadius); }
+    public void setMinSpawnDistance(int minSpawnDistance) { this.minSpawnDistance = Math.max(0, minSpawnDistance); }
+    public void setDespawnMargin(int despawnMargin) { this.despawnMargin = Math.max(0, despawnMargin); }
+}
@@ -1,9 +1,12 @@
 package cz.cvut.game.terroria.entities;
 
 import cz.cvut.game.terroria.Game;
-import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.utils.BlockRegistry;
+import cz.cvut.game.terroria.world.ChunkEditStamps;
 
 import java.awt.geom.Rectangle2D;
+
+import static cz.cvut.game.terroria.utils.FixedPoint.*;
 /**
  * Abstract representation of any object in the game world with a position, size, and collision boundary.
  */
@@ -26,6 +29,26 @@ public abstract class Entity {
     /** Pixel offset applied when checking collision corners to avoid clipping. */
     protected static final int COLLISION_OFFSET = 2;
 
+    /** Reusable result of this entity's swept moves. */
+    protected final SweepResult sweep = new SweepResult();
+
+    /** Length of one update in seconds; physics is integrated over this step. */
+    protected float dt = Game.TICK_SECONDS;
+
+    /** Whether position and vertical speed are stepped in integer sub-pixels instead of floats. */
+    protected boolean fixedPoint;
+    /** Hitbox position and size in sub-pixels; authoritative while {@link #fixedPoint} is on. */
+    protected int fixedX, fixedY, fixedWidth, fixedHeight;
+    /** Vertical speed in sub-pixels per tick while {@link #fixedPoint} is on. */
+    protected int fixedSpeedY;
+
+    /** Per-chunk edit stamps of the world; null probes the floor on every check. */
+    protected ChunkEditStamps editStamps;
+    /** Hitbox position at which the floor was last found, or NaN while the entity is not resting. */
+    private float restX = Float.NaN, restY;
+    /** Chunks holding the floor tiles under the resting entity, and their stamps at that time. */
+    private int restChunkLeft, restChunkRight, restStampLeft, restStampRight;
+
     /**
      * Constructs an entity at the given position with specified dimensions.
      *
@@ -55,6 +78,153 @@ public abstract class Entity {
         return hitbox;
     }
 
+    /**
+     * Sets the simulation rate this entity is updated at. Speeds and accelerations are
+     * defined per second, so the entity covers the same distances at any rate.
+     *
+     * @param ups updates per second
+     */
+    public void setUpdatesPerSecond(int ups) {
+        dt = 1f / ups;
+        updateFixedConstants();
+    }
+
+    /**
+     * Switches between float and fixed-point physics. In fixed-point mode the hitbox
+     * position and vertical speed are integers and every step gives bit-identical results,
+     * which makes replays and lockstep simulation possible. The float hitbox keeps
+     * mirroring the fixed position for rendering and overlap tests.
+     *
+     * @param fixedPoint true to step physics in sub-pixels
+     */
+    public void setFixedPoint(boolean fixedPoint) {
+        this.fixedPoint = fixedPoint;
+        loadFixedPosition();
+        updateFixedConstants();
+    }
+
+    public boolean isFixedPoint() {
+        return fixedPoint;
+    }
+
+    /** Re-reads the sub-pixel position from the hitbox, e.g. after the hitbox was placed directly. */
+    protected void loadFixedPosition() {
+        fixedX = ToFixed(hitbox.x);
+        fixedY = ToFixed(hitbox.y);
+        fixedWidth = ToFixed(hitbox.width);
+        fixedHeight = ToFixed(hitbox.height);
+    }
+
+    /** Converts this entity's per-second speeds into per-tick sub-pixel steps. */
+    protected void updateFixedConstants() {
+    }
+
+    /**
+     * Checks whether the entity stands on solid ground, using integer tile lookups in
+     * fixed-point mode. Once the floor has been found the entity rests: while it stays at
+     * the same position and no edit touches the chunks of its floor tiles, the check only
+     * compares two edit stamps instead of probing the tiles.
+     *
+     * @param lvlData 2D level data array mapping tile indices to block IDs
+     * @return true if both bottom corners rest on solid tiles
+     */
+    protected boolean isOnFloor(int[][] lvlData) {
+        if (isResting())
+            return true;
+        int left, right, row;
+        boolean onFloor;
+        if (fixedPoint) {
+            int offset = COLLISION_OFFSET << SHIFT;
+            row = TileOf(fixedY + fixedHeight + offset);
+            left = TileOf(fixedX + offset);
+            right = TileOf(fixedX + fixedWidth - offset);
+            onFloor = IsTileSolid(left, row, lvlData) && IsTileSolid(right, row, lvlData);
+        } else {
+            onFloor = IsEntityOnFloor(hitbox, lvlData);
+            row = (int) Math.floor((hitbox.y + hitbox.height + COLLISION_OFFSET) / Game.TILES_SIZE);
+            left = (int) Math.floor((hitbox.x + COLLISION_OFFSET) / Game.TILES_SIZE);
+            right = (int) Math.floor((hitbox.x + hitbox.width - COLLISION_OFFSET) / Game.TILES_SIZE);
+        }
+        if (onFloor && editStamps != null) {
+            restX = hitbox.x;
+            restY = hitbox.y;
+            restChunkLeft = editStamps.chunkOf(left, row);
+            restChunkRight = editStamps.chunkOf(right, row);
+            restStampLeft = editStamps.getStamp(restChunkLeft);
+            restStampRight = editStamps.getStamp(restChunkRight);
+        } else {
+            restX = Float.NaN;
+        }
+        return onFloor;
+    }
+
+    /**
+     * Whether the floor found by the last {@link #isOnFloor(int[][])} is still known to be
+     * there: the entity has not moved and no edit touched the chunks under it since.
+     */
+    protected boolean isResting() {
+        return hitbox.x == restX && hitbox.y == restY
+                && editStamps.getStamp(restChunkLeft) == restStampLeft
+                && editStamps.getStamp(restChunkRight) == restStampRight;
+    }
+
+    /**
+     * Lets the entity rest on unchanged ground instead of probing its floor every tick.
+     *
+     * @param editStamps edit stamps of the world the entity lives in, or null to always probe
+     */
+    public void setEditStamps(ChunkEditStamps editStamps) {
+        this.editStamps = editStamps;
+        restX = Float.NaN;
+    }
+
+    /**
+     * Moves the fixed-point hitbox horizontally, stopping flush against the first solid column.
+     *
+     * @param dx      movement in sub-pixels
+     * @param lvlData 2D level data array mapping tile indices to block IDs
+     * @return true if a wall stopped the move
+     */
+    protected boolean moveFixedX(int dx, int[][] lvlData) {
+        int allowed = SweepFixedX(fixedX, fixedY, fixedWidth, fixedHeight, dx, lvlData);
+        fixedX += allowed;
+        hitbox.x = ToFloat(fixedX);
+        return allowed != dx;
+    }
+
+    /**
+     * Advances one tick of falling under constant gravity in fixed point. The step is
+     * {@code speed + gravity / 2}, the exact displacement for constant acceleration.
+     * On contact the box stops flush and {@link #fixedSpeedY} is left for the caller to set.
+     *
+     * @param gravity acceleration in sub-pixels per tick squared, even
+     * @param lvlData 2D level data array mapping tile indices to block IDs
+     * @return -1 if the box landed on a floor, 1 if it hit a ceiling, 0 if it moved freely
+     */
+    protected int fallFixed(int gravity, int[][] lvlData) {
+        int dy = fixedSpeedY + (gravity >> 1);
+        int allowed = SweepFixedY(fixedX, fixedY, fixedWidth, fixedHeight, dy, lvlData);
+        fixedY += allowed;
+        hitbox.y = ToFloat(fixedY);
+        if (allowed != dy)
+            return dy > 0 ? -1 : 1;
+        fixedSpeedY += gravity;
+        return 0;
+    }
+
+    /**
+     * Returns the displacement over one step under constant acceleration, integrated
+     * exactly so that jump arcs do not depend on the step length.
+     *
+     * @param speed        velocity at the start of the step
+     * @param acceleration constant acceleration during the step
+     * @param dt           step length in seconds
+     * @return displacement in pixels
+     */
+    protected static float Displacement(float speed, float acceleration, float dt) {
+        return speed * dt + 0.5f * acceleration * dt * dt;
+    }
+
     /**
      * Checks if a single point in world coordinates lies within a solid (non-air) tile.
      *
@@ -73,8 +243,21 @@ public abstract class Entity {
         }
         int tileX = (int) (x / Game.TILES_SIZE);
         int tileY = (int) (y / Game.TILES_SIZE);
-        int value = lvlData[tileX][tileY];
-        return value != BlockType.AIR.ordinal();
+        return BlockRegistry.IsSolid(lvlData[tileX][tileY]);
+    }
+
+    /**
+     * Checks if the tile at the given tile coordinates is solid (non-air).
+     *
+     * @param tileX   tile column index
+     * @param tileY   tile row index
+     * @param lvlData 2D level data array mapping tile indices to block IDs
+     * @return true if the tile is outside the map or its block is solid
+     */
+    protected static boolean IsTileSolid(int tileX, int tileY, int[][] lvlData) {
+        if (tileX < 0 || tileX >= lvlData.length || tileY < 0 || tileY >= lvlData[0].length)
+            return true;
+        return BlockRegistry.IsSolid(lvlData[tileX][tileY]);
     }
 
 
@@ -98,42 +281,213 @@ public abstract class Entity {
                 && !IsSolid(x + width - COLLISION_OFFSET, y + height - COLLISION_OFFSET, lvlData);
     }
 
+    /** Tolerance used to keep boxes that sit exactly on a tile boundary out of that tile. */
+    private static final float SWEEP_EPSILON = 1e-3f;
+
     /**
-     * Calculates the X-position an entity should occupy next to a wall after horizontal movement.
+     * Outcome of a swept move, filled in by {@link #Sweep}.
+     */
+    public static class SweepResult {
+        /** Fraction of the requested move completed before contact; 1 if nothing was hit. */
+        public float time;
+        /** Contact normal pointing out of the hit tile; both zero if nothing was hit. */
+        public int normalX, normalY;
+        /** Box position after the move, flush against the hit tile on the blocked axis. */
+        public float x, y;
+
+        public boolean hit() {
+            return normalX != 0 || normalY != 0;
+        }
+    }
+
+    /**
+     * Sweeps a hitbox along a movement vector and stops it at the first solid tile.
      *
-     * @param hitbox the entity's collision rectangle
-     * @param xSpeed horizontal speed (positive moving right, negative moving left)
-     * @return adjusted X-coordinate that places the entity flush against the wall
+     * @param hitbox  the box to move; it is not modified
+     * @param dx      horizontal movement in pixels
+     * @param dy      vertical movement in pixels
+     * @param lvlData 2D level data array mapping tile indices to block IDs
+     * @param out     receives the contact time, normal and resolved position
+     * @return true if the box hit a solid tile before completing the move
      */
-    protected static float GetEntityXPosNextToWall(
-            Rectangle2D.Float hitbox,
-            float xSpeed) {
-        if (xSpeed > 0) {
-            int tileX = (int) ((hitbox.x + hitbox.width + xSpeed) / Game.TILES_SIZE);
-            return tileX * Game.TILES_SIZE - hitbox.width - COLLISION_OFFSET;
-        } else {
-            int tileX = (int) ((hitbox.x + xSpeed) / Game.TILES_SIZE);
-            return tileX * Game.TILES_SIZE + Game.TILES_SIZE + COLLISION_OFFSET;
+    protected static boolean Sweep(Rectangle2D.Float hitbox, float dx, float dy,
+                                   int[][] lvlData, SweepResult out) {
+        return Sweep(hitbox.x, hitbox.y, hitbox.width, hitbox.height, dx, dy, lvlData, out);
+    }
+
+    /**
+     * Sweeps an axis-aligned box along a movement vector through the tile grid.
+     * <p>
+     * Walks the grid lines crossed by the box's leading edges in time order (DDA) and
+     * checks the row or column of tiles the box enters at each crossing. Because every
+     * tile on the path is visited, the box cannot tunnel through thin floors or walls no
+     * matter how large the movement is. Tiles outside the map count as solid.
+     *
+     * @param x       X-coordinate of the box's top-left corner in pixels
+     * @param y       Y-coordinate of the box's top-left corner in pixels
+     * @param width   width of the box in pixels
+     * @param height  height of the box in pixels
+     * @param dx      horizontal movement in pixels
+     * @param dy      vertical movement in pixels
+     * @param lvlData 2D level data array mapping tile indices to block IDs
+     * @param out     receives the contact time, normal and resolved position
+     * @return true if the box hit a solid tile before completing the move
+     */
+    protected static boolean Sweep(float x, float y, float width, float height,
+                                   float dx, float dy, int[][] lvlData, SweepResult out) {
+        float tile = Game.TILES_SIZE;
+        out.time = 1;
+        out.normalX = 0;
+        out.normalY = 0;
+        out.x = x + dx;
+        out.y = y + dy;
+
+        int stepX = dx > 0 ? 1 : -1;
+        int col = 0;
+        float tx = Float.POSITIVE_INFINITY, txStep = Float.POSITIVE_INFINITY;
+        if (dx > 0) {
+            col = (int) Math.floor((x + width - SWEEP_EPSILON) / tile) + 1;
+            tx = (col * tile - (x + width)) / dx;
+        } else if (dx < 0) {
+            col = (int) Math.floor((x + SWEEP_EPSILON) / tile) - 1;
+            tx = ((col + 1) * tile - x) / dx;
+        }
+        if (dx != 0) {
+            tx = Math.max(0, tx);
+            txStep = tile / Math.abs(dx);
+        }
+
+        int stepY = dy > 0 ? 1 : -1;
+        int row = 0;
+        float ty = Float.POSITIVE_INFINITY, tyStep = Float.POSITIVE_INFINITY;
+        if (dy > 0) {
+            row = (int) Math.floor((y + height - SWEEP_EPSILON) / tile) + 1;
+            ty = (row * tile - (y + height)) / dy;
+        } else if (dy < 0) {
+            row = (int) Math.floor((y + SWEEP_EPSILON) / tile) - 1;
+            ty = ((row + 1) * tile - y) / dy;
+        }
+        if (dy != 0) {
+            ty = Math.max(0, ty);
+            tyStep = tile / Math.abs(dy);
+        }
+
+        while (Math.min(tx, ty) <= 1) {
+            if (tx <= ty) {
+                float cy = y + dy * tx;
+                if (IsColumnSpanSolid(col, cy, height, lvlData)) {
+                    out.time = tx;
+                    out.normalX = -stepX;
+                    out.x = dx > 0 ? col * tile - width : (col + 1) * tile;
+                    out.y = cy;
+                    return true;
+                }
+                col += stepX;
+                tx += txStep;
+            } else {
+                float cx = x + dx * ty;
+                if (IsRowSpanSolid(row, cx, width, lvlData)) {
+                    out.time = ty;
+                    out.normalY = -stepY;
+                    out.x = cx;
+                    out.y = dy > 0 ? row * tile - height : (row + 1) * tile;
+                    return true;
+                }
+                row += stepY;
+                ty += tyStep;
+            }
         }
+        return false;
     }
 
     /**
-     * Calculates the Y-position an entity should occupy under a roof or above a floor after vertical movement.
+     * Fixed-point counterpart of {@link #Sweep} for a horizontal move. Visits every column
+     * the leading edge enters, so large moves cannot tunnel.
      *
-     * @param hitbox  the entity's collision rectangle
-     * @param airSpeed vertical speed (positive moving down, negative moving up)
-     * @return adjusted Y-coordinate that places the entity flush against the ceiling or floor
+     * @param x       X-coordinate of the box's left edge in sub-pixels
+     * @param y       Y-coordinate of the box's top edge in sub-pixels
+     * @param width   width of the box in sub-pixels
+     * @param height  height of the box in sub-pixels
+     * @param dx      requested movement in sub-pixels
+     * @param lvlData 2D level data array mapping tile indices to block IDs
+     * @return the movement that keeps the box out of solid tiles; equals dx if nothing was hit
      */
-    protected static float GetEntityYPosUnderRoofOrAboveFloor(
-            Rectangle2D.Float hitbox,
-            float airSpeed) {
-        if (airSpeed > 0) {
-            int tileY = (int) ((hitbox.y + hitbox.height + airSpeed) / Game.TILES_SIZE);
-            return tileY * Game.TILES_SIZE - hitbox.height;
-        } else {
-            int tileY = (int) ((hitbox.y + airSpeed) / Game.TILES_SIZE);
-            return tileY * Game.TILES_SIZE + Game.TILES_SIZE;
+    protected static int SweepFixedX(int x, int y, int width, int height, int dx, int[][] lvlData) {
+        int r0 = TileOf(y), r1 = TileOf(y + height - 1);
+        if (dx > 0) {
+            int edge = x + width;
+            for (int c = TileOf(edge + TILE - 1), last = TileOf(edge + dx - 1); c <= last; c++) {
+                if (IsTileRangeSolid(c, c, r0, r1, lvlData))
+                    return c * TILE - edge;
+            }
+        } else if (dx < 0) {
+            for (int c = TileOf(x) - 1, last = TileOf(x + dx); c >= last; c--) {
+                if (IsTileRangeSolid(c, c, r0, r1, lvlData))
+                    return (c + 1) * TILE - x;
+            }
+        }
+        return dx;
+    }
+
+    /**
+     * Fixed-point counterpart of {@link #Sweep} for a vertical move.
+     *
+     * @param x       X-coordinate of the box's left edge in sub-pixels
+     * @param y       Y-coordinate of the box's top edge in sub-pixels
+     * @param width   width of the box in sub-pixels
+     * @param height  height of the box in sub-pixels
+     * @param dy      requested movement in sub-pixels
+     * @param lvlData 2D level data array mapping tile indices to block IDs
+     * @return the movement that keeps the box out of solid tiles; equals dy if nothing was hit
+     */
+    protected static int SweepFixedY(int x, int y, int width, int height, int dy, int[][] lvlData) {
+        int c0 = TileOf(x), c1 = TileOf(x + width - 1);
+        if (dy > 0) {
+            int edge = y + height;
+            for (int r = TileOf(edge + TILE - 1), last = TileOf(edge + dy - 1); r <= last; r++) {
+                if (IsTileRangeSolid(c0, c1, r, r, lvlData))
+                    return r * TILE - edge;
+            }
+        } else if (dy < 0) {
+            for (int r = TileOf(y) - 1, last = TileOf(y + dy); r >= last; r--) {
+                if (IsTileRangeSolid(c0, c1, r, r, lvlData))
+                    return (r + 1) * TILE - y;
+            }
+        }
+        return dy;
+    }
+
+    /** Checks whether any tile in the inclusive column and row ranges is solid. */
+    private static boolean IsTileRangeSolid(int c0, int c1, int r0, int r1, int[][] lvlData) {
+        for (int c = c0; c <= c1; c++) {
+            for (int r = r0; r <= r1; r++) {
+                if (IsTileSolid(c, r, lvlData))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /** Checks the tiles of one column overlapped by a vertical span [y, y + height). */
+    private static boolean IsColumnSpanSolid(int col, float y, float height, int[][] lvlData) {
+        int r0 = (int) Math.floor((y + SWEEP_EPSILON) / Game.TILES_SIZE);
+        int r1 = (int) Math.floor((y + height - SWEEP_EPSILON) / Game.TILES_SIZE);
+        for (int r = r0; r <= r1; r++) {
+            if (IsTileSolid(col, r, lvlData))
+                return true;
+        }
+        return false;
+    }
+
+    /** Checks the tiles of one row overlapped by a horizontal span [x, x + width). */
+    private static boolean IsRowSpanSolid(int row, float x, float width, int[][] lvlData) {
+        int c0 = (int) Math.floor((x + SWEEP_EPSILON) / Game.TILES_SIZE);
+        int c1 = (int) Math.floor((x + width - SWEEP_EPSILON) / Game.TILES_SIZE);
+        for (int c = c0; c <= c1; c++) {
+            if (IsTileSolid(c, row, lvlData))
+                return true;
         }
+        return false;
     }
 
     /**
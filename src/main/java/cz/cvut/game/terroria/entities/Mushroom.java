@@ -2,6 +2,7 @@ package cz.cvut.game.terroria.entities;
 
 import cz.cvut.game.terroria.Game;
 import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.utils.FixedPoint;
 
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
@@ -18,11 +19,13 @@ import static cz.cvut.game.terroria.utils.Constants.EnemyConstants.*;
  */
 public class Mushroom extends Enemy{
     /** Initial horizontal spawn position for patrol reference. */
-    private final float startX;
+    private float startX;
     /** Maximum horizontal distance from startX that the mushroom will patrol. */
     private final float patrolRange = 50 * Game.TILES_SIZE;
-    /** Upward force applied when the mushroom jumps. */
-    private final float jumpPower = 1.25f * Game.SCALE;
+    /** Upward speed, in pixels per second, applied when the mushroom jumps. */
+    private final float jumpPower = MUSHROOM_JUMP_SPEED;
+    /** Jump speed in sub-pixels per tick, for fixed-point mode. */
+    private int fixedJumpPower;
     /** Hitbox for the mushroom's melee attack range. */
     private Rectangle2D.Float attackBox;
 
@@ -30,6 +33,8 @@ public class Mushroom extends Enemy{
     private int attackBoxXOffset;
     /** Y-axis offset from the entity position to place the attackBox. */
     private int attackBoxYOffset;
+    /** Set when the death animation finished this tick and the meat drop is still to be handed out. */
+    private boolean pendingDrop;
 
     /**
      * Constructs a mushroom enemy at the specified coordinates.
@@ -43,6 +48,29 @@ public class Mushroom extends Enemy{
         initHitbox(x, y, (int) (14 * Game.SCALE), (int) (32 * Game.SCALE));
         this.startX = x;
         initAttackBox();
+        setFixedPoint(Game.FIXED_POINT_PHYSICS);
+    }
+    /**
+     * Moves a recycled mushroom to a new spawn point and restores it to a fresh state,
+     * so pooled instances can be reused instead of allocating new ones.
+     *
+     * @param x spawn X-coordinate in world units
+     * @param y spawn Y-coordinate in world units
+     */
+    public void respawn(float x, float y) {
+        this.x = x;
+        this.y = y;
+        this.startX = x;
+        walkDir = LEFT;
+        inAir = false;
+        pendingDrop = false;
+        resetEnemy();
+        updateAttackBox();
+    }
+    @Override
+    protected void updateFixedConstants() {
+        super.updateFixedConstants();
+        fixedJumpPower = FixedPoint.PerTick(jumpPower, dt);
     }
     /**
      * Initializes the rectangle used for melee attack collision checks.
@@ -54,27 +82,45 @@ public class Mushroom extends Enemy{
     }
 
     /**
-     * Main update loop called each tick. Handles AI behavior, animation,
-     * attack box movement, and item drop logic on death.
+     * Main update loop called each tick. Plans the tick and immediately applies its effects.
      *
      * @param lvlData tile map data for collision and sight checks
      * @param player  reference to the player for interactions
      */
     public void update(int[][] lvlData, Player player) {
+        planUpdate(lvlData, player);
+        applyIntents(player);
+    }
+
+    /**
+     * Read-only phase of the tick. Handles AI behavior, animation and attack box movement,
+     * mutating only this mushroom; damage to the player and the item drop on death are
+     * recorded as intents. Safe to run concurrently for different mushrooms.
+     *
+     * @param lvlData tile map data for collision and sight checks
+     * @param player  reference to the player, only read
+     */
+    public void planUpdate(int[][] lvlData, Player player) {
         boolean wasAlive = active;
         updateBehave(lvlData, player);
         updateAnimationTick();
         updateAttackBox();
-        
-        if (wasAlive && !active) {
-            System.out.println("[DROP] Mushroom died — dropping MUSHROOM_MEAT");
+        if (wasAlive && !active)
+            pendingDrop = true;
+    }
+
+    /**
+     * Applies the recorded damage and hands out the MUSHROOM_MEAT drop on death.
+     *
+     * @param player reference to the player receiving damage and items
+     */
+    @Override
+    public void applyIntents(Player player) {
+        super.applyIntents(player);
+        if (pendingDrop) {
+            pendingDrop = false;
             BufferedImage meatTex = BlockType.MUSHROOM_MEAT.getTile();
-            boolean added = player.getInventory().addItem(
-                    BlockType.MUSHROOM_MEAT,
-                    1,
-                    meatTex
-            );
-            System.out.println("[DROP] addItem returned " + added);
+            player.getInventory().addItem(BlockType.MUSHROOM_MEAT, 1, meatTex);
         }
     }
     /**
@@ -87,7 +133,7 @@ public class Mushroom extends Enemy{
         int widthTiles = lvlData.length;
         float worldWidth = widthTiles * Game.TILES_SIZE;
 
-        if (!inAir && !IsEntityOnFloor(hitbox, lvlData))
+        if (!inAir && !isOnFloor(lvlData))
             inAir = true;
         if (firstUpdate)
             firstUpdateCheck(lvlData);
@@ -104,13 +150,15 @@ public class Mushroom extends Enemy{
             updateInAir(lvlData);
             moveOrJump(lvlData);
         } else {
+            // run on in the same tick; a skipped tick would make walk speed depend on the UPS
+            if (enemyState == IDLE)
+                newState(RUNNING);
             switch (enemyState) {
-                case IDLE:
-                    newState(RUNNING);
-                    break;
                 case RUNNING:
                     if (canSeePlayer(lvlData, player)) {
                         turnTowardsPlayer(player);
+                    } else if (followFlowField()) {
+                        jump();
                     }
                     if (isPlayerCloseForAttack(player))
                         newState(ATTACK);
@@ -137,11 +185,17 @@ public class Mushroom extends Enemy{
      * @param lvlData tile map data for collision checks
      */
     private void moveOrJump(int[][] lvlData) {
-        float xSpeed = (walkDir == LEFT) ? -walkSpeed : walkSpeed;
-        if (CanMoveHere(hitbox.x + xSpeed, hitbox.y, hitbox.width, hitbox.height, lvlData)) {
-            hitbox.x += xSpeed;
-        } else {
+        if (fixedPoint) {
+            if (moveFixedX(walkDir == LEFT ? -fixedWalkSpeed : fixedWalkSpeed, lvlData))
+                jump();
+            return;
+        }
+        float xSpeed = ((walkDir == LEFT) ? -walkSpeed : walkSpeed) * dt;
+        if (Sweep(hitbox, xSpeed, 0, lvlData, sweep)) {
+            hitbox.x = sweep.x;
             jump();
+        } else {
+            hitbox.x += xSpeed;
         }
     }
     /**
@@ -151,6 +205,7 @@ public class Mushroom extends Enemy{
         if (!inAir) {
             inAir = true;
             fallSpeed = -jumpPower;
+            fixedSpeedY = -fixedJumpPower;
         }
     }
     /**
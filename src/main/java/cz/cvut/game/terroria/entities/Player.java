@@ -4,6 +4,7 @@ import cz.cvut.game.terroria.Game;
 import cz.cvut.game.terroria.audio.AudioHandler;
 import cz.cvut.game.terroria.craft.Inventory;
 import cz.cvut.game.terroria.gamestates.Playing;
+import cz.cvut.game.terroria.utils.BlockRegistry;
 import cz.cvut.game.terroria.utils.BlockType;
 import cz.cvut.game.terroria.utils.LoadSave;
 import cz.cvut.game.terroria.world.WorldGenerator;
@@ -12,6 +13,9 @@ import java.awt.*;
 import java.awt.geom.Rectangle2D;
 
 import static cz.cvut.game.terroria.utils.Constants.PlayerConstants.*;
+import static cz.cvut.game.terroria.utils.FixedPoint.PerTick;
+import static cz.cvut.game.terroria.utils.FixedPoint.PerTickSquared;
+import static cz.cvut.game.terroria.utils.FixedPoint.ToFloat;
 /**
  * Represents the player character in the game world, handling movement, animation,
  * input state, combat interactions, and inventory management.
@@ -25,7 +29,7 @@ public class Player extends Entity{
     /** Current frame index within the active animation. */
     private int aniIndex;
     /** Number of ticks between frame updates. */
-    private int aniSpeed = 20;
+    private int aniSpeed = Math.round(PLAYER_ANI_FRAME_SECONDS * Game.UPS_SET);
 
     /** Current action state (e.g., IDLE, RUNNING, JUMPING, ATTACK_1). */
     private int playerAction = IDLE;
@@ -36,8 +40,8 @@ public class Player extends Entity{
 
     /** Movement input flags for each direction. */
     private boolean right, up, down, left, jump;
-    /** Movement speed multiplier. */
-    private float playerSpeed = 1.0f * Game.SCALE;
+    /** Horizontal running speed in pixels per second. */
+    private float playerSpeed = PLAYER_RUN_SPEED;
 
     /** Reference to level collision data for movement checks. */
     private int[][] lvlData;
@@ -56,11 +60,13 @@ public class Player extends Entity{
     /** Inventory instance for item management. */
     private final Inventory inventory = new Inventory();
 
-    /** Vertical movement and gravity parameters. */
+    /** Vertical movement and gravity parameters, in pixels per second (squared for gravity). */
     private float airSpeed = 0f;
-    private float gravity = 0.04f * Game.SCALE;
-    private float jumpSpeed = -2.25f * Game.SCALE;
-    private float fallSpeedAfterCollision = 0.5f * Game.SCALE;
+    private float gravity = PLAYER_GRAVITY;
+    private float jumpSpeed = PLAYER_JUMP_SPEED;
+    private float fallSpeedAfterCollision = PLAYER_FALL_SPEED_AFTER_COLLISION;
+    /** The parameters above in sub-pixels per tick (squared for gravity), for fixed-point mode. */
+    private int fixedGravity, fixedJumpSpeed, fixedRunSpeed, fixedFallSpeedAfterCollision;
     private boolean inAir = false;
     private boolean jumpPressed = false;
     private boolean attackFinished = false;
@@ -110,7 +116,8 @@ public class Player extends Entity{
      * @param y      initial Y-coordinate in world units
      * @param width  width of the collision hitbox
      * @param height height of the collision hitbox
-     * @param playing reference to the playing state for context
+     * @param playing reference to the playing state for context, or null for a headless
+     *                player used in simulations and benchmarks
      */
     public Player(float x, float y,int width,int height, Playing playing) {
         super(x, y,width,height);
@@ -122,7 +129,9 @@ public class Player extends Entity{
         loadSwordAnimations();
         initHitbox(x,y, (int) (13 * Game.SCALE), (int) (42 * Game.SCALE));
         initAttackBox();
-        audioHandler = playing.getGame().getAudioHandler();
+        if (playing != null)
+            audioHandler = playing.getGame().getAudioHandler();
+        setFixedPoint(Game.FIXED_POINT_PHYSICS);
     }
     /** Initializes the melee attack collision box relative to the hitbox. */
     private void initAttackBox(){
@@ -275,7 +284,7 @@ public class Player extends Entity{
      */
     public void loadLvlData(int[][] lvlData) {
         this.lvlData = lvlData;
-        if (!IsEntityOnFloor(hitbox, lvlData))
+        if (!isOnFloor(lvlData))
             inAir = true;
 
     }
@@ -314,7 +323,7 @@ public class Player extends Entity{
             playerAction = IDLE;
         }
         if(inAir){
-            if (airSpeed < 0 )
+            if ((fixedPoint ? fixedSpeedY : airSpeed) < 0)
                 playerAction = JUMP;
             else
                 playerAction = FALLING;
@@ -347,6 +356,8 @@ public class Player extends Entity{
         if (jump)
             jump();
 
+        if (!inAir && !isOnFloor(lvlData))
+            inAir = true;   // a resting player only compares edit stamps here
         if (!inAir) {
             if ((!left && !right) || (right && left))
                 return;
@@ -356,48 +367,45 @@ public class Player extends Entity{
         if (left) {
             flipX = 0;
             flipW = 1;
-            xOffset -= playerSpeed;
+            xOffset -= playerSpeed * dt;
 
         }
         if (right) {
             flipX = width;
             flipW = -1;
-            xOffset += playerSpeed;
+            xOffset += playerSpeed * dt;
 
         }
 
-        if (!inAir) {
-            if (!IsEntityOnFloor(hitbox, lvlData)) {
-                inAir = true;
-            }
-        }
-        if (inAir) {
-            if (CanMoveHere(
-                    hitbox.x,
-                    hitbox.y + airSpeed,
-                    hitbox.width,
-                    hitbox.height,
-                    lvlData)) {
-                hitbox.y += airSpeed;
-                airSpeed += gravity;
-            } else {
-                hitbox.y = GetEntityYPosUnderRoofOrAboveFloor(hitbox, airSpeed);
-                if (airSpeed > 0)
+        if (inAir && fixedPoint) {
+            int contact = fallFixed(fixedGravity, lvlData);
+            if (contact < 0)
+                resetInAir();
+            else if (contact > 0)
+                fixedSpeedY = fixedFallSpeedAfterCollision;
+        } else if (inAir) {
+            float dy = Displacement(airSpeed, gravity, dt);
+            if (Sweep(hitbox, 0, dy, lvlData, sweep)) {
+                hitbox.y = sweep.y;
+                if (sweep.normalY < 0)
                     resetInAir();
                 else
                     airSpeed = fallSpeedAfterCollision;
+            } else {
+                hitbox.y += dy;
+                airSpeed += gravity * dt;
             }
         }
-        if (xOffset != 0) {
-            float newX = hitbox.x + xOffset;
-            float topCheck    = hitbox.y + COLLISION_OFFSET;
-            float bottomCheck = hitbox.y + hitbox.height - COLLISION_OFFSET;
-            float sideX = xOffset > 0
-                    ? newX + hitbox.width - COLLISION_OFFSET
-                    : newX + COLLISION_OFFSET;
-            if (!IsSolid(sideX, topCheck, lvlData)
-                    && !IsSolid(sideX, bottomCheck, lvlData)) {
-                hitbox.x = newX;
+        if (xOffset != 0 && fixedPoint) {
+            int startX = fixedX;
+            moveFixedX(xOffset < 0 ? -fixedRunSpeed : fixedRunSpeed, lvlData);
+            moving = fixedX != startX;
+        } else if (xOffset != 0) {
+            if (Sweep(hitbox, xOffset, 0, lvlData, sweep)) {
+                moving = sweep.x != hitbox.x;
+                hitbox.x = sweep.x;
+            } else {
+                hitbox.x += xOffset;
                 moving = true;
             }
         }
@@ -423,20 +431,14 @@ public class Player extends Entity{
             return;
         inAir = true;
         airSpeed = jumpSpeed;
+        fixedSpeedY = fixedJumpSpeed;
 
     }
     /** Resets inAir state and vertical speed after landing. */
     private void resetInAir() {
         inAir = false;
         airSpeed = 0f;
-    }
-
-    private void updateXpos(float xSpeed) {
-        if(CanMoveHere(xSpeed + hitbox.x, hitbox.y, hitbox.width, hitbox.height, lvlData)) {
-            hitbox.x += xSpeed;
-        }else {
-            hitbox.x = GetEntityXPosNextToWall(hitbox, xSpeed);
-        }
+        fixedSpeedY = 0;
     }
 
     /**
@@ -470,6 +472,10 @@ public class Player extends Entity{
         return inventory;
     }
 
+    public int getCurrentHealth() {
+        return currentHealth;
+    }
+
     /**
      * Adds a specified number of planks of the given tree type to the inventory.
      * <p>
@@ -497,8 +503,8 @@ public class Player extends Entity{
     /**
      * Mines the block at the specified world coordinates and collects it into the inventory.
      * <p>
-     * Checks if the target block is not air, converts its ID to a BlockType, retrieves its texture,
-     * destroys the block in the world generator, and adds one of the resulting item to the inventory.
+     * Skips blocks that cannot be mined, destroys the block in the world generator, and adds
+     * one of the block's drop item to the inventory.
      *
      * @param worldGen the WorldGenerator instance representing the game world
      * @param tx the x-coordinate of the block to mine
@@ -506,13 +512,35 @@ public class Player extends Entity{
      */
     public void mineAndCollect(WorldGenerator worldGen, int tx, int ty) {
         int id = worldGen.getWorld()[tx][ty];
-        if (id == BlockType.AIR.ordinal()) return;
+        if (BlockRegistry.GetHardness(id) == 0) return;
 
-        BlockType bt = BlockType.fromId(id);
-        BufferedImage tex = bt.getTile();
+        BlockType drop = BlockType.fromId(BlockRegistry.GetDrop(id));
         worldGen.destroyBlock(tx, ty);
-        // ← use the (type, count, texture) overload
-        inventory.addItem(bt, 1, tex);
+        if (drop != BlockType.AIR)
+            inventory.addItem(drop, 1, drop.getTile());
+    }
+
+    @Override
+    public void setFixedPoint(boolean fixedPoint) {
+        if (fixedPoint && !this.fixedPoint)
+            fixedSpeedY = PerTick(airSpeed, dt);
+        else if (!fixedPoint && this.fixedPoint)
+            airSpeed = ToFloat(fixedSpeedY) / dt;
+        super.setFixedPoint(fixedPoint);
+    }
+
+    @Override
+    protected void updateFixedConstants() {
+        fixedGravity = PerTickSquared(gravity, dt);
+        fixedJumpSpeed = PerTick(jumpSpeed, dt);
+        fixedRunSpeed = PerTick(playerSpeed, dt);
+        fixedFallSpeedAfterCollision = PerTick(fallSpeedAfterCollision, dt);
+    }
+
+    @Override
+    public void setUpdatesPerSecond(int ups) {
+        super.setUpdatesPerSecond(ups);
+        aniSpeed = Math.max(1, Math.round(PLAYER_ANI_FRAME_SECONDS * ups));
     }
 
     public int getAttackAnimDuration() {
@@ -564,6 +592,9 @@ public class Player extends Entity{
 
         hitbox.x = x;
         hitbox.y = y;
+        airSpeed = 0f;
+        fixedSpeedY = 0;
+        loadFixedPosition();
 
 //        if (!IsEntityOnFloor(hitbox, lvlData))
 //            inAir = true;
@@ -18,6 +18,7 @@ public class Slime extends Enemy{
         initHitbox(x,y, (int) (24 * Game.SCALE), (int) (13 * Game.SCALE));
         this.enemyType = enemyType;
         initAttackBox();
+        setFixedPoint(Game.FIXED_POINT_PHYSICS);
     }
 
     private void initAttackBox() {
@@ -27,12 +28,12 @@ public class Slime extends Enemy{
     }
 
     public void loadLvlData(int[][] lvlData) {
-        if (!IsEntityOnFloor(hitbox, lvlData))
+        if (!isOnFloor(lvlData))
             inAir = true;
     }
 
     private void updateBehave(int[][] lvlData, Player player) {
-        if (!inAir && !IsEntityOnFloor(hitbox, lvlData)) {
+        if (!inAir && !isOnFloor(lvlData)) {
             inAir = true;
         }
 
@@ -9,6 +9,7 @@ import cz.cvut.game.terroria.entities.EnemyManager;
 import cz.cvut.game.terroria.entities.Player;
 import cz.cvut.game.terroria.ui.GameOverScreen;
 import cz.cvut.game.terroria.ui.PauseScreen;
+import cz.cvut.game.terroria.utils.BlockRegistry;
 import cz.cvut.game.terroria.utils.BlockType;
 import cz.cvut.game.terroria.utils.Constants;
 import cz.cvut.game.terroria.utils.ItemStack;
@@ -22,6 +23,8 @@ import java.awt.event.KeyEvent;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static cz.cvut.game.terroria.craft.Inventory.*;
 
@@ -36,8 +39,10 @@ import static cz.cvut.game.terroria.craft.Inventory.*;
 public class Playing extends State implements StateMethods {
 
     // --- World & Rendering ---
-    private final WorldGenerator worldGen;
+    private WorldGenerator worldGen;
     private int[][] world;
+    /** Generates the next world in the background once the current run is over. */
+    private final WorldPreloader preloader = new WorldPreloader();
     private final BufferedImage playingBackground;
     private final BufferedImage caveBackground;
     private int     xLvlOffset = 0, yLvlOffset = 0;
@@ -57,11 +62,19 @@ public class Playing extends State implements StateMethods {
     private boolean mining   = false;
     private int     mineTileX, mineTileY;
     private int     mineTimer  = 0;
+    /** Presser id of the player on the wiring's pressure plates. */
+    private static final int PLAYER_PRESSER = 0;
 
     // --- Inventory & Crafting ---
     private boolean invActive = false;
     private final RecipeManager recipeManager;
     private Inventory inventory;
+    /**
+     * Tiles right-clicked to flip a switch, lay wire or place a block. Mouse events arrive
+     * on the Swing thread, so they are queued here and applied by {@link #update()}, keeping
+     * every world and wiring change on the game thread.
+     */
+    private final Queue<Point> pendingRightClicks = new ConcurrentLinkedQueue<>();
 
     // --- Camera ---
     private final int leftBorder   = Constants.WINDOW_WIDTH  / 2;
@@ -94,6 +107,7 @@ public class Playing extends State implements StateMethods {
                 (int)(Game.SCALE * 64),
                 this);
         player.loadLvlData(world);
+        player.setEditStamps(worldGen.getEditStamps());
         inventory = player.getInventory();
 
         playingBackground = LoadSave.GetSpriteAtlas(LoadSave.PLAYING_BACKGROUND);
@@ -126,6 +140,13 @@ public class Playing extends State implements StateMethods {
                 BlockType.MUSHROOM_MEAT,
                 BlockType.MUSHROOM_MEAT
         ), BlockType.PANTS_ICON.getTile()));
+        recipeManager.addRecipe(new Recipe(BlockType.WIRE, List.of(BlockType.ORE), BlockType.WIRE.getTile()));
+        recipeManager.addRecipe(new Recipe(BlockType.SWITCH_OFF, List.of(BlockType.ORE, BlockType.PLANK_RED),
+                BlockType.SWITCH_OFF.getTile()));
+        recipeManager.addRecipe(new Recipe(BlockType.PRESSURE_PLATE, List.of(BlockType.ORE, BlockType.ORE),
+                BlockType.PRESSURE_PLATE.getTile()));
+        recipeManager.addRecipe(new Recipe(BlockType.DOOR_CLOSED, List.of(BlockType.PLANK_RED, BlockType.PLANK_RED,
+                BlockType.PLANK_GOLD), BlockType.DOOR_CLOSED.getTile()));
 
     }
 
@@ -133,18 +154,58 @@ public class Playing extends State implements StateMethods {
      * Main update loop: handles pause, game over, player, mining, enemies, and camera.
      */
     @Override
-    public void update() {
+    public synchronized void update() {
         if (paused)
             pauseScreen.update();
         else {
             if(gameOver) return;
             player.update();
+            applyRightClicks();
+            worldGen.getWiring().updatePresser(PLAYER_PRESSER,
+                    (int) (player.getHitbox().getCenterX() / Game.TILES_SIZE),
+                    (int) ((player.getHitbox().y + player.getHitbox().height - 1) / Game.TILES_SIZE));
+            worldGen.update((int) (player.getHitbox().getCenterX() / Game.TILES_SIZE));
             if (mining) handleMining();
             enemyManager.update(world, player);
             checkCloseToBorder();
         }
     }
 
+    /**
+     * Applies the tiles right-clicked since the last tick: a click on a switch flips it,
+     * otherwise the selected wire or block is placed there.
+     */
+    private void applyRightClicks() {
+        Point tile;
+        while ((tile = pendingRightClicks.poll()) != null) {
+            int tx = tile.x, ty = tile.y;
+            if (tx >= 0 && tx < world.length && ty >= 0 && ty < world[0].length
+                    && worldGen.getWiring().toggleSwitch(tx, ty))
+                continue;
+            ItemStack stack = inventory.selectedSlot == -1 ? null : player.getInventory().getItem(inventory.selectedSlot);
+            if (stack == null)
+                continue;
+            BlockType type = stack.getType();
+            if (type == BlockType.WIRE) {
+                // wire goes on its own layer, over whatever block the tile holds
+                if (worldGen.getWiring().placeWire(tx, ty)) {
+                    player.getInventory().removeOne(inventory.selectedSlot);
+                    if (player.getInventory().getItem(inventory.selectedSlot) == null)
+                        inventory.selectedSlot = -1;
+                }
+            } else if (tx >= 0 && tx < world.length
+                    && ty >= 0 && ty < world[0].length
+                    && world[tx][ty] == BlockType.AIR.ordinal()
+                    && BlockRegistry.IsPlaceable(type.getId())) {
+                worldGen.setBlock(tx, ty, type);
+                player.getInventory().removeOne(inventory.selectedSlot);
+                if (player.getInventory().getItem(inventory.selectedSlot) == null) {
+                    inventory.selectedSlot = -1;
+                }
+            }
+        }
+    }
+
     /**
      * Handles mining/digging interactions based on timer and range.
      */
@@ -159,13 +220,17 @@ public class Playing extends State implements StateMethods {
                         .filter(t -> t.tileX==mineTileX && t.tileY==mineTileY)
                         .findFirst();
                 if (hitTree.isPresent()) {
-                    trees.remove(hitTree.get());
+                    worldGen.removeTree(hitTree.get());
                     player.addPlank(hitTree.get().type, 1);
-                } else {
+                } else if (worldGen.hitBlock(mineTileX, mineTileY)) {
                     player.mineAndCollect(worldGen, mineTileX, mineTileY);
+                } else if (worldGen.getWiring().isWire(mineTileX, mineTileY)
+                        && BlockRegistry.GetHardness(world[mineTileX][mineTileY]) == 0) {
+                    worldGen.getWiring().removeWire(mineTileX, mineTileY);
+                    // nothing minable on the tile, so the swing cuts the wire instead
+                    inventory.addItem(BlockType.WIRE, 1, BlockType.WIRE.getTile());
                 }
                 player.clearAttackJustFinished();
-                player.loadLvlData(world);
             }
             if (mining) {
                 if (dx*dx + dy*dy <= DIG_RANGE*DIG_RANGE) {
@@ -273,24 +338,9 @@ public class Playing extends State implements StateMethods {
                     return;
             }
 
-            // Block placement
-            if (!invActive && btn == MouseEvent.BUTTON3 && inventory.selectedSlot != -1) {
-                ItemStack stack = player.getInventory().getItem(inventory.selectedSlot);
-                if (stack != null) {
-                    BlockType type = stack.getType();
-                    int tx = (mx + xLvlOffset) / Game.TILES_SIZE;
-                    int ty = (my + yLvlOffset) / Game.TILES_SIZE;
-                    if (tx >= 0 && tx < world.length
-                            && ty >= 0 && ty < world[0].length
-                            && world[tx][ty] == BlockType.AIR.ordinal()) {
-                        worldGen.setBlock(tx, ty, type);
-                        player.loadLvlData(world);
-                        player.getInventory().removeOne(inventory.selectedSlot);
-                        if (player.getInventory().getItem(inventory.selectedSlot) == null) {
-                            inventory.selectedSlot = -1;
-                        }
-                    }
-                }
+            // Switch flipping and block placement, applied on the next tick
+            if (!invActive && btn == MouseEvent.BUTTON3) {
+                pendingRightClicks.add(new Point((mx + xLvlOffset) / Game.TILES_SIZE, (my + yLvlOffset) / Game.TILES_SIZE));
                 return;
             }
 
@@ -422,18 +472,30 @@ public class Playing extends State implements StateMethods {
         yLvlOffset = Math.max(0, Math.min(yLvlOffset, maxLvlOffsetY));
     }
 
+    /**
+     * Restarts with a new world. The world is normally already generated in the background
+     * since the game-over screen appeared, so only the swap itself happens here; it runs
+     * under the same lock as {@link #update()}, so a tick never sees half of the old world
+     * and half of the new one.
+     */
     public void resetAll() {
-        gameOver = false;
-        paused   = false;
-        player.resetAll();
-        worldGen.resetWrld();
-        world = worldGen.getWorld();
-        trees = worldGen.getTrees();
-        enemyManager.resetAllEnemies();
-        player.loadLvlData(world);
-        player.getInventory().resetInv();
-        xLvlOffset = 0;
-        yLvlOffset = 0;
+        WorldPreloader.Bundle next = preloader.take();
+        synchronized (this) {
+            gameOver = false;
+            paused   = false;
+            player.resetAll();
+            worldGen = next.worldGen;
+            world = worldGen.getWorld();
+            trees = worldGen.getTrees();
+            enemyManager.switchWorld(worldGen, next.enemySpawns);
+            pendingRightClicks.clear();
+            player.setEditStamps(worldGen.getEditStamps());
+            player.loadLvlData(world);
+            player.getInventory().resetInv();
+            mining = false;
+            xLvlOffset = 0;
+            yLvlOffset = 0;
+        }
     }
     /**
      * Checks if an enemy was hit by the player's attack box.
@@ -445,8 +507,17 @@ public class Playing extends State implements StateMethods {
     }
 
     public int[][] getWorld()  { return world;  }
+    public WorldGenerator getWorldGen() { return worldGen; }
     public Player getPlayer() { return player; }
-    public void setGameOver(boolean gameOver) { this.gameOver = gameOver; }
+    /**
+     * Sets the game-over flag; entering game over starts generating the next world in the
+     * background.
+     */
+    public void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+        if (gameOver)
+            preloader.start(System.currentTimeMillis());
+    }
 
     public void unpauseGame() {
         paused = false;
@@ -0,0 +1,98 @@
+package cz.cvut.game.terroria.gamestates;
+
+import cz.cvut.game.terroria.entities.EnemyManager;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the next world on a background thread so that restarting does not stall the
+ * game loop.
+ * <p>
+ * {@link #start(long)} is called speculatively as soon as the current run is over; by the
+ * time the player restarts, {@link #take()} usually finds a finished {@link Bundle} and the
+ * swap costs a single frame. If nothing was started, or generation is still running,
+ * {@code take()} falls back to generating or waiting on the calling thread.
+ */
+public class WorldPreloader {
+
+    /**
+     * Everything a restart swaps in at once: the world with its trees and derived maps, and
+     * the positions the enemies respawn at.
+     */
+    public static class Bundle {
+        public final long seed;
+        public final WorldGenerator worldGen;
+        /** Enemy spawn positions in world units, as consecutive x, y pairs. */
+        public final float[] enemySpawns;
+
+        Bundle(long seed, WorldGenerator worldGen, float[] enemySpawns) {
+            this.seed = seed;
+            this.worldGen = worldGen;
+            this.enemySpawns = enemySpawns;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "world-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<Bundle> pending;
+
+    /**
+     * Starts generating the next world in the background. Does nothing if a world is
+     * already being prepared or waiting to be taken.
+     *
+     * @param seed seed of the next world
+     */
+    public synchronized void start(long seed) {
+        if (pending == null)
+            pending = executor.submit(() -> Prepare(seed));
+    }
+
+    /**
+     * Returns whether a prepared world can be taken without waiting.
+     *
+     * @return true if background generation has finished
+     */
+    public synchronized boolean isReady() {
+        return pending != null && pending.isDone();
+    }
+
+    /**
+     * Hands over the prepared world, waiting for it if it is still being generated, or
+     * generating one with a time-based seed on the calling thread if none was started.
+     *
+     * @return the next world bundle
+     */
+    public synchronized Bundle take() {
+        Future<Bundle> result = pending;
+        pending = null;
+        if (result == null)
+            return Prepare(System.currentTimeMillis());
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Prepare(System.currentTimeMillis());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Background world generation failed", e.getCause());
+        }
+    }
+
+    /** Stops the background thread; a world still being generated is abandoned. */
+    public synchronized void shutdown() {
+        executor.shutdownNow();
+        pending = null;
+    }
+
+    private static Bundle Prepare(long seed) {
+        WorldGenerator worldGen = new WorldGenerator(seed);
+        float[] spawns = EnemyManager.SpawnPoints(worldGen.getWorld(), worldGen.getSurface());
+        return new Bundle(seed, worldGen, spawns);
+    }
+}
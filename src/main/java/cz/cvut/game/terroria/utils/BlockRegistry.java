@@ -0,0 +1,117 @@
+package cz.cvut.game.terroria.utils;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Property table for every block id.
+ * <p>
+ * Block ids are the dense {@link BlockType} ordinals stored in the world grid. Each property
+ * lives in its own primitive array indexed by id, so collision, rendering, mining and
+ * placement answer "is this tile solid?" or "what does it drop?" with a single array read
+ * instead of comparing against {@code AIR} or walking an if-chain. Textures are resolved
+ * once when the registry is loaded.
+ */
+public final class BlockRegistry {
+    /** Number of registered ids. */
+    public static final int COUNT = BlockType.values().length;
+
+    /** Whether entities collide with the block. */
+    private static final boolean[] SOLID = new boolean[COUNT];
+    /** Whether the block hides what is behind it and stops light. */
+    private static final boolean[] OPAQUE = new boolean[COUNT];
+    /** Whether the item can be placed into the world from the inventory. */
+    private static final boolean[] PLACEABLE = new boolean[COUNT];
+    /** Number of completed swings needed to mine the block; 0 means it cannot be mined. */
+    private static final int[] HARDNESS = new int[COUNT];
+    /** Item id added to the inventory when the block is mined. */
+    private static final int[] DROP = new int[COUNT];
+    /** Index into {@link #TEXTURES}, or -1 if the id has no image. */
+    private static final int[] TEXTURE_INDEX = new int[COUNT];
+    /** Distinct tile images, loaded once. */
+    private static final BufferedImage[] TEXTURES;
+
+    static {
+        //       type                    solid  opaque placeable hardness drop
+        Register(BlockType.AIR,            false, false, false,    0, BlockType.AIR);
+        Register(BlockType.GRASS,          true,  true,  true,     1, BlockType.GRASS);
+        Register(BlockType.DIRT,           true,  true,  true,     1, BlockType.DIRT);
+        Register(BlockType.ORE,            true,  true,  true,     3, BlockType.ORE);
+        Register(BlockType.SWORD,          false, false, false,    0, BlockType.AIR);
+        Register(BlockType.PANTS_ICON,     false, false, false,    0, BlockType.AIR);
+        Register(BlockType.SHIRT_ICON,     false, false, false,    0, BlockType.AIR);
+        Register(BlockType.SHOES_ICON,     false, false, false,    0, BlockType.AIR);
+        Register(BlockType.MUSHROOM_MEAT,  false, false, false,    0, BlockType.AIR);
+        Register(BlockType.GRASS_LEFT_AIR, true,  true,  false,    1, BlockType.GRASS);
+        Register(BlockType.GRASS_RIGHT_AIR,true,  true,  false,    1, BlockType.GRASS);
+        Register(BlockType.GRASS_LR_AIR,   true,  true,  false,    1, BlockType.GRASS);
+        Register(BlockType.PLANK_RED,      true,  true,  true,     1, BlockType.PLANK_RED);
+        Register(BlockType.PLANK_GOLD,     true,  true,  true,     1, BlockType.PLANK_GOLD);
+        Register(BlockType.PLANK_RAINBOW,  true,  true,  true,     1, BlockType.PLANK_RAINBOW);
+        Register(BlockType.WATER,          false, false, false,    0, BlockType.AIR);
+        Register(BlockType.SWITCH_OFF,     false, false, true,     1, BlockType.SWITCH_OFF);
+        Register(BlockType.SWITCH_ON,      false, false, false,    1, BlockType.SWITCH_OFF);
+        Register(BlockType.PRESSURE_PLATE, false, false, true,     1, BlockType.PRESSURE_PLATE);
+        Register(BlockType.DOOR_CLOSED,    true,  true,  true,     2, BlockType.DOOR_CLOSED);
+        Register(BlockType.DOOR_OPEN,      false, false, false,    2, BlockType.DOOR_CLOSED);
+        Register(BlockType.WIRE,           false, false, false,    0, BlockType.AIR);
+
+        List<BufferedImage> textures = new ArrayList<>();
+        for (BlockType type : BlockType.values()) {
+            BufferedImage tile = type.loadTile();
+            TEXTURE_INDEX[type.ordinal()] = tile == null ? -1 : textures.size();
+            if (tile != null)
+                textures.add(tile);
+        }
+        TEXTURES = textures.toArray(new BufferedImage[0]);
+    }
+
+    private BlockRegistry() {
+    }
+
+    private static void Register(BlockType type, boolean solid, boolean opaque, boolean placeable,
+                                 int hardness, BlockType drop) {
+        int id = type.ordinal();
+        SOLID[id] = solid;
+        OPAQUE[id] = opaque;
+        PLACEABLE[id] = placeable;
+        HARDNESS[id] = hardness;
+        DROP[id] = drop.ordinal();
+    }
+
+    public static boolean IsSolid(int id) {
+        return SOLID[id];
+    }
+
+    public static boolean IsOpaque(int id) {
+        return OPAQUE[id];
+    }
+
+    public static boolean IsPlaceable(int id) {
+        return PLACEABLE[id];
+    }
+
+    public static int GetHardness(int id) {
+        return HARDNESS[id];
+    }
+
+    public static int GetDrop(int id) {
+        return DROP[id];
+    }
+
+    public static int GetTextureIndex(int id) {
+        return TEXTURE_INDEX[id];
+    }
+
+    /**
+     * Returns the tile image for a block id.
+     *
+     * @param id block id
+     * @return the image, or null for ids without one (such as AIR)
+     */
+    public static BufferedImage GetTexture(int id) {
+        int index = TEXTURE_INDEX[id];
+        return index < 0 ? null : TEXTURES[index];
+    }
+}
@@ -1,4 +1,5 @@
 package cz.cvut.game.terroria.utils;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.List;
 
@@ -10,8 +11,11 @@ import java.util.List;
  * - Ore textures (ore.png)
  * - Plank variants and special items (Textures-16.png)
  * <p>
+ * Wiring devices have no atlas tile; their small icons are drawn in code.
+ * <p>
  * Provides methods to retrieve the corresponding tile image, obtain the enum's ordinal ID,
  * and convert an integer ID back into a BlockType (with out-of-range values mapping to AIR).
+ * Per-id properties such as solidity and hardness live in {@link BlockRegistry}.
  */
 public enum BlockType {
     /** Empty space; has no tile. */
@@ -35,7 +39,18 @@ public enum BlockType {
 
     PLANK_RED      (13,  4),   // 5th tile in 14th row
     PLANK_GOLD     (13,  6),   // 7th tile
-    PLANK_RAINBOW  (13,  7);
+    PLANK_RAINBOW  (13,  7),
+
+    /** Fluid; drawn from its level by the world renderer, so it has no tile. */
+    WATER          (-1, -1),
+
+    /** Wiring devices and the wire item; see {@link #DrawDevice(BlockType)}. */
+    SWITCH_OFF     (-1, -1),
+    SWITCH_ON      (-1, -1),
+    PRESSURE_PLATE (-1, -1),
+    DOOR_CLOSED    (-1, -1),
+    DOOR_OPEN      (-1, -1),
+    WIRE           (-1, -1);
 
     // Common tile and atlas settings
     private static final int TILE_SIZE   = 16;
@@ -64,15 +79,30 @@ public enum BlockType {
         this.col = col;
     }
     /**
-     * Retrieves the tile image for this block type from the correct atlas.
+     * Retrieves the tile image for this block type, loaded once by {@link BlockRegistry}.
+     *
+     * @return BufferedImage of the tile, or null if none
+     */
+    public BufferedImage getTile() {
+        return BlockRegistry.GetTexture(ordinal());
+    }
+
+    /**
+     * Loads the tile image for this block type from the correct atlas.
      * <p>
      * Returns null for AIR. Uses ORE_ATLAS for ORE, special single-image
      * atlases for equipment icons, and PLANK_ATLAS for planks and mushroom meat.
      *
      * @return BufferedImage of the tile, or null if none
      */
-    public BufferedImage getTile() {
-        if (row < 0) return null;          // AIR
+    BufferedImage loadTile() {
+        switch (this) {
+            case SWITCH_OFF, SWITCH_ON, PRESSURE_PLATE, DOOR_CLOSED, DOOR_OPEN, WIRE:
+                return DrawDevice(this);
+            default:
+                break;
+        }
+        if (row < 0) return null;          // AIR, WATER
         if (this == ORE)                   // ore.png
             return ORE_ATLAS[row][col];
         if (this == SWORD) {
@@ -100,6 +130,54 @@ public enum BlockType {
         }
     }
 
+    /**
+     * Draws the icon of a wiring device or of the wire item.
+     *
+     * @param type one of the wiring types
+     * @return a new TILE_SIZE x TILE_SIZE image
+     */
+    private static BufferedImage DrawDevice(BlockType type) {
+        BufferedImage img = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        Color wood = new Color(120, 78, 40), stone = new Color(110, 110, 120);
+        switch (type) {
+            case SWITCH_OFF, SWITCH_ON -> {
+                g.setColor(stone);
+                g.fillRect(4, 11, 8, 5);
+                boolean on = type == SWITCH_ON;
+                g.setColor(Color.DARK_GRAY);
+                g.drawLine(8, 12, on ? 12 : 4, 4);
+                g.setColor(on ? Color.GREEN : Color.RED);
+                g.fillRect(on ? 11 : 3, 3, 3, 3);
+            }
+            case PRESSURE_PLATE -> {
+                g.setColor(stone);
+                g.fillRect(1, 13, 14, 3);
+                g.setColor(Color.LIGHT_GRAY);
+                g.drawLine(1, 13, 14, 13);
+            }
+            case DOOR_CLOSED -> {
+                g.setColor(wood);
+                g.fillRect(3, 0, 10, 16);
+                g.setColor(wood.darker());
+                g.drawRect(3, 0, 9, 15);
+                g.setColor(Color.YELLOW);
+                g.fillRect(10, 8, 2, 2);
+            }
+            case DOOR_OPEN -> {
+                g.setColor(wood);
+                g.fillRect(3, 0, 3, 16);
+            }
+            default -> {
+                g.setColor(Color.RED);
+                g.setStroke(new BasicStroke(2));
+                g.drawPolyline(new int[] {1, 5, 10, 14}, new int[] {12, 4, 12, 4}, 4);
+            }
+        }
+        g.dispose();
+        return img;
+    }
+
     public int getId() {
         return this.ordinal();
     }
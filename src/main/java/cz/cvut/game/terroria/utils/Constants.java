@@ -84,6 +84,13 @@ public class Constants {
         public static final int MUSHROOM_WIDTH = (int) (MUSHROOM_WIDTH_DEFAULT * Game.SCALE);
         public static final int MUSHROOM_HEIGHT = (int) (MUSHROOM_HEIGHT_DEFAULT * Game.SCALE);
 
+        /** Enemy physics in pixels per second (speeds) and pixels per second squared (gravity). */
+        public static final float ENEMY_GRAVITY = 1600f * Game.SCALE;
+        public static final float ENEMY_WALK_SPEED = 70f * Game.SCALE;
+        public static final float MUSHROOM_JUMP_SPEED = 250f * Game.SCALE;
+        /** Duration of one enemy animation frame in seconds. */
+        public static final float ENEMY_ANI_FRAME_SECONDS = 0.125f;
+
         public static final int MUSHROOM_XDRAW_OFFSET = 33;
         public static final int MUSHROOM_YDRAW_OFFSET = 30;
 
@@ -159,6 +166,14 @@ public class Constants {
         public static final int ATTACK_1 = 5;
         public static final int GROUND = 6;
 
+        /** Player physics in pixels per second (speeds) and pixels per second squared (gravity). */
+        public static final float PLAYER_RUN_SPEED = 200f * Game.SCALE;
+        public static final float PLAYER_GRAVITY = 1600f * Game.SCALE;
+        public static final float PLAYER_JUMP_SPEED = -450f * Game.SCALE;
+        public static final float PLAYER_FALL_SPEED_AFTER_COLLISION = 100f * Game.SCALE;
+        /** Duration of one player animation frame in seconds. */
+        public static final float PLAYER_ANI_FRAME_SECONDS = 0.1f;
+
         /**
          * Returns the number of frames for the specified player action.
          *
@@ -0,0 +1,77 @@
+package cz.cvut.game.terroria.utils;
+
+import cz.cvut.game.terroria.Game;
+
+/**
+ * Conversions for the fixed-point physics mode.
+ * <p>
+ * Positions and velocities are held as integers counting sub-pixels, {@code 1 / ONE} of a
+ * pixel each. Integer arithmetic gives the same result on every run and every JVM, and
+ * tile lookups become a single floor division. With {@link #SHIFT} = 12 coordinates stay
+ * within {@code int} range for worlds up to roughly half a million pixels across.
+ */
+public final class FixedPoint {
+    /** Number of fractional bits. */
+    public static final int SHIFT = 12;
+    /** One pixel in sub-pixels. */
+    public static final int ONE = 1 << SHIFT;
+    /** One tile in sub-pixels. */
+    public static final int TILE = Game.TILES_SIZE << SHIFT;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Converts pixels to sub-pixels, rounding to the nearest sub-pixel.
+     *
+     * @param pixels value in pixels
+     * @return value in sub-pixels
+     */
+    public static int ToFixed(float pixels) {
+        return Math.round(pixels * ONE);
+    }
+
+    /**
+     * Converts sub-pixels back to pixels.
+     *
+     * @param fixed value in sub-pixels
+     * @return value in pixels
+     */
+    public static float ToFloat(int fixed) {
+        return fixed / (float) ONE;
+    }
+
+    /**
+     * Converts a speed in pixels per second to sub-pixels per tick.
+     *
+     * @param perSecond speed in pixels per second
+     * @param dt        tick length in seconds
+     * @return speed in sub-pixels per tick
+     */
+    public static int PerTick(float perSecond, float dt) {
+        return ToFixed(perSecond * dt);
+    }
+
+    /**
+     * Converts an acceleration in pixels per second squared to sub-pixels per tick squared.
+     * The result is rounded to an even number so that half of it, used by the exact
+     * constant-acceleration step, is also a whole sub-pixel.
+     *
+     * @param perSecondSquared acceleration in pixels per second squared
+     * @param dt               tick length in seconds
+     * @return acceleration in sub-pixels per tick squared
+     */
+    public static int PerTickSquared(float perSecondSquared, float dt) {
+        return ToFixed(perSecondSquared * dt * dt) & ~1;
+    }
+
+    /**
+     * Returns the tile index containing a sub-pixel coordinate.
+     *
+     * @param fixed coordinate in sub-pixels
+     * @return tile index, rounded toward negative infinity
+     */
+    public static int TileOf(int fixed) {
+        return Math.floorDiv(fixed, TILE);
+    }
+}
@@ -0,0 +1,135 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+import cz.cvut.game.terroria.utils.BlockType;
+
+/**
+ * Precomputed neighbour-aware tile variants used for rendering.
+ * <p>
+ * Some blocks look different depending on their neighbours; grass shows an edge on each side
+ * that is open to the air. The variant of every tile is computed once after generation and
+ * then recomputed only for the 3x3 neighbourhood around an edited tile, so the renderer
+ * reads one stored index per tile instead of inspecting neighbours every frame. The world
+ * grid itself keeps the base block id; variants only change what is drawn.
+ */
+public class AutotileMap {
+    /** Variant bit set when the left neighbour is open. */
+    public static final int OPEN_LEFT = 1;
+    /** Variant bit set when the right neighbour is open. */
+    public static final int OPEN_RIGHT = 2;
+
+    /** Render ids per variant for each autotiled block id; null for blocks without variants. */
+    private static final int[][] VARIANTS = new int[BlockRegistry.COUNT][];
+
+    static {
+        VARIANTS[BlockType.GRASS.ordinal()] = new int[] {
+                BlockType.GRASS.ordinal(),
+                BlockType.GRASS_LEFT_AIR.ordinal(),
+                BlockType.GRASS_RIGHT_AIR.ordinal(),
+                BlockType.GRASS_LR_AIR.ordinal()
+        };
+    }
+
+    private final int width, height;
+    /** Variant per tile, indexed x * height + y; 0 is the plain block. */
+    private final byte[] variant;
+
+    /**
+     * Creates an empty map for a world of the given size; call {@link #build(int[][])} to fill it.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     */
+    public AutotileMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.variant = new byte[width * height];
+    }
+
+    /**
+     * Recomputes the variant of every tile.
+     *
+     * @param world tile IDs indexed as [x][y]
+     */
+    public void build(int[][] world) {
+        rebuild(world, 0, 0, width - 1, height - 1);
+    }
+
+    /**
+     * Recomputes the variants around the tile at (x, y) after it changed.
+     *
+     * @param world tile IDs indexed as [x][y], already containing the new tile
+     * @param x     column of the changed tile
+     * @param y     row of the changed tile
+     */
+    public void onTileChanged(int[][] world, int x, int y) {
+        rebuild(world, x - 1, y - 1, x + 1, y + 1);
+    }
+
+    /**
+     * Recomputes the variants of every tile in a rectangle, clipped to the world.
+     *
+     * @param world tile IDs indexed as [x][y]
+     * @param x0    first column
+     * @param y0    first row
+     * @param x1    last column, inclusive
+     * @param y1    last row, inclusive
+     */
+    public void rebuild(int[][] world, int x0, int y0, int x1, int y1) {
+        for (int x = Math.max(0, x0); x <= Math.min(width - 1, x1); x++)
+            for (int y = Math.max(0, y0); y <= Math.min(height - 1, y1); y++)
+                variant[x * height + y] = (byte) compute(world, x, y);
+    }
+
+    /**
+     * Returns the stored variant of a tile.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return combination of {@link #OPEN_LEFT} and {@link #OPEN_RIGHT}; 0 outside the world
+     */
+    public int getVariant(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return 0;
+        return variant[x * height + y];
+    }
+
+    /**
+     * Returns the block id whose texture should be drawn for a tile.
+     *
+     * @param world tile IDs indexed as [x][y]
+     * @param x     tile column index
+     * @param y     tile row index
+     * @return the variant's block id, or the tile's own id if it has no variants
+     */
+    public int getRenderId(int[][] world, int x, int y) {
+        return getRenderId(world[x][y], x, y);
+    }
+
+    /**
+     * Returns the block id whose texture should be drawn for a tile whose id is already known.
+     *
+     * @param id block id of the tile
+     * @param x  tile column index
+     * @param y  tile row index
+     * @return the variant's block id, or id itself if it has no variants
+     */
+    public int getRenderId(int id, int x, int y) {
+        int v = variant[x * height + y];
+        int[] variants = VARIANTS[id];
+        // the renderer can see a new id before its variant is recomputed; a stale variant falls back to the id
+        return v == 0 || variants == null || v >= variants.length ? id : variants[v];
+    }
+
+    private int compute(int[][] world, int x, int y) {
+        int[] variants = VARIANTS[world[x][y]];
+        if (variants == null)
+            return 0;
+        int v = 0;
+        if (x > 0 && !BlockRegistry.IsSolid(world[x - 1][y]))
+            v |= OPEN_LEFT;
+        if (x + 1 < width && !BlockRegistry.IsSolid(world[x + 1][y]))
+            v |= OPEN_RIGHT;
+        return v;
+    }
+}
@@ -0,0 +1,207 @@
+package cz.cvut.game.terroria.world;
+
+import java.util.Arrays;
+
+/**
+ * Sparse map from tile to mining damage, bounded in size.
+ * <p>
+ * Only the handful of tiles someone is currently mining carry damage, so instead of a field
+ * per tile the damage lives in a small open-addressing hash table keyed by the packed tile
+ * coordinates, with primitive arrays for keys, damage and the tick of the last hit. Damage
+ * decays with time: once a tile has not been hit for {@code decayDelay} ticks it loses one
+ * point every {@code decayInterval} ticks. Decay is evaluated lazily from the last-hit tick,
+ * so nothing has to run per tick; {@link #update(long)} just drops entries that have fully
+ * healed. When the table is full, the entry hit longest ago is evicted to make room.
+ */
+public class BlockDamageMap {
+    /** Receives the damaged tiles. */
+    public interface Visitor {
+        /**
+         * Visits a damaged tile.
+         *
+         * @param x      tile column index
+         * @param y      tile row index
+         * @param damage current damage, at least 1
+         */
+        void visit(int x, int y, int damage);
+    }
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final int capacity, decayDelay, decayInterval;
+    private final int mask, shift;
+    private final long[] keys;
+    private final int[] damage;
+    private final long[] lastHit;
+    private int size;
+
+    /**
+     * Creates an empty map.
+     *
+     * @param capacity      maximum number of damaged tiles kept
+     * @param decayDelay    ticks after the last hit before damage starts to heal
+     * @param decayInterval ticks per point of healed damage
+     */
+    public BlockDamageMap(int capacity, int decayDelay, int decayInterval) {
+        this.capacity = capacity;
+        this.decayDelay = decayDelay;
+        this.decayInterval = Math.max(1, decayInterval);
+        int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        mask = slots - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(slots);
+        keys = new long[slots];
+        damage = new int[slots];
+        lastHit = new long[slots];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Adds damage to a tile, after applying the decay since its last hit.
+     *
+     * @param x      tile column index
+     * @param y      tile row index
+     * @param amount damage to add
+     * @param tick   current tick
+     * @return the tile's damage after the hit
+     */
+    public int hit(int x, int y, int amount, long tick) {
+        long key = Key(x, y);
+        int slot = find(key);
+        int current = 0;
+        if (slot < 0) {
+            if (size == capacity)
+                evictOldest();
+            slot = insertSlot(key);
+            keys[slot] = key;
+            size++;
+        } else {
+            current = decayed(slot, tick);
+        }
+        damage[slot] = current + amount;
+        lastHit[slot] = tick;
+        return damage[slot];
+    }
+
+    /**
+     * Returns the current damage of a tile.
+     *
+     * @param x    tile column index
+     * @param y    tile row index
+     * @param tick current tick
+     * @return damage after decay; 0 for undamaged tiles
+     */
+    public int getDamage(int x, int y, long tick) {
+        int slot = find(Key(x, y));
+        return slot < 0 ? 0 : decayed(slot, tick);
+    }
+
+    /**
+     * Forgets the damage of a tile, e.g. because it was mined or replaced.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     */
+    public void remove(int x, int y) {
+        int slot = find(Key(x, y));
+        if (slot >= 0)
+            delete(slot);
+    }
+
+    /**
+     * Drops every entry that has healed completely.
+     *
+     * @param tick current tick
+     */
+    public void update(long tick) {
+        for (int slot = 0; slot <= mask; ) {
+            if (keys[slot] != EMPTY && decayed(slot, tick) == 0)
+                delete(slot);               // another entry may have shifted into this slot
+            else
+                slot++;
+        }
+    }
+
+    /**
+     * Visits every tile that still has damage.
+     *
+     * @param tick    current tick
+     * @param visitor receives the tiles, in no particular order
+     */
+    public void forEach(long tick, Visitor visitor) {
+        for (int slot = 0; slot <= mask; slot++) {
+            long key = keys[slot];
+            if (key == EMPTY)
+                continue;
+            int d = decayed(slot, tick);
+            if (d > 0)
+                visitor.visit((int) (key >> 32), (int) key, d);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /** Number of stored entries, including ones that have healed but not been dropped yet. */
+    public int size() {
+        return size;
+    }
+
+    private int decayed(int slot, long tick) {
+        long idle = tick - lastHit[slot] - decayDelay;
+        if (idle <= 0)
+            return damage[slot];
+        long healed = (idle + decayInterval - 1) / decayInterval;
+        return (int) Math.max(0, damage[slot] - healed);
+    }
+
+    private static long Key(int x, int y) {
+        return (long) x << 32 | (y & 0xFFFFFFFFL);
+    }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private int find(long key) {
+        for (int slot = home(key); keys[slot] != EMPTY; slot = (slot + 1) & mask)
+            if (keys[slot] == key)
+                return slot;
+        return -1;
+    }
+
+    private int insertSlot(long key) {
+        int slot = home(key);
+        while (keys[slot] != EMPTY)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void evictOldest() {
+        int oldest = -1;
+        for (int slot = 0; slot <= mask; slot++)
+            if (keys[slot] != EMPTY && (oldest < 0 || lastHit[slot] < lastHit[oldest]))
+                oldest = slot;
+        if (oldest >= 0)
+            delete(oldest);
+    }
+
+    /** Removes a slot and shifts later entries of its probe run back, so no tombstones are needed. */
+    private void delete(int slot) {
+        keys[slot] = EMPTY;
+        size--;
+        for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = home(keys[next]);
+            // move the entry back if its home lies cyclically outside (slot, next]
+            boolean movable = slot <= next ? home <= slot || home > next : home <= slot && home > next;
+            if (movable) {
+                keys[slot] = keys[next];
+                damage[slot] = damage[next];
+                lastHit[slot] = lastHit[next];
+                keys[next] = EMPTY;
+                slot = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package cz.cvut.game.terroria.world;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue of delayed per-tile updates, keyed by the tick they are due.
+ * <p>
+ * Instead of scanning the whole world every tick, anything that needs a tile to react
+ * later (a block losing its support, dirt exposed to the sky, a sapling) schedules an
+ * action for that tile. Each {@link #update(Handler, int)} advances the clock by one tick
+ * and runs only the entries that are due, at most {@code budget} of them; anything over
+ * the budget stays queued and runs on the following ticks.
+ * <p>
+ * Entries are packed into a single {@code long} (due tick, tile index, action) and kept
+ * in a binary min-heap, so scheduling allocates nothing and entries due on the same tick
+ * run in a fixed order: by column, then row, then action.
+ */
+public class BlockUpdateScheduler {
+    /** Receives the due updates. */
+    public interface Handler {
+        /**
+         * Runs a scheduled update.
+         *
+         * @param x      tile column index
+         * @param y      tile row index
+         * @param action action code passed to {@link #schedule(int, int, int, int)}
+         */
+        void onBlockUpdate(int x, int y, int action);
+    }
+
+    private static final int ACTION_BITS = 4;
+    private static final int TILE_BITS = 20;
+    private static final int KEY_BITS = ACTION_BITS + TILE_BITS;
+    /** Largest action code that fits into an entry. */
+    public static final int MAX_ACTION = (1 << ACTION_BITS) - 1;
+
+    private final int width, height;
+    private long[] heap = new long[64];
+    private int size;
+    /** Number of ticks advanced so far. */
+    private long tick;
+
+    /**
+     * Creates an empty scheduler for a world of the given size.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     */
+    public BlockUpdateScheduler(int width, int height) {
+        if ((long) width * height > 1L << TILE_BITS)
+            throw new IllegalArgumentException("World too large for packed tile indices: " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Schedules an action for a tile. Tiles outside the world are ignored.
+     *
+     * @param x      tile column index
+     * @param y      tile row index
+     * @param action action code between 0 and {@link #MAX_ACTION}
+     * @param delay  ticks from now; values below 1 run on the next tick
+     */
+    public void schedule(int x, int y, int action, int delay) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return;
+        long due = tick + Math.max(1, delay);
+        long entry = due << KEY_BITS | (long) (x * height + y) << ACTION_BITS | (action & MAX_ACTION);
+        if (size == heap.length)
+            heap = Arrays.copyOf(heap, size * 2);
+        heap[size] = entry;
+        siftUp(size++);
+    }
+
+    /**
+     * Advances one tick and runs the due updates, oldest first.
+     *
+     * @param handler receives each due update; may schedule new ones
+     * @param budget  maximum number of updates to run this tick
+     * @return number of updates that ran
+     */
+    public int update(Handler handler, int budget) {
+        tick++;
+        int processed = 0;
+        while (size > 0 && processed < budget && heap[0] >>> KEY_BITS <= tick) {
+            long entry = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+            int tile = (int) (entry >>> ACTION_BITS) & ((1 << TILE_BITS) - 1);
+            handler.onBlockUpdate(tile / height, tile % height, (int) entry & MAX_ACTION);
+            processed++;
+        }
+        return processed;
+    }
+
+    /** Drops every pending update, e.g. after the world was regenerated. */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    private void siftUp(int i) {
+        long entry = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry)
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private void siftDown(int i) {
+        long entry = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child])
+                child++;
+            if (entry <= heap[child])
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = entry;
+    }
+}
@@ -0,0 +1,167 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import fastnoise.FastNoiseLite;
+
+import java.util.stream.IntStream;
+
+/**
+ * Carves caves from 2D noise smoothed by a cellular automaton.
+ * <p>
+ * A tile of the cave region starts open where the noise exceeds {@link #THRESHOLD}. Each
+ * smoothing pass then fills tiles surrounded mostly by rock and opens tiles surrounded mostly
+ * by cave, which rounds off the cavern walls; a last step fills any open tile left without an
+ * open neighbour, so no single-tile specks remain. Tiles outside the region count as rock,
+ * so caves never break through its edges.
+ * <p>
+ * The cells live in two row-major byte buffers with a one-tile rock border, so neighbour
+ * counts need no bounds checks. A pass reads one buffer and writes the other, so every row
+ * can be computed on its own. The region is cut into bands of {@link #BAND_ROWS}
+ * rows that are sampled and smoothed in parallel when the region is large enough. Noise
+ * sampling has no shared mutable state and the buffers are swapped only between passes, so
+ * the result depends on the seed alone, not on the thread count or the band order.
+ */
+public class CaveGenerator {
+    /** Noise frequency; smaller values give wider caves. */
+    public static final float FREQUENCY = 0.07f;
+    /** Noise value above which a tile starts out open. */
+    public static final float THRESHOLD = 0.3f;
+    public static final int SMOOTHING_PASSES = 4;
+    /** Rows sampled or smoothed by one parallel task. */
+    public static final int BAND_ROWS = 4;
+    /**
+     * Region size, in tiles, from which the bands run in parallel. A pass costs a few
+     * nanoseconds per tile, so smaller regions finish before the fork/join hand-off pays off.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 15;
+    /** Salt mixed into the world seed so the caves do not follow the terrain noise. */
+    private static final int SEED_SALT = 0x5CA7E;
+
+    private static final byte ROCK = 0, OPEN = 1;
+
+    private final int width, top, bottom;
+
+    /**
+     * Creates a generator for the rows [top, bottom) of a world of the given width.
+     *
+     * @param width  world width in tiles
+     * @param top    first row of the cave region
+     * @param bottom row after the last row of the cave region
+     */
+    public CaveGenerator(int width, int top, int bottom) {
+        this.width = width;
+        this.top = top;
+        this.bottom = bottom;
+    }
+
+    /**
+     * Turns every open tile of the cave region into AIR, running in parallel for large regions.
+     *
+     * @param world tile IDs indexed as [x][y]
+     * @param seed  world seed
+     */
+    public void carve(int[][] world, long seed) {
+        carve(world, seed, width * (bottom - top) >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Turns every open tile of the cave region into AIR.
+     *
+     * @param world    tile IDs indexed as [x][y]
+     * @param seed     world seed
+     * @param parallel whether to process the row bands in parallel
+     */
+    public void carve(int[][] world, long seed, boolean parallel) {
+        byte[] cells = generate(seed, parallel);
+        for (int y = top; y < bottom; y++) {
+            int row = (y - top) * width;
+            for (int x = 0; x < width; x++)
+                if (cells[row + x] == OPEN)
+                    world[x][y] = BlockType.AIR.ordinal();
+        }
+    }
+
+    /**
+     * Computes the cave cells without touching a world.
+     *
+     * @param seed     world seed
+     * @param parallel whether to process the row bands in parallel
+     * @return one byte per tile of the region, row by row; 1 for open, 0 for rock
+     */
+    public byte[] generate(long seed, boolean parallel) {
+        int rows = bottom - top;
+        FastNoiseLite noise = new FastNoiseLite((int) seed ^ SEED_SALT);
+        noise.SetNoiseType(FastNoiseLite.NoiseType.OpenSimplex2);
+        noise.SetFrequency(FREQUENCY);
+
+        int stride = width + 2;
+        byte[] src = new byte[stride * (rows + 2)], dst = new byte[stride * (rows + 2)];
+        forEachBand(rows, parallel, (y0, y1) -> sample(noise, src, y0, y1));
+        for (int pass = 0; pass < SMOOTHING_PASSES; pass++) {
+            byte[] from = pass % 2 == 0 ? src : dst, to = pass % 2 == 0 ? dst : src;
+            forEachBand(rows, parallel, (y0, y1) -> smooth(from, to, y0, y1));
+        }
+        byte[] smoothed = SMOOTHING_PASSES % 2 == 0 ? src : dst, padded = smoothed == src ? dst : src;
+        forEachBand(rows, parallel, (y0, y1) -> fillSpecks(smoothed, padded, y0, y1));
+        byte[] cells = new byte[width * rows];
+        for (int y = 0; y < rows; y++)
+            System.arraycopy(padded, (y + 1) * stride + 1, cells, y * width, width);
+        return cells;
+    }
+
+    private interface Band {
+        void run(int y0, int y1);
+    }
+
+    private static void forEachBand(int rows, boolean parallel, Band band) {
+        int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+        IntStream indices = IntStream.range(0, bands);
+        (parallel ? indices.parallel() : indices)
+                .forEach(b -> band.run(b * BAND_ROWS, Math.min(rows, (b + 1) * BAND_ROWS)));
+    }
+
+    /** Fills rows [y0, y1) of the padded buffer from the noise. */
+    private void sample(FastNoiseLite noise, byte[] cells, int y0, int y1) {
+        int stride = width + 2;
+        for (int y = y0; y < y1; y++) {
+            int row = (y + 1) * stride + 1;
+            for (int x = 0; x < width; x++)
+                cells[row + x] = noise.GetNoise(x, y + top) > THRESHOLD ? OPEN : ROCK;
+        }
+    }
+
+    /**
+     * One automaton step for rows [y0, y1): a tile becomes rock with 5 or more rock
+     * neighbours, open with 3 or fewer, and keeps its state with exactly 4.
+     */
+    private void smooth(byte[] from, byte[] to, int y0, int y1) {
+        int stride = width + 2;
+        for (int y = y0; y < y1; y++) {
+            int i = (y + 1) * stride + 1;
+            for (int x = 0; x < width; x++, i++) {
+                int open = from[i - stride - 1] + from[i - stride] + from[i - stride + 1]
+                        + from[i - 1] + from[i + 1]
+                        + from[i + stride - 1] + from[i + stride] + from[i + stride + 1];
+                to[i] = open < 4 ? ROCK : open > 4 ? OPEN : from[i];
+            }
+        }
+    }
+
+    /**
+     * Final step for rows [y0, y1): fills every open tile without an open neighbour. The
+     * automaton updates all tiles at once, so its last pass can still leave such a speck;
+     * filling one never isolates another, since no open tile touches it.
+     */
+    private void fillSpecks(byte[] from, byte[] to, int y0, int y1) {
+        int stride = width + 2;
+        for (int y = y0; y < y1; y++) {
+            int i = (y + 1) * stride + 1;
+            for (int x = 0; x < width; x++, i++) {
+                int open = from[i - stride - 1] + from[i - stride] + from[i - stride + 1]
+                        + from[i - 1] + from[i + 1]
+                        + from[i + stride - 1] + from[i + stride] + from[i + stride + 1];
+                to[i] = open == 0 ? ROCK : from[i];
+            }
+        }
+    }
+}
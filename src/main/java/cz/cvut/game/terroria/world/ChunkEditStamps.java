@@ -0,0 +1,71 @@
+package cz.cvut.game.terroria.world;
+
+import static cz.cvut.game.terroria.world.WorldGenerator.CHUNK_SIZE;
+
+/**
+ * Edit counter per chunk, bumped whenever a tile of the chunk is edited.
+ * <p>
+ * Lets anything that derived a fact from a few tiles, such as an entity finding solid
+ * ground under its feet, keep that fact until the tiles may have changed: it remembers the
+ * stamps of the chunks the tiles lie in and compares them on the next tick, which is one
+ * array read instead of a probe. Only edits that go through {@link WorldGenerator} count;
+ * water moving between non-solid tiles does not bump the stamps.
+ */
+public class ChunkEditStamps implements TileChangeListener {
+    private final int width, height, chunkRows;
+    /** Stamp per chunk, indexed chunkX * chunkRows + chunkY; only ever grows. */
+    private final int[] stamps;
+
+    /**
+     * Creates zeroed stamps for a world of the given size.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     */
+    public ChunkEditStamps(int width, int height) {
+        this.width = width;
+        this.height = height;
+        chunkRows = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        stamps = new int[(width + CHUNK_SIZE - 1) / CHUNK_SIZE * chunkRows];
+    }
+
+    @Override
+    public void onTileChanged(int x, int y) {
+        stamps[chunkOf(x, y)]++;
+    }
+
+    @Override
+    public void onChunkChanged(int chunkX, int chunkY) {
+        stamps[chunkX * chunkRows + chunkY]++;
+    }
+
+    /** Bumps every chunk, e.g. after the whole world was regenerated. */
+    public void touchAll() {
+        for (int i = 0; i < stamps.length; i++)
+            stamps[i]++;
+    }
+
+    /**
+     * Returns the chunk holding a tile; tiles outside the world map to the nearest chunk
+     * on the edge, since nothing outside ever changes.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return chunk index to pass to {@link #getStamp(int)}
+     */
+    public int chunkOf(int x, int y) {
+        x = Math.max(0, Math.min(width - 1, x));
+        y = Math.max(0, Math.min(height - 1, y));
+        return x / CHUNK_SIZE * chunkRows + y / CHUNK_SIZE;
+    }
+
+    /**
+     * Returns a chunk's stamp; it changes whenever a tile of the chunk is edited.
+     *
+     * @param chunk index from {@link #chunkOf(int, int)}
+     * @return the current stamp
+     */
+    public int getStamp(int chunk) {
+        return stamps[chunk];
+    }
+}
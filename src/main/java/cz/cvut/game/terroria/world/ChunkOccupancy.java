@@ -0,0 +1,136 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+import cz.cvut.game.terroria.utils.BlockType;
+
+import static cz.cvut.game.terroria.world.WorldGenerator.CHUNK_SIZE;
+
+/**
+ * Per-chunk summary of how many tiles are air and how many are solid.
+ * <p>
+ * Most of the world is either open sky or unbroken ground, and for such a chunk the answer
+ * to "is there anything here" is the same for every tile. Keeping the two counts per chunk
+ * lets the renderer and the tick systems classify a chunk as {@link #EMPTY},
+ * {@link #SOLID} or {@link #MIXED} in O(1) and skip the uniform ones, instead of visiting
+ * their tiles one by one. Single-tile edits adjust the counts from the old and new block;
+ * batched edits recount the touched chunks.
+ */
+public class ChunkOccupancy {
+    /** Chunk states: every tile AIR, every tile solid, or anything else. */
+    public static final int EMPTY = 0, SOLID = 1, MIXED = 2;
+
+    private final int width, height;
+    private final int chunkColumns, chunkRows;
+    /** Counts per chunk, indexed chunkX * chunkRows + chunkY. */
+    private final int[] air, solid, tiles;
+
+    /**
+     * Creates the summary for a world of the given size; call {@link #build(int[][])} to fill it.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     */
+    public ChunkOccupancy(int width, int height) {
+        this.width = width;
+        this.height = height;
+        chunkColumns = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunkRows = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        air = new int[chunkColumns * chunkRows];
+        solid = new int[chunkColumns * chunkRows];
+        tiles = new int[chunkColumns * chunkRows];
+        for (int cx = 0; cx < chunkColumns; cx++)
+            for (int cy = 0; cy < chunkRows; cy++)
+                tiles[cx * chunkRows + cy] = Math.min(CHUNK_SIZE, width - cx * CHUNK_SIZE)
+                        * Math.min(CHUNK_SIZE, height - cy * CHUNK_SIZE);
+    }
+
+    /**
+     * Recounts every chunk from the given world.
+     *
+     * @param world tile IDs indexed as [x][y]
+     */
+    public void build(int[][] world) {
+        for (int cx = 0; cx < chunkColumns; cx++)
+            for (int cy = 0; cy < chunkRows; cy++)
+                rebuildChunk(world, cx, cy);
+    }
+
+    /**
+     * Recounts one chunk, e.g. after a batched edit.
+     *
+     * @param world  tile IDs indexed as [x][y]
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     */
+    public void rebuildChunk(int[][] world, int chunkX, int chunkY) {
+        int x0 = chunkX * CHUNK_SIZE, x1 = Math.min(width, x0 + CHUNK_SIZE);
+        int y0 = chunkY * CHUNK_SIZE, y1 = Math.min(height, y0 + CHUNK_SIZE);
+        int a = 0, s = 0;
+        for (int x = x0; x < x1; x++) {
+            int[] column = world[x];
+            for (int y = y0; y < y1; y++) {
+                if (column[y] == BlockType.AIR.ordinal())
+                    a++;
+                else if (BlockRegistry.IsSolid(column[y]))
+                    s++;
+            }
+        }
+        air[chunkX * chunkRows + chunkY] = a;
+        solid[chunkX * chunkRows + chunkY] = s;
+    }
+
+    /**
+     * Adjusts the counts after a single tile changed.
+     *
+     * @param x     tile column index
+     * @param y     tile row index
+     * @param oldId block the tile held before the edit
+     * @param newId block the tile holds now
+     */
+    public void onTileChanged(int x, int y, int oldId, int newId) {
+        int i = x / CHUNK_SIZE * chunkRows + y / CHUNK_SIZE;
+        air[i] += (newId == BlockType.AIR.ordinal() ? 1 : 0) - (oldId == BlockType.AIR.ordinal() ? 1 : 0);
+        solid[i] += (BlockRegistry.IsSolid(newId) ? 1 : 0) - (BlockRegistry.IsSolid(oldId) ? 1 : 0);
+    }
+
+    /**
+     * Classifies a chunk.
+     *
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     * @return {@link #EMPTY}, {@link #SOLID} or {@link #MIXED}
+     */
+    public int getState(int chunkX, int chunkY) {
+        int i = chunkX * chunkRows + chunkY;
+        return air[i] == tiles[i] ? EMPTY : solid[i] == tiles[i] ? SOLID : MIXED;
+    }
+
+    public boolean isEmpty(int chunkX, int chunkY) {
+        return getState(chunkX, chunkY) == EMPTY;
+    }
+
+    public boolean isSolid(int chunkX, int chunkY) {
+        return getState(chunkX, chunkY) == SOLID;
+    }
+
+    public int getAirCount(int chunkX, int chunkY) {
+        return air[chunkX * chunkRows + chunkY];
+    }
+
+    public int getSolidCount(int chunkX, int chunkY) {
+        return solid[chunkX * chunkRows + chunkY];
+    }
+
+    /** Number of tiles in a chunk; smaller than CHUNK_SIZE squared at the world's far edges. */
+    public int getTileCount(int chunkX, int chunkY) {
+        return tiles[chunkX * chunkRows + chunkY];
+    }
+
+    public int getChunkColumns() {
+        return chunkColumns;
+    }
+
+    public int getChunkRows() {
+        return chunkRows;
+    }
+}
@@ -0,0 +1,132 @@
+package cz.cvut.game.terroria.world;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static cz.cvut.game.terroria.world.WorldGenerator.CHUNK_SIZE;
+
+/**
+ * Per-chunk sequence locks that let other threads read the tile grid while the game thread
+ * keeps editing it.
+ * <p>
+ * Every chunk has a counter that is odd while a write to the chunk is in progress and even
+ * otherwise. A reader takes the even counter with {@link #beginRead(int, int)}, copies the
+ * tiles, and keeps the copy only if {@link #validate(int, int, long)} finds the counter
+ * unchanged; otherwise a write slipped in and the reader retries. The writer never waits:
+ * opening and closing a write section is one ordered store each, however many readers there
+ * are. Readers only ever spin on a chunk that is being written.
+ * <p>
+ * All writes must come from a single thread, normally the game thread. Write sections nest,
+ * so a single-tile edit inside an open batch leaves the chunk locked until the batch closes.
+ */
+public class ChunkSeqLocks {
+    private final int chunkColumns, chunkRows;
+    /** Sequence counter per chunk, indexed chunkX * chunkRows + chunkY. */
+    private final AtomicLongArray sequence;
+    /** Open write sections per chunk; only the writer thread touches it. */
+    private final int[] depth;
+
+    /**
+     * Creates unlocked counters for a world of the given size.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     */
+    public ChunkSeqLocks(int width, int height) {
+        chunkColumns = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunkRows = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        sequence = new AtomicLongArray(chunkColumns * chunkRows);
+        depth = new int[chunkColumns * chunkRows];
+    }
+
+    /**
+     * Opens a write section on a chunk; readers retry until it is closed.
+     *
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     */
+    public void beginWrite(int chunkX, int chunkY) {
+        int i = chunkX * chunkRows + chunkY;
+        if (depth[i]++ == 0) {
+            sequence.setOpaque(i, sequence.getPlain(i) + 1);
+            VarHandle.storeStoreFence();    // the odd counter is visible before any tile store
+        }
+    }
+
+    /**
+     * Closes a write section opened by {@link #beginWrite(int, int)}.
+     *
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     * @throws IllegalStateException if no write section is open on the chunk
+     */
+    public void endWrite(int chunkX, int chunkY) {
+        int i = chunkX * chunkRows + chunkY;
+        if (depth[i] == 0)
+            throw new IllegalStateException("No write open on chunk " + chunkX + "," + chunkY);
+        if (--depth[i] == 0)
+            sequence.setRelease(i, sequence.getPlain(i) + 1);  // every tile store is visible before the even counter
+    }
+
+    /** Opens a write section on every chunk, e.g. while the whole world is regenerated. */
+    public void beginWriteAll() {
+        for (int cx = 0; cx < chunkColumns; cx++)
+            for (int cy = 0; cy < chunkRows; cy++)
+                beginWrite(cx, cy);
+    }
+
+    /** Closes the write sections opened by {@link #beginWriteAll()}. */
+    public void endWriteAll() {
+        for (int cx = 0; cx < chunkColumns; cx++)
+            for (int cy = 0; cy < chunkRows; cy++)
+                endWrite(cx, cy);
+    }
+
+    /**
+     * Starts an optimistic read of a chunk, waiting out a write in progress.
+     *
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     * @return stamp to pass to {@link #validate(int, int, long)}
+     */
+    public long beginRead(int chunkX, int chunkY) {
+        int i = chunkX * chunkRows + chunkY;
+        long stamp;
+        while (((stamp = sequence.getAcquire(i)) & 1) != 0)
+            Thread.onSpinWait();
+        return stamp;
+    }
+
+    /**
+     * Checks that no write touched the chunk since {@link #beginRead(int, int)}.
+     *
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     * @param stamp  stamp returned by beginRead
+     * @return true if everything read in between is a consistent view of the chunk
+     */
+    public boolean validate(int chunkX, int chunkY, long stamp) {
+        VarHandle.acquireFence();           // the tile loads complete before the counter is re-read
+        return sequence.getOpaque(chunkX * chunkRows + chunkY) == stamp;
+    }
+
+    /**
+     * Returns the chunk's current counter. It grows by two with every completed write, so it
+     * doubles as a version number.
+     *
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     * @return the counter; odd while a write is in progress
+     */
+    public long getVersion(int chunkX, int chunkY) {
+        return sequence.getAcquire(chunkX * chunkRows + chunkY);
+    }
+
+    public int getChunkColumns() {
+        return chunkColumns;
+    }
+
+    public int getChunkRows() {
+        return chunkRows;
+    }
+}
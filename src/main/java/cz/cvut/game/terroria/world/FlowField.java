@@ -0,0 +1,460 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Shared breadth-first flow field that leads walking enemies toward a target tile.
+ * <p>
+ * Nodes are tiles where a body {@code bodyHeight} tiles tall can stand. Edges follow
+ * platformer movement: walking to a neighbouring column, jumping up to {@code jumpHeight}
+ * tiles onto a neighbouring column, or walking off a ledge and dropping up to
+ * {@code maxDrop} tiles. The field is built backwards from the target, so every reached
+ * node stores the first move of a shortest route and enemies read it in O(1).
+ * <p>
+ * The search is limited to {@code radius} tiles around the target and is time-sliced: at
+ * most {@code nodeBudget} nodes are expanded per {@link #update(int[][], int, int)} call,
+ * and the finished field replaces the published one in a single swap, so readers never
+ * see a half-built field. A target that moves to another tile changes every distance, so
+ * it restarts the search.
+ * <p>
+ * An edit only changes the moves of the nodes a few tiles around it, so a published field
+ * is repaired in place instead. The next update first walks outward from those nodes,
+ * in order of distance, and drops every node whose route no longer holds. It then
+ * re-relaxes the dropped nodes and the edited area from their surviving neighbours. Only
+ * the routes that ran through the edit are touched. An edit during a search, a repair
+ * that would drop more than {@code nodeBudget} nodes, or more edits in one tick than
+ * {@link #MAX_PENDING} restart the search instead.
+ */
+public class FlowField implements TileChangeListener {
+    /** Move codes stored per node. */
+    public static final byte NONE = 0, TARGET = 1, WALK_LEFT = 2, WALK_RIGHT = 3, JUMP_LEFT = 4, JUMP_RIGHT = 5;
+    /** Edited areas remembered between two updates; more restart the search. */
+    public static final int MAX_PENDING = 32;
+
+    private final int width, height;
+    private final int radius, bodyHeight, jumpHeight, maxDrop, nodeBudget;
+
+    /** Field read by enemies and the one being built, indexed x * height + y. */
+    private byte[] published, building;
+    /** Route length plus one of every node in each field; 0 where the node is not reached. */
+    private short[] publishedDepth, buildingDepth;
+    /** Bounds of the area written into each buffer, so only that area needs clearing. */
+    private int pubX0, pubX1, pubY0, pubY1, bldX0, bldX1, bldY0, bldY1;
+
+    /** Breadth-first queue of node indices for the search or repair in progress. */
+    private final int[] queue;
+    private int head, tail;
+    private boolean searching;
+
+    /** Target tile of the published field and of the current search. */
+    private int targetX = -1, targetY = -1;
+    /** Set when the field must be searched again from scratch. */
+    private boolean dirty;
+    /** Edited areas awaiting a repair, as x0, y0, x1, y1 per area. */
+    private final int[] pending = new int[4 * MAX_PENDING];
+    private int pendingCount;
+    /** Nodes a repair found without a route, and nodes it queued to check. */
+    private final BitSet broken = new BitSet(), queued = new BitSet();
+    /** Repair start nodes packed as depth << 32 | node, so sorting orders them by depth. */
+    private long[] seeds = new long[256];
+
+    /**
+     * Creates a flow field for a world of the given size.
+     *
+     * @param width      world width in tiles
+     * @param height     world height in tiles
+     * @param radius     maximum distance from the target, in tiles, covered by the field
+     * @param bodyHeight height of the walking body in tiles
+     * @param jumpHeight highest step up, in tiles, a body can jump
+     * @param maxDrop    deepest drop, in tiles, a body will walk off
+     * @param nodeBudget maximum nodes expanded per update
+     */
+    public FlowField(int width, int height, int radius, int bodyHeight, int jumpHeight, int maxDrop, int nodeBudget) {
+        this.width = width;
+        this.height = height;
+        this.radius = radius;
+        this.bodyHeight = bodyHeight;
+        this.jumpHeight = jumpHeight;
+        this.maxDrop = maxDrop;
+        this.nodeBudget = nodeBudget;
+        published = new byte[width * height];
+        building = new byte[width * height];
+        publishedDepth = new short[width * height];
+        buildingDepth = new short[width * height];
+        queue = new int[width * height];
+    }
+
+    /**
+     * Repairs the published field around the edits since the last call, starts a new search
+     * if the target moved to another tile or the field was invalidated, then continues the
+     * search in progress within the node budget.
+     *
+     * @param world   tile IDs indexed as [x][y]
+     * @param targetX column of the tile the target's feet are in
+     * @param targetY row of the tile the target's feet are in; a target in the air is
+     *                projected onto the ground below it
+     */
+    public void update(int[][] world, int targetX, int targetY) {
+        targetY = groundBelow(world, targetX, targetY);
+        boolean moved = targetX != this.targetX || targetY != this.targetY;
+        if (pendingCount > 0 && !dirty && !moved && !repair(world))
+            dirty = true;
+        pendingCount = 0;
+        if (dirty || moved) {
+            dirty = false;
+            this.targetX = targetX;
+            this.targetY = targetY;
+            startSearch(world);
+        }
+        if (searching)
+            expand(world);
+    }
+
+    private void startSearch(int[][] world) {
+        clear(building, buildingDepth, bldX0, bldX1, bldY0, bldY1);
+        bldX0 = Math.max(0, targetX - radius);
+        bldX1 = Math.min(width - 1, targetX + radius);
+        bldY0 = Math.max(0, targetY - radius);
+        bldY1 = Math.min(height - 1, targetY + radius);
+        head = tail = 0;
+        searching = true;
+        if (inRegion(targetX, targetY) && canStand(world, targetX, targetY)) {
+            building[index(targetX, targetY)] = TARGET;
+            buildingDepth[index(targetX, targetY)] = 1;
+            queue[tail++] = index(targetX, targetY);
+        }
+    }
+
+    /** Expands queued nodes backwards: finds every node with a valid move into the popped one. */
+    private void expand(int[][] world) {
+        int expanded = 0;
+        while (head < tail && expanded++ < nodeBudget) {
+            int node = queue[head++];
+            int nx = node / height, ny = node % height;
+            for (int dx = -1; dx <= 1; dx += 2) {
+                int px = nx - dx;
+                for (int py = ny - maxDrop; py <= ny + jumpHeight; py++) {
+                    if (!inRegion(px, py) || building[index(px, py)] != NONE)
+                        continue;
+                    if (!canStand(world, px, py) || !canMove(world, px, py, nx, ny))
+                        continue;
+                    building[index(px, py)] = MoveCode(dx, ny < py);
+                    buildingDepth[index(px, py)] = (short) (buildingDepth[node] + 1);
+                    queue[tail++] = index(px, py);
+                }
+            }
+        }
+        if (head >= tail)
+            publish();
+    }
+
+    private void publish() {
+        byte[] swap = published;
+        published = building;
+        building = swap;
+        short[] swapDepth = publishedDepth;
+        publishedDepth = buildingDepth;
+        buildingDepth = swapDepth;
+        int x0 = pubX0, x1 = pubX1, y0 = pubY0, y1 = pubY1;
+        pubX0 = bldX0; pubX1 = bldX1; pubY0 = bldY0; pubY1 = bldY1;
+        bldX0 = x0; bldX1 = x1; bldY0 = y0; bldY1 = y1;
+        searching = false;
+    }
+
+    /**
+     * Repairs the published field after the pending edits, see the class comment.
+     *
+     * @return false if the repair gave up and the field must be searched again
+     */
+    private boolean repair(int[][] world) {
+        // every move that can change starts within this band around an edited area
+        int count = 0;
+        for (int p = 0; p < pendingCount * 4; p += 4) {
+            int x0 = Math.max(pubX0, pending[p] - 1), x1 = Math.min(pubX1, pending[p + 2] + 1);
+            int y0 = Math.max(pubY0, pending[p + 1] - maxDrop - 1);
+            int y1 = Math.min(pubY1, pending[p + 3] + bodyHeight + jumpHeight);
+            for (int x = x0; x <= x1; x++)
+                for (int y = y0; y <= y1; y++)
+                    if (publishedDepth[index(x, y)] != 0)
+                        count = addSeed(count, publishedDepth[index(x, y)], index(x, y));
+        }
+        Arrays.sort(seeds, 0, count);
+
+        // drop, nearest first, every node whose route lost its next step
+        int broke = 0, s = 0;
+        head = tail = 0;
+        while (s < count || head < tail) {
+            int node = head < tail && (s == count || publishedDepth[queue[head]] <= seeds[s] >>> 32)
+                    ? queue[head++] : (int) seeds[s++];
+            if (broken.get(node))
+                continue;
+            byte move = supportingMove(world, node);
+            if (move != NONE) {
+                published[node] = move;
+                continue;
+            }
+            broken.set(node);
+            if (++broke > nodeBudget) {
+                broken.clear();
+                queued.clear();
+                return false;
+            }
+            int nx = node / height, ny = node % height;
+            for (int dx = -1; dx <= 1; dx += 2) {
+                int px = nx - dx;
+                for (int py = ny - maxDrop; py <= ny + jumpHeight; py++) {
+                    if (inPublished(px, py) && publishedDepth[index(px, py)] == publishedDepth[node] + 1
+                            && !queued.get(index(px, py))) {
+                        queued.set(index(px, py));
+                        queue[tail++] = index(px, py);
+                    }
+                }
+            }
+        }
+        queued.clear();
+
+        // relax the dropped nodes and the edited area again from the routes that survived
+        for (int node = broken.nextSetBit(0); node >= 0; node = broken.nextSetBit(node + 1)) {
+            published[node] = NONE;
+            publishedDepth[node] = 0;
+        }
+        count = 0;
+        for (int node = broken.nextSetBit(0); node >= 0; node = broken.nextSetBit(node + 1))
+            count = relaxSeed(world, node, count);
+        broken.clear();
+        for (int p = 0; p < pendingCount * 4; p += 4) {
+            int x0 = Math.max(pubX0, pending[p] - 1), x1 = Math.min(pubX1, pending[p + 2] + 1);
+            int y0 = Math.max(pubY0, pending[p + 1] - maxDrop - 1);
+            int y1 = Math.min(pubY1, pending[p + 3] + bodyHeight + jumpHeight);
+            for (int x = x0; x <= x1; x++)
+                for (int y = y0; y <= y1; y++)
+                    count = relaxSeed(world, index(x, y), count);
+        }
+        Arrays.sort(seeds, 0, count);
+        s = 0;
+        head = tail = 0;
+        while (s < count || head < tail) {
+            int node = head < tail && (s == count || publishedDepth[queue[head]] <= seeds[s] >>> 32)
+                    ? queue[head++] : (int) seeds[s++];
+            int nx = node / height, ny = node % height;
+            for (int dx = -1; dx <= 1; dx += 2) {
+                int px = nx - dx;
+                for (int py = ny - maxDrop; py <= ny + jumpHeight; py++) {
+                    if (!inPublished(px, py))
+                        continue;
+                    int prev = index(px, py), depth = publishedDepth[node] + 1;
+                    if (publishedDepth[prev] != 0 && publishedDepth[prev] <= depth)
+                        continue;
+                    if (!canStand(world, px, py) || !canMove(world, px, py, nx, ny))
+                        continue;
+                    published[prev] = MoveCode(dx, ny < py);
+                    publishedDepth[prev] = (short) depth;
+                    queue[tail++] = prev;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Returns a move from a node onto a neighbour one step nearer the target, or NONE. */
+    private byte supportingMove(int[][] world, int node) {
+        int px = node / height, py = node % height;
+        if (!canStand(world, px, py))
+            return NONE;
+        if (px == targetX && py == targetY)
+            return TARGET;
+        for (int dx = -1; dx <= 1; dx += 2) {
+            int nx = px + dx;
+            for (int ny = py - jumpHeight; ny <= py + maxDrop; ny++) {
+                if (inPublished(nx, ny) && publishedDepth[index(nx, ny)] == publishedDepth[node] - 1
+                        && !broken.get(index(nx, ny)) && canStand(world, nx, ny) && canMove(world, px, py, nx, ny))
+                    return MoveCode(dx, ny < py);
+            }
+        }
+        return NONE;
+    }
+
+    /** Gives a node the shortest route its neighbours offer, if that beats its own, and queues it as a seed. */
+    private int relaxSeed(int[][] world, int node, int count) {
+        int px = node / height, py = node % height;
+        if (!canStand(world, px, py))
+            return count;
+        int best = publishedDepth[node];
+        if (px == targetX && py == targetY && best != 1) {
+            published[node] = TARGET;
+            publishedDepth[node] = 1;
+            return addSeed(count, 1, node);
+        }
+        byte move = NONE;
+        for (int dx = -1; dx <= 1; dx += 2) {
+            int nx = px + dx;
+            for (int ny = py - jumpHeight; ny <= py + maxDrop; ny++) {
+                if (!inPublished(nx, ny))
+                    continue;
+                int depth = publishedDepth[index(nx, ny)];
+                if (depth != 0 && (best == 0 || depth + 1 < best)
+                        && canStand(world, nx, ny) && canMove(world, px, py, nx, ny)) {
+                    best = depth + 1;
+                    move = MoveCode(dx, ny < py);
+                }
+            }
+        }
+        if (move == NONE)
+            return count;
+        published[node] = move;
+        publishedDepth[node] = (short) best;
+        return addSeed(count, best, node);
+    }
+
+    private int addSeed(int count, int depth, int node) {
+        if (count == seeds.length)
+            seeds = Arrays.copyOf(seeds, count * 2);
+        seeds[count] = (long) depth << 32 | node;
+        return count + 1;
+    }
+
+    private static byte MoveCode(int dx, boolean jump) {
+        return dx < 0 ? (jump ? JUMP_LEFT : WALK_LEFT) : (jump ? JUMP_RIGHT : WALK_RIGHT);
+    }
+
+    /**
+     * Checks whether a body standing at (px, py) can move to the neighbouring column node (nx, ny).
+     */
+    private boolean canMove(int[][] world, int px, int py, int nx, int ny) {
+        if (ny == py)
+            return true;
+        if (ny < py) {
+            int rise = py - ny;
+            if (rise > jumpHeight)
+                return false;
+            return isColumnClear(world, px, py - bodyHeight - rise + 1, py - bodyHeight);
+        }
+        if (ny - py > maxDrop)
+            return false;
+        return isColumnClear(world, nx, py - bodyHeight + 1, ny - 1);
+    }
+
+    /** Checks that tiles from row y0 to y1 (inclusive) in a column are not solid. */
+    private boolean isColumnClear(int[][] world, int x, int y0, int y1) {
+        if (y0 < 0)
+            return false;
+        for (int y = y0; y <= y1; y++) {
+            if (BlockRegistry.IsSolid(world[x][y]))
+                return false;
+        }
+        return true;
+    }
+
+    /** Finds the first standable row at or below y, within the drop limit. */
+    private int groundBelow(int[][] world, int x, int y) {
+        if (x < 0 || x >= width)
+            return y;
+        for (int gy = Math.max(y, 0); gy <= y + maxDrop && gy < height; gy++) {
+            if (canStand(world, x, gy))
+                return gy;
+        }
+        return y;
+    }
+
+    /** A body can stand at (x, y) if its feet and head tiles are air and the tile below is solid. */
+    private boolean canStand(int[][] world, int x, int y) {
+        if (!isColumnClear(world, x, y - bodyHeight + 1, y))
+            return false;
+        return y + 1 >= height || BlockRegistry.IsSolid(world[x][y + 1]);
+    }
+
+    /**
+     * Queues a repair when an edit lands inside (or right next to) the searched area.
+     */
+    @Override
+    public void onTileChanged(int x, int y) {
+        if (targetX < 0)
+            return;
+        if (Math.abs(x - targetX) <= radius + 1 && Math.abs(y - targetY) <= radius + bodyHeight + 1)
+            invalidate(x, y, x, y);
+    }
+
+    /** Queues a repair of a batch-edited chunk that overlaps the area {@link #onTileChanged(int, int)} watches. */
+    @Override
+    public void onChunkChanged(int chunkX, int chunkY) {
+        if (targetX < 0)
+            return;
+        int x0 = chunkX * WorldGenerator.CHUNK_SIZE, y0 = chunkY * WorldGenerator.CHUNK_SIZE;
+        int x1 = x0 + WorldGenerator.CHUNK_SIZE - 1, y1 = y0 + WorldGenerator.CHUNK_SIZE - 1;
+        int rx = radius + 1, ry = radius + bodyHeight + 1;
+        if (x1 >= targetX - rx && x0 <= targetX + rx && y1 >= targetY - ry && y0 <= targetY + ry)
+            invalidate(x0, y0, Math.min(width - 1, x1), Math.min(height - 1, y1));
+    }
+
+    /** Remembers an edited area for the next repair; a search in progress has read it already and restarts. */
+    private void invalidate(int x0, int y0, int x1, int y1) {
+        if (dirty)
+            return;
+        if (searching || pendingCount == MAX_PENDING) {
+            dirty = true;
+            return;
+        }
+        int p = 4 * pendingCount++;
+        pending[p] = x0;
+        pending[p + 1] = y0;
+        pending[p + 2] = x1;
+        pending[p + 3] = y1;
+    }
+
+    /**
+     * Returns the first move of the shortest route from the given node to the target.
+     *
+     * @param x column of the tile the body's feet are in
+     * @param y row of the tile the body's feet are in
+     * @return one of the move codes, or {@link #NONE} if the node has no known route
+     */
+    public byte getMove(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return NONE;
+        return published[index(x, y)];
+    }
+
+    /**
+     * Returns the number of moves on the shortest route from the given node to the target.
+     *
+     * @param x column of the tile the body's feet are in
+     * @param y row of the tile the body's feet are in
+     * @return the route length, 0 at the target, or -1 if the node has no known route
+     */
+    public int getDistance(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return -1;
+        return publishedDepth[index(x, y)] - 1;
+    }
+
+    /** Drops any published or in-progress field, e.g. after the whole world was regenerated. */
+    public void reset() {
+        clear(published, publishedDepth, pubX0, pubX1, pubY0, pubY1);
+        clear(building, buildingDepth, bldX0, bldX1, bldY0, bldY1);
+        searching = false;
+        pendingCount = 0;
+        targetX = targetY = -1;
+    }
+
+    private boolean inRegion(int x, int y) {
+        return x >= bldX0 && x <= bldX1 && y >= bldY0 && y <= bldY1;
+    }
+
+    private boolean inPublished(int x, int y) {
+        return x >= pubX0 && x <= pubX1 && y >= pubY0 && y <= pubY1;
+    }
+
+    private int index(int x, int y) {
+        return x * height + y;
+    }
+
+    private void clear(byte[] field, short[] depth, int x0, int x1, int y0, int y1) {
+        for (int x = x0; x <= x1; x++) {
+            Arrays.fill(field, index(x, y0), index(x, y1) + 1, NONE);
+            Arrays.fill(depth, index(x, y0), index(x, y1) + 1, (short) 0);
+        }
+    }
+}
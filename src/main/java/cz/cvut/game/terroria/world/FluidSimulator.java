@@ -0,0 +1,265 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+import cz.cvut.game.terroria.utils.BlockType;
+
+import java.util.Arrays;
+
+/**
+ * Cellular-automaton fluid over the tile grid.
+ * <p>
+ * Every non-solid tile holds a fluid level from 0 to {@link #MAX_LEVEL}. A step lets fluid
+ * fall into the cell below as far as it has room, then evens it out with the left and
+ * right neighbours one half of the difference at a time. Fluid is only ever moved, never
+ * created or destroyed by a step, so the total amount is conserved.
+ * <p>
+ * Only cells in the active set are simulated. A cell whose level changed wakes itself and
+ * its four neighbours for the next step, and edits wake the cells around the edited tile.
+ * A cell that did not change is simply not re-added, so a settled body of fluid falls
+ * asleep and costs nothing until something next to it changes. Tiles holding fluid are
+ * marked with the fluid's block id in the world grid so rendering and lookups can see it;
+ * since fluid is not solid, these marks never affect collision or the derived tile maps.
+ */
+public class FluidSimulator {
+    /**
+     * Level of a full cell. Neighbouring levels settle within one unit of each other, so a
+     * fine scale keeps the resting surface visually flat.
+     */
+    public static final int MAX_LEVEL = 64;
+
+    private final int width, height;
+    /** Block id written into the world grid for cells holding fluid. */
+    private final int fluidId;
+    /** Fluid level per cell, indexed x * height + y. */
+    private final byte[] level;
+    /** Cells simulated this step and cells woken for the next one. */
+    private int[] active, next;
+    private int activeCount, nextCount;
+    /** Marks cells already queued in {@link #next}. */
+    private final boolean[] queued;
+    private long step;
+    /** Packed layers mirroring the fluid marks, or null if the world has none. */
+    private TileLayers layers;
+    /** Chunk summary kept in line with the fluid marks, or null if the world has none. */
+    private ChunkOccupancy occupancy;
+    /** Locks taken around every fluid mark written into the grid, or null. */
+    private ChunkSeqLocks seqLocks;
+
+    /**
+     * Creates an empty simulator for a world of the given size.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     * @param fluid  block type marking fluid cells in the world grid
+     */
+    public FluidSimulator(int width, int height, BlockType fluid) {
+        this.width = width;
+        this.height = height;
+        this.fluidId = fluid.ordinal();
+        level = new byte[width * height];
+        queued = new boolean[width * height];
+        active = new int[256];
+        next = new int[256];
+    }
+
+    /**
+     * Runs one step over the active cells.
+     *
+     * @param world tile IDs indexed as [x][y]
+     * @return number of cells simulated
+     */
+    public int update(int[][] world) {
+        int[] swap = active;
+        active = next;
+        next = swap;
+        activeCount = nextCount;
+        nextCount = 0;
+        for (int i = 0; i < activeCount; i++)
+            queued[active[i]] = false;
+
+        for (int i = 0; i < activeCount; i++)
+            flow(world, active[i]);
+        step++;
+        return activeCount;
+    }
+
+    private void flow(int[][] world, int cell) {
+        int amount = level[cell];
+        if (amount == 0)
+            return;
+        int x = cell / height, y = cell % height;
+
+        if (y + 1 < height && isOpen(world, x, y + 1)) {
+            int below = cell + 1;
+            int move = Math.min(amount, MAX_LEVEL - level[below]);
+            if (move > 0) {
+                transfer(world, cell, below, move);
+                amount -= move;
+            }
+        }
+
+        int first = ((step + x) & 1) == 0 ? -1 : 1;
+        for (int side = first, n = 0; n < 2 && amount > 1; side = -side, n++) {
+            int nx = x + side;
+            if (nx < 0 || nx >= width || !isOpen(world, nx, y))
+                continue;
+            int neighbour = cell + side * height;
+            int move = (amount - level[neighbour]) / 2;
+            if (move > 0) {
+                transfer(world, cell, neighbour, move);
+                amount -= move;
+            }
+        }
+    }
+
+    private void transfer(int[][] world, int from, int to, int amount) {
+        level[from] -= amount;
+        level[to] += amount;
+        mark(world, from);
+        mark(world, to);
+        wakeAround(from);
+        wakeAround(to);
+    }
+
+    /** Keeps the world grid's fluid marks in line with the cell's level. */
+    private void mark(int[][] world, int cell) {
+        int x = cell / height, y = cell % height;
+        int old = world[x][y];
+        int id;
+        if (level[cell] > 0)
+            id = fluidId;
+        else if (old == fluidId)
+            id = BlockType.AIR.ordinal();
+        else
+            return;
+        if (id == old)
+            return;
+        if (seqLocks != null)
+            seqLocks.beginWrite(x / WorldGenerator.CHUNK_SIZE, y / WorldGenerator.CHUNK_SIZE);
+        world[x][y] = id;
+        if (layers != null)
+            layers.setForeground(x, y, world[x][y]);
+        if (seqLocks != null)
+            seqLocks.endWrite(x / WorldGenerator.CHUNK_SIZE, y / WorldGenerator.CHUNK_SIZE);
+        if (occupancy != null)
+            occupancy.onTileChanged(x, y, old, world[x][y]);
+    }
+
+    private boolean isOpen(int[][] world, int x, int y) {
+        return !BlockRegistry.IsSolid(world[x][y]);
+    }
+
+    /** Queues a cell and its four neighbours for the next step. */
+    private void wakeAround(int cell) {
+        int x = cell / height, y = cell % height;
+        wake(cell);
+        if (x > 0) wake(cell - height);
+        if (x + 1 < width) wake(cell + height);
+        if (y > 0) wake(cell - 1);
+        if (y + 1 < height) wake(cell + 1);
+    }
+
+    private void wake(int cell) {
+        if (queued[cell] || level[cell] == 0)
+            return;
+        queued[cell] = true;
+        if (nextCount == next.length)
+            next = Arrays.copyOf(next, nextCount * 2);
+        next[nextCount++] = cell;
+    }
+
+    /**
+     * Reacts to an edited tile: fluid in a tile that became solid is removed, and the fluid
+     * around the tile is woken so it can flow into the new space.
+     *
+     * @param world tile IDs indexed as [x][y], already containing the new tile
+     * @param x     column of the edited tile
+     * @param y     row of the edited tile
+     */
+    public void onTileChanged(int[][] world, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return;
+        int cell = x * height + y;
+        if (BlockRegistry.IsSolid(world[x][y]))
+            level[cell] = 0;
+        wakeAround(cell);
+    }
+
+    /**
+     * Sets the fluid level of a tile directly, e.g. during generation, and wakes it.
+     * Solid tiles cannot hold fluid and are left unchanged.
+     *
+     * @param world tile IDs indexed as [x][y]
+     * @param x     tile column index
+     * @param y     tile row index
+     * @param value level between 0 and {@link #MAX_LEVEL}
+     */
+    public void setLevel(int[][] world, int x, int y, int value) {
+        if (x < 0 || x >= width || y < 0 || y >= height || BlockRegistry.IsSolid(world[x][y]))
+            return;
+        int cell = x * height + y;
+        level[cell] = (byte) Math.max(0, Math.min(MAX_LEVEL, value));
+        mark(world, cell);
+        wakeAround(cell);
+    }
+
+    /**
+     * Returns the fluid level of a tile.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return level between 0 and {@link #MAX_LEVEL}; 0 outside the world
+     */
+    public int getLevel(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return 0;
+        return level[x * height + y];
+    }
+
+    /**
+     * Sets the packed layers whose foreground should follow the fluid marks.
+     *
+     * @param layers the world's tile layers, or null
+     */
+    public void setLayers(TileLayers layers) {
+        this.layers = layers;
+    }
+
+    /**
+     * Sets the chunk summary that should count the fluid marks.
+     *
+     * @param occupancy the world's chunk occupancy, or null
+     */
+    public void setOccupancy(ChunkOccupancy occupancy) {
+        this.occupancy = occupancy;
+    }
+
+    /**
+     * Sets the sequence locks to take around every fluid mark written into the grid.
+     *
+     * @param seqLocks the world's chunk locks, or null
+     */
+    public void setSeqLocks(ChunkSeqLocks seqLocks) {
+        this.seqLocks = seqLocks;
+    }
+
+    /** Number of cells queued for the next step; 0 once every body of fluid has settled. */
+    public int getActiveCount() {
+        return nextCount;
+    }
+
+    /** Sum of all fluid levels in the world. */
+    public long getTotalFluid() {
+        long total = 0;
+        for (byte b : level)
+            total += b;
+        return total;
+    }
+
+    /** Removes all fluid and empties the active set; the world grid is expected to be regenerated. */
+    public void clear() {
+        Arrays.fill(level, (byte) 0);
+        Arrays.fill(queued, false);
+        activeCount = nextCount = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+
+import java.util.Arrays;
+
+import static cz.cvut.game.terroria.world.TileLayers.MAX_LIGHT;
+
+/**
+ * Skylight propagation into the light field of {@link TileLayers}.
+ * <p>
+ * Every tile from the top of a column down to the first tile that is opaque or has a
+ * background wall receives full skylight. From there light floods outward, losing one level
+ * per step through open tiles and {@link #SOLID_FALLOFF} levels per step into opaque ones,
+ * so the faces of the terrain are lit and light fades a few tiles into tunnels and caves.
+ * <p>
+ * Since light drops at least one level per tile, an edit can only change light within
+ * {@link TileLayers#MAX_LIGHT} columns of it. {@link #onTileChanged(TileLayers, int)}
+ * therefore relights just that band of columns, seeded with skylight inside the band and
+ * with the unchanged light of the columns bordering it.
+ */
+public class Lighting {
+    /** Light lost when entering an opaque tile. */
+    public static final int SOLID_FALLOFF = 4;
+    /** Columns on each side of an edit whose light may change. */
+    static final int RELIGHT_RADIUS = MAX_LIGHT + 1;
+
+    /** Work queue of packed tile indices (x * height + y). */
+    private int[] queue = new int[1024];
+
+    /**
+     * Computes the light of every tile.
+     *
+     * @param layers tile layers with foreground and walls filled in
+     */
+    public void build(TileLayers layers) {
+        relight(layers, 0, layers.getWidth() - 1);
+    }
+
+    /**
+     * Updates the light after the tile in column x changed.
+     *
+     * @param layers tile layers, already containing the new tile
+     * @param x      column of the changed tile
+     */
+    public void onTileChanged(TileLayers layers, int x) {
+        relight(layers, x - RELIGHT_RADIUS, x + RELIGHT_RADIUS);
+    }
+
+    /**
+     * Updates the light after a batch of edits between columns x0 and x1.
+     *
+     * @param layers tile layers, already containing the new tiles
+     * @param x0     first changed column
+     * @param x1     last changed column
+     */
+    public void onAreaChanged(TileLayers layers, int x0, int x1) {
+        relight(layers, x0 - RELIGHT_RADIUS, x1 + RELIGHT_RADIUS);
+    }
+
+    private void relight(TileLayers layers, int x0, int x1) {
+        int width = layers.getWidth(), height = layers.getHeight();
+        x0 = Math.max(0, x0);
+        x1 = Math.min(width - 1, x1);
+        int tail = 0;
+
+        for (int x = x0; x <= x1; x++) {
+            boolean sky = true;
+            for (int y = 0; y < height; y++) {
+                int tile = layers.get(x, y);
+                if (sky && (BlockRegistry.IsOpaque(TileLayers.Foreground(tile)) || TileLayers.Wall(tile) != 0))
+                    sky = false;
+                layers.setLight(x, y, sky ? MAX_LIGHT : 0);
+                if (sky)
+                    tail = push(tail, x * height + y);
+            }
+        }
+        // the bordering columns keep their light and shine into the band
+        for (int x : new int[] {x0 - 1, x1 + 1}) {
+            if (x < 0 || x >= width)
+                continue;
+            for (int y = 0; y < height; y++)
+                if (layers.getLight(x, y) > 1)
+                    tail = push(tail, x * height + y);
+        }
+
+        for (int head = 0; head < tail; head++) {
+            int cell = queue[head];
+            int x = cell / height, y = cell % height;
+            int light = layers.getLight(x, y);
+            if (light <= 1)
+                continue;
+            if (x - 1 >= x0) tail = spread(layers, x - 1, y, light, tail);
+            if (x + 1 <= x1) tail = spread(layers, x + 1, y, light, tail);
+            if (x >= x0 && x <= x1) {
+                if (y > 0) tail = spread(layers, x, y - 1, light, tail);
+                if (y + 1 < height) tail = spread(layers, x, y + 1, light, tail);
+            }
+        }
+    }
+
+    private int spread(TileLayers layers, int x, int y, int light, int tail) {
+        int target = light - (BlockRegistry.IsOpaque(layers.getForeground(x, y)) ? SOLID_FALLOFF : 1);
+        if (target <= layers.getLight(x, y))
+            return tail;
+        layers.setLight(x, y, target);
+        return push(tail, x * layers.getHeight() + y);
+    }
+
+    private int push(int tail, int cell) {
+        if (tail == queue.length)
+            queue = Arrays.copyOf(queue, tail * 2);
+        queue[tail] = cell;
+        return tail + 1;
+    }
+}
@@ -0,0 +1,178 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A rectangular structure template stamped into the world during generation.
+ * <p>
+ * Tiles are held column by column, {@code columns[x][y]}, the same layout as the world grid,
+ * so {@link #stamp(int[][], int, int)} copies each column with a single
+ * {@link System#arraycopy}. AIR inside a template is copied too: structures carve out their
+ * own interior.
+ * <p>
+ * Templates are stored in a compact binary format:
+ * <pre>
+ *   int    magic "PFB1"
+ *   byte   width, byte height              (unsigned)
+ *   byte   palette size, then one UTF block name per entry
+ *   (byte run, byte palette index)...      column-major runs covering width * height tiles
+ * </pre>
+ * Blocks are referenced by name through the palette, so templates stay valid when
+ * {@link BlockType} gains new entries.
+ */
+public class Prefab {
+    private static final int MAGIC = 0x50464231;
+
+    private final String name;
+    /** Block ids indexed as [x][y]. */
+    private final int[][] columns;
+
+    /**
+     * Creates a template from block ids.
+     *
+     * @param name    name used in logs and tests
+     * @param columns block ids indexed as [x][y]; every column must have the same height
+     */
+    public Prefab(String name, int[][] columns) {
+        this.name = name;
+        this.columns = columns;
+    }
+
+    /**
+     * Copies the template into the world with its top-left tile at (x, y). The template
+     * must fit inside the world.
+     *
+     * @param world tile IDs indexed as [x][y]
+     * @param x     world column of the template's left edge
+     * @param y     world row of the template's top edge
+     */
+    public void stamp(int[][] world, int x, int y) {
+        int height = getHeight();
+        for (int dx = 0; dx < columns.length; dx++)
+            System.arraycopy(columns[dx], 0, world[x + dx], y, height);
+    }
+
+    /**
+     * Reads a template in the binary format.
+     *
+     * @param name template name
+     * @param in   stream positioned at the magic number
+     * @return the template
+     * @throws IOException if the stream is truncated, has the wrong magic number or names an
+     *                     unknown block
+     */
+    public static Prefab Read(String name, InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a prefab: " + name);
+        int width = data.readUnsignedByte(), height = data.readUnsignedByte();
+        int[] palette = new int[data.readUnsignedByte()];
+        for (int i = 0; i < palette.length; i++) {
+            String block = data.readUTF();
+            try {
+                palette[i] = BlockType.valueOf(block).ordinal();
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown block " + block + " in prefab " + name);
+            }
+        }
+        int[][] columns = new int[width][height];
+        int filled = 0, total = width * height;
+        while (filled < total) {
+            int run = data.readUnsignedByte();
+            int id = palette[data.readUnsignedByte()];
+            if (run == 0 || filled + run > total)
+                throw new IOException("Corrupt run in prefab " + name);
+            for (int i = 0; i < run; i++, filled++)
+                columns[filled / height][filled % height] = id;
+        }
+        return new Prefab(name, columns);
+    }
+
+    /**
+     * Writes the template in the binary format.
+     *
+     * @param out destination stream
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the template is larger than 255 x 255 tiles
+     */
+    public void write(OutputStream out) throws IOException {
+        int width = getWidth(), height = getHeight();
+        if (width > 255 || height > 255)
+            throw new IllegalArgumentException("Prefab too large: " + width + "x" + height);
+        int[] paletteIndex = new int[BlockType.values().length];
+        Arrays.fill(paletteIndex, -1);
+        int paletteSize = 0;
+        int[] palette = new int[BlockType.values().length];
+        for (int[] column : columns)
+            for (int id : column)
+                if (paletteIndex[id] < 0) {
+                    paletteIndex[id] = paletteSize;
+                    palette[paletteSize++] = id;
+                }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(width);
+        data.writeByte(height);
+        data.writeByte(paletteSize);
+        for (int i = 0; i < paletteSize; i++)
+            data.writeUTF(BlockType.fromId(palette[i]).name());
+        int total = width * height;
+        for (int start = 0; start < total; ) {
+            int id = columns[start / height][start % height];
+            int run = 1;
+            while (run < 255 && start + run < total && columns[(start + run) / height][(start + run) % height] == id)
+                run++;
+            data.writeByte(run);
+            data.writeByte(paletteIndex[id]);
+            start += run;
+        }
+        data.flush();
+    }
+
+    /**
+     * Loads a template from the classpath.
+     *
+     * @param fileName resource path relative to the classpath root
+     * @return the template, or null if loading failed
+     */
+    public static Prefab Load(String fileName) {
+        try (InputStream is = Prefab.class.getResourceAsStream("/" + fileName)) {
+            if (is == null) throw new IOException("Resource not found: " + fileName);
+            return Read(fileName, is);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return columns.length;
+    }
+
+    public int getHeight() {
+        return columns.length == 0 ? 0 : columns[0].length;
+    }
+
+    /**
+     * Returns the block id of a template tile.
+     *
+     * @param x column within the template
+     * @param y row within the template
+     * @return block id
+     */
+    public int getBlock(int x, int y) {
+        return columns[x][y];
+    }
+}
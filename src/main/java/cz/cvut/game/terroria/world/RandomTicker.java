@@ -0,0 +1,110 @@
+package cz.cvut.game.terroria.world;
+
+/**
+ * Random-tick sampler for ambient world behaviour.
+ * <p>
+ * The world is split into square chunks of {@link WorldGenerator#CHUNK_SIZE} tiles. Chunks
+ * within {@code loadRadius} chunk columns of a focus column (normally the player's) count
+ * as loaded, and every tick {@code samplesPerChunk} random tiles are picked in each loaded
+ * chunk and handed to a callback. The cost per tick is therefore
+ * {@code loaded chunks * samples per chunk}, bounded by the radius and independent of how
+ * wide the world is, while each loaded tile is still visited at a steady average rate.
+ * <p>
+ * With a {@link ChunkOccupancy} set, chunks made entirely of air are skipped without drawing
+ * any samples, since nothing in them reacts to a random tick.
+ */
+public class RandomTicker {
+    /** Receives the sampled tiles. */
+    public interface Handler {
+        /**
+         * Called for each randomly sampled tile.
+         *
+         * @param x tile column index
+         * @param y tile row index
+         */
+        void onRandomTick(int x, int y);
+    }
+
+    /** Default number of tiles sampled per loaded chunk per tick. */
+    public static final int DEFAULT_SAMPLES_PER_CHUNK = 3;
+    /** Default number of chunk columns on each side of the focus that count as loaded. */
+    public static final int DEFAULT_LOAD_RADIUS = 4;
+
+    private final int width, height, chunksX, chunksY;
+    private int samplesPerChunk = DEFAULT_SAMPLES_PER_CHUNK;
+    private int loadRadius = DEFAULT_LOAD_RADIUS;
+    /** Chunk summary used to skip empty chunks, or null to sample every chunk. */
+    private ChunkOccupancy occupancy;
+    /** xorshift state; cheaper than java.util.Random and never zero. */
+    private int state;
+
+    /**
+     * Creates a ticker for a world of the given size.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     * @param seed   seed for the tile sampling
+     */
+    public RandomTicker(int width, int height, long seed) {
+        this.width = width;
+        this.height = height;
+        this.chunksX = (width + WorldGenerator.CHUNK_SIZE - 1) / WorldGenerator.CHUNK_SIZE;
+        this.chunksY = (height + WorldGenerator.CHUNK_SIZE - 1) / WorldGenerator.CHUNK_SIZE;
+        setSeed(seed);
+    }
+
+    /**
+     * Samples random tiles in every chunk loaded around the focus column.
+     *
+     * @param focusTileX column the loaded area is centred on
+     * @param handler    receives each sampled tile
+     * @return number of tiles sampled
+     */
+    public int tick(int focusTileX, Handler handler) {
+        int size = WorldGenerator.CHUNK_SIZE;
+        int focus = Math.min(chunksX - 1, Math.max(0, focusTileX / size));
+        int c0 = Math.max(0, focus - loadRadius), c1 = Math.min(chunksX - 1, focus + loadRadius);
+        int sampled = 0;
+        for (int cx = c0; cx <= c1; cx++) {
+            int x0 = cx * size, w = Math.min(size, width - x0);
+            for (int cy = 0; cy < chunksY; cy++) {
+                if (occupancy != null && occupancy.isEmpty(cx, cy))
+                    continue;
+                int y0 = cy * size, h = Math.min(size, height - y0);
+                for (int s = 0; s < samplesPerChunk; s++) {
+                    int bits = next();
+                    handler.onRandomTick(x0 + ((bits & 0xFFFF) * w >>> 16), y0 + ((bits >>> 16) * h >>> 16));
+                    sampled++;
+                }
+            }
+        }
+        return sampled;
+    }
+
+    private int next() {
+        int s = state;
+        s ^= s << 13;
+        s ^= s >>> 17;
+        s ^= s << 5;
+        return state = s;
+    }
+
+    public void setSeed(long seed) {
+        int s = (int) (seed ^ (seed >>> 32));
+        state = s == 0 ? 0x9E3779B9 : s;
+    }
+
+    /**
+     * Sets the chunk summary used to skip chunks that are all air.
+     *
+     * @param occupancy the world's chunk occupancy, or null to sample every chunk
+     */
+    public void setOccupancy(ChunkOccupancy occupancy) {
+        this.occupancy = occupancy;
+    }
+
+    public void setSamplesPerChunk(int samplesPerChunk) { this.samplesPerChunk = Math.max(0, samplesPerChunk); }
+    public void setLoadRadius(int loadRadius) { this.loadRadius = Math.max(0, loadRadius); }
+    public int getSamplesPerChunk() { return samplesPerChunk; }
+    public int getLoadRadius() { return loadRadius; }
+}
@@ -0,0 +1,178 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static cz.cvut.game.terroria.world.WorldGenerator.CHUNK_SIZE;
+
+/**
+ * Places prefab structures (ruins, cabins, mine shafts) into a generated world.
+ * <p>
+ * Each column of chunks gets at most one candidate structure, chosen by a random generator
+ * seeded from the world seed and the chunk index alone, so the result does not depend on
+ * which thread handled which chunk. Placement runs in three phases, each of which may run
+ * in parallel over the chunks:
+ * <ol>
+ *   <li>pick a candidate per chunk, only reading the world;</li>
+ *   <li>drop every candidate whose bounds, grown by a margin, overlap a candidate from a
+ *       lower chunk, so no two kept structures overlap;</li>
+ *   <li>stamp the kept structures with column-wise bulk copies.</li>
+ * </ol>
+ * The second rule is slightly stricter than a greedy scan but needs no ordering between
+ * chunks, and since kept structures never overlap the stamping phase writes disjoint tiles.
+ */
+public class StructurePlacer {
+    /** Built-in templates, as classpath resources. */
+    public static final String[] DEFAULT_PREFABS = {"prefabs/ruin.bin", "prefabs/cabin.bin", "prefabs/mine_shaft.bin"};
+    /** Whether each built-in template starts at the surface rather than underground. */
+    private static final boolean[] DEFAULT_SURFACE_ANCHORED = {false, false, true};
+    /** One in this many chunks gets a candidate structure. */
+    private static final int CHANCE = 3;
+    /** Minimum gap, in tiles, kept between two structures. */
+    private static final int MARGIN = 2;
+    /**
+     * Chunk count from which the phases run in parallel. Each chunk is only a few
+     * microseconds of work, so below this the fork/join hand-off costs more than it saves.
+     */
+    public static final int PARALLEL_THRESHOLD = 256;
+
+    /**
+     * A structure placed into the world.
+     */
+    public static class Placement {
+        public final int x, y;
+        public final Prefab prefab;
+
+        public Placement(int x, int y, Prefab prefab) {
+            this.x = x;
+            this.y = y;
+            this.prefab = prefab;
+        }
+
+        /** Whether the two structures, each grown by margin tiles, overlap. */
+        boolean overlaps(Placement other, int margin) {
+            return x - margin < other.x + other.prefab.getWidth() && other.x - margin < x + prefab.getWidth()
+                    && y - margin < other.y + other.prefab.getHeight() && other.y - margin < y + prefab.getHeight();
+        }
+    }
+
+    private final Prefab[] prefabs;
+    private final boolean[] surfaceAnchored;
+    /** Number of lower chunks whose candidates can reach into a chunk. */
+    private final int reach;
+
+    /**
+     * Creates a placer for the given templates.
+     *
+     * @param prefabs         templates to choose from
+     * @param surfaceAnchored for each template, true to place it with its top at the ground
+     *                        surface, false to bury it in the lower half of the world
+     */
+    public StructurePlacer(Prefab[] prefabs, boolean[] surfaceAnchored) {
+        this.prefabs = prefabs;
+        this.surfaceAnchored = surfaceAnchored;
+        int maxWidth = 0;
+        for (Prefab prefab : prefabs)
+            maxWidth = Math.max(maxWidth, prefab.getWidth());
+        // a candidate lies within its chunk plus its width, or up to its width further left
+        // when pushed back from the world edge
+        reach = (2 * maxWidth + MARGIN) / CHUNK_SIZE + 2;
+    }
+
+    /**
+     * Creates a placer for the built-in templates. Templates that fail to load are skipped.
+     *
+     * @return the placer
+     */
+    public static StructurePlacer LoadDefault() {
+        List<Prefab> prefabs = new ArrayList<>();
+        List<Boolean> anchored = new ArrayList<>();
+        for (int i = 0; i < DEFAULT_PREFABS.length; i++) {
+            Prefab prefab = Prefab.Load(DEFAULT_PREFABS[i]);
+            if (prefab != null) {
+                prefabs.add(prefab);
+                anchored.add(DEFAULT_SURFACE_ANCHORED[i]);
+            }
+        }
+        boolean[] surface = new boolean[anchored.size()];
+        for (int i = 0; i < surface.length; i++)
+            surface[i] = anchored.get(i);
+        return new StructurePlacer(prefabs.toArray(new Prefab[0]), surface);
+    }
+
+    /**
+     * Places structures into the world.
+     *
+     * @param world tile IDs indexed as [x][y]
+     * @param seed  world seed
+     * @return the placed structures, ordered by chunk
+     */
+    public List<Placement> place(int[][] world, long seed) {
+        int chunks = (world.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Placement[] candidates = new Placement[chunks];
+        chunkRange(chunks).forEach(c -> candidates[c] = candidate(world, seed, c));
+
+        boolean[] keep = new boolean[chunks];
+        chunkRange(chunks).forEach(c -> keep[c] = candidates[c] != null && !collidesWithLower(candidates, c));
+
+        chunkRange(chunks).forEach(c -> {
+            if (keep[c])
+                candidates[c].prefab.stamp(world, candidates[c].x, candidates[c].y);
+        });
+
+        List<Placement> placed = new ArrayList<>();
+        for (int c = 0; c < chunks; c++)
+            if (keep[c])
+                placed.add(candidates[c]);
+        return placed;
+    }
+
+    private static IntStream chunkRange(int chunks) {
+        IntStream range = IntStream.range(0, chunks);
+        return chunks >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+
+    /** Picks the candidate for a chunk, or null; chunk 0 is left clear for the spawn. */
+    private Placement candidate(int[][] world, long seed, int chunk) {
+        if (chunk == 0 || prefabs.length == 0)
+            return null;
+        Random random = new Random(seed * 341873128712L + chunk * 132897987541L);
+        if (random.nextInt(CHANCE) != 0)
+            return null;
+        int index = random.nextInt(prefabs.length);
+        Prefab prefab = prefabs[index];
+        int width = world.length, height = world[0].length;
+        if (prefab.getWidth() > width || prefab.getHeight() >= height)
+            return null;
+
+        int x = Math.min(chunk * CHUNK_SIZE + random.nextInt(CHUNK_SIZE), width - prefab.getWidth());
+        int y;
+        if (surfaceAnchored[index]) {
+            y = FirstSolid(world[x + prefab.getWidth() / 2]);
+        } else {
+            int top = height / 2, bottom = height - 1 - prefab.getHeight();
+            y = bottom < top ? bottom : top + random.nextInt(bottom - top + 1);
+        }
+        if (y < 0 || y + prefab.getHeight() > height - 1)
+            return null;
+        return new Placement(x, y, prefab);
+    }
+
+    private boolean collidesWithLower(Placement[] candidates, int chunk) {
+        for (int c = Math.max(0, chunk - reach); c < chunk; c++)
+            if (candidates[c] != null && candidates[c].overlaps(candidates[chunk], MARGIN))
+                return true;
+        return false;
+    }
+
+    private static int FirstSolid(int[] column) {
+        for (int y = 0; y < column.length; y++)
+            if (BlockRegistry.IsSolid(column[y]))
+                return y;
+        return column.length;
+    }
+}
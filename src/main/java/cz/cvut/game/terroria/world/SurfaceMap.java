@@ -0,0 +1,89 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+
+/**
+ * Per-column heightmap holding the row of the topmost solid tile.
+ * <p>
+ * Built once after generation and updated incrementally on single-tile edits, so spawning,
+ * tree placement and anything else that needs "the ground in this column" reads it in
+ * constant time instead of scanning the column from the top. Placing a block above the
+ * surface raises it immediately; removing the surface block rescans only the rows below it.
+ */
+public class SurfaceMap {
+    private final int width, height;
+    /** surface[x] is the row of the first solid tile in column x, or height if there is none. */
+    private final int[] surface;
+
+    /**
+     * Creates an empty map for a world of the given size; call {@link #build(int[][])} to fill it.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     */
+    public SurfaceMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.surface = new int[width];
+    }
+
+    /**
+     * Rebuilds every column from the given world.
+     *
+     * @param world tile IDs indexed as [x][y]
+     */
+    public void build(int[][] world) {
+        rebuildColumns(world, 0, width - 1);
+    }
+
+    /**
+     * Rescans the columns between x0 and x1 inclusive, e.g. after a batched edit changed
+     * many tiles in them. Columns outside the world are skipped.
+     *
+     * @param world tile IDs indexed as [x][y]
+     * @param x0    first column
+     * @param x1    last column
+     */
+    public void rebuildColumns(int[][] world, int x0, int x1) {
+        for (int x = Math.max(0, x0); x <= Math.min(width - 1, x1); x++)
+            surface[x] = FirstSolid(world[x], 0, height);
+    }
+
+    /**
+     * Updates the column after the tile at (x, y) changed.
+     *
+     * @param world tile IDs indexed as [x][y], already containing the new tile
+     * @param x     column of the changed tile
+     * @param y     row of the changed tile
+     */
+    public void onTileChanged(int[][] world, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return;
+        if (BlockRegistry.IsSolid(world[x][y])) {
+            if (y < surface[x])
+                surface[x] = y;
+        } else if (y == surface[x]) {
+            surface[x] = FirstSolid(world[x], y + 1, height);
+        }
+    }
+
+    /**
+     * Returns the row of the topmost solid tile in a column.
+     *
+     * @param x column index
+     * @return surface row, or the world height if the column is empty or out of range
+     */
+    public int getSurfaceY(int x) {
+        if (x < 0 || x >= width)
+            return height;
+        return surface[x];
+    }
+
+    private static int FirstSolid(int[] column, int from, int height) {
+        for (int y = from; y < height; y++) {
+            if (BlockRegistry.IsSolid(column[y]))
+                return y;
+        }
+        return height;
+    }
+}
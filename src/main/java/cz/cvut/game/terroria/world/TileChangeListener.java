@@ -0,0 +1,33 @@
+package cz.cvut.game.terroria.world;
+
+/**
+ * Receives a callback from {@link WorldGenerator} whenever a single tile is edited, and once
+ * per affected chunk when a {@link WorldEdit} is committed.
+ */
+public interface TileChangeListener {
+    /**
+     * Called after the tile at (x, y) changed.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     */
+    void onTileChanged(int x, int y);
+
+    /**
+     * Called once after a committed {@link WorldEdit} changed tiles inside a chunk of
+     * {@link WorldGenerator#CHUNK_SIZE} x {@link WorldGenerator#CHUNK_SIZE} tiles. The default
+     * reports every tile of the chunk that lies inside the world; listeners that can test a
+     * whole area at once should override it.
+     *
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     */
+    default void onChunkChanged(int chunkX, int chunkY) {
+        int x0 = chunkX * WorldGenerator.CHUNK_SIZE, y0 = chunkY * WorldGenerator.CHUNK_SIZE;
+        int x1 = Math.min(WorldGenerator.WIDTH_TILES, x0 + WorldGenerator.CHUNK_SIZE);
+        int y1 = Math.min(WorldGenerator.HEIGHT_TILES, y0 + WorldGenerator.CHUNK_SIZE);
+        for (int x = x0; x < x1; x++)
+            for (int y = y0; y < y1; y++)
+                onTileChanged(x, y);
+    }
+}
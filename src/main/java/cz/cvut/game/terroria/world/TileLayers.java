@@ -0,0 +1,166 @@
+package cz.cvut.game.terroria.world;
+
+/**
+ * Bit-packed per-tile layers stored in chunks.
+ * <p>
+ * Every tile is one {@code int} holding several small fields:
+ * <pre>
+ *   bits  0..7   foreground block id
+ *   bits  8..15  background wall block id (0 = no wall)
+ *   bits 16..19  light level, 0 (dark) to {@link #MAX_LIGHT}
+ *   bits 20..23  unused; mining damage lives in {@link BlockDamageMap}
+ *   bits 24..31  spare
+ * </pre>
+ * Tiles are grouped into {@link WorldGenerator#CHUNK_SIZE} x {@link WorldGenerator#CHUNK_SIZE}
+ * chunks, each a single {@code int[]} laid out column by column, so everything the renderer
+ * and the lighting need for a tile is one read from a small, contiguous array instead of one
+ * read per parallel 2D array. Adding a layer costs bits, not another grid.
+ */
+public class TileLayers {
+    public static final int MAX_LIGHT = 15;
+
+    private static final int FG_SHIFT = 0, WALL_SHIFT = 8, LIGHT_SHIFT = 16, SPARE_SHIFT = 24;
+    private static final int BYTE_MASK = 0xFF, NIBBLE_MASK = 0xF;
+
+    /** log2 of the chunk size; chunk coordinates are a shift, offsets a mask. */
+    private static final int SHIFT = Integer.numberOfTrailingZeros(WorldGenerator.CHUNK_SIZE);
+    private static final int MASK = WorldGenerator.CHUNK_SIZE - 1;
+
+    static {
+        if (Integer.bitCount(WorldGenerator.CHUNK_SIZE) != 1)
+            throw new IllegalStateException("Chunk size must be a power of two: " + WorldGenerator.CHUNK_SIZE);
+    }
+
+    private final int width, height;
+    private final int chunkRows;
+    /** Packed tiles per chunk, indexed chunkX * chunkRows + chunkY, then localX * CHUNK_SIZE + localY. */
+    private final int[][] chunks;
+
+    /**
+     * Creates empty layers (AIR, no wall, dark) for a world of the given size.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     */
+    public TileLayers(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int chunkColumns = (width + MASK) >> SHIFT;
+        chunkRows = (height + MASK) >> SHIFT;
+        chunks = new int[chunkColumns * chunkRows][WorldGenerator.CHUNK_SIZE * WorldGenerator.CHUNK_SIZE];
+    }
+
+    /**
+     * Copies the foreground ids of the whole world into the layers, keeping the other fields.
+     *
+     * @param world tile IDs indexed as [x][y]
+     */
+    public void loadForeground(int[][] world) {
+        for (int x = 0; x < width; x++) {
+            int[] column = world[x];
+            for (int y = 0; y < height; y++)
+                setForeground(x, y, column[y]);
+        }
+    }
+
+    /** Whether (x, y) lies inside the world. */
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Returns the packed word of a tile; decode it with the static accessors.
+     *
+     * @param x tile column index, inside the world
+     * @param y tile row index, inside the world
+     * @return packed tile
+     */
+    public int get(int x, int y) {
+        return chunks[(x >> SHIFT) * chunkRows + (y >> SHIFT)][(x & MASK) << SHIFT | (y & MASK)];
+    }
+
+    /**
+     * Replaces the packed word of a tile.
+     *
+     * @param x    tile column index, inside the world
+     * @param y    tile row index, inside the world
+     * @param tile packed tile
+     */
+    public void set(int x, int y, int tile) {
+        chunks[(x >> SHIFT) * chunkRows + (y >> SHIFT)][(x & MASK) << SHIFT | (y & MASK)] = tile;
+    }
+
+    /**
+     * Copies the packed words of one chunk.
+     *
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     * @param dst    receives CHUNK_SIZE * CHUNK_SIZE words, indexed localX * CHUNK_SIZE + localY
+     */
+    public void copyChunk(int chunkX, int chunkY, int[] dst) {
+        int[] chunk = chunks[chunkX * chunkRows + chunkY];
+        System.arraycopy(chunk, 0, dst, 0, chunk.length);
+    }
+
+    private void setField(int x, int y, int shift, int mask, int value) {
+        int[] chunk = chunks[(x >> SHIFT) * chunkRows + (y >> SHIFT)];
+        int i = (x & MASK) << SHIFT | (y & MASK);
+        chunk[i] = chunk[i] & ~(mask << shift) | (value & mask) << shift;
+    }
+
+    public int getForeground(int x, int y) {
+        return Foreground(get(x, y));
+    }
+
+    public void setForeground(int x, int y, int id) {
+        setField(x, y, FG_SHIFT, BYTE_MASK, id);
+    }
+
+    public int getWall(int x, int y) {
+        return Wall(get(x, y));
+    }
+
+    public void setWall(int x, int y, int id) {
+        setField(x, y, WALL_SHIFT, BYTE_MASK, id);
+    }
+
+    public int getLight(int x, int y) {
+        return Light(get(x, y));
+    }
+
+    public void setLight(int x, int y, int light) {
+        setField(x, y, LIGHT_SHIFT, NIBBLE_MASK, light);
+    }
+
+    public int getSpare(int x, int y) {
+        return Spare(get(x, y));
+    }
+
+    public void setSpare(int x, int y, int value) {
+        setField(x, y, SPARE_SHIFT, BYTE_MASK, value);
+    }
+
+    public static int Foreground(int tile) {
+        return tile >>> FG_SHIFT & BYTE_MASK;
+    }
+
+    public static int Wall(int tile) {
+        return tile >>> WALL_SHIFT & BYTE_MASK;
+    }
+
+    public static int Light(int tile) {
+        return tile >>> LIGHT_SHIFT & NIBBLE_MASK;
+    }
+
+    public static int Spare(int tile) {
+        return tile >>> SPARE_SHIFT & BYTE_MASK;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,102 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+
+/**
+ * Per-row prefix sums of "walkable" tiles: tiles that are not solid and have a solid tile
+ * directly below them (the bottom edge of the world counts as solid).
+ * <p>
+ * With the prefix sums, checking whether every tile of a row segment is walkable is a
+ * constant-time subtraction instead of a walk over the segment. The sums are updated
+ * incrementally when a single tile changes, touching only the two affected rows.
+ */
+public class WalkabilityMap {
+    private final int width, height;
+    /** prefix[y][x] holds the number of walkable tiles in row y among columns [0, x). */
+    private final int[][] prefix;
+
+    /**
+     * Creates an empty map for a world of the given size; call {@link #build(int[][])} to fill it.
+     *
+     * @param width  world width in tiles
+     * @param height world height in tiles
+     */
+    public WalkabilityMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.prefix = new int[height][width + 1];
+    }
+
+    /**
+     * Rebuilds every row from the given world.
+     *
+     * @param world tile IDs indexed as [x][y]
+     */
+    public void build(int[][] world) {
+        rebuildRows(world, 0, height - 1);
+    }
+
+    /**
+     * Rebuilds the rows between y0 and y1 inclusive, e.g. after a batched edit changed many
+     * tiles in them. Rows outside the world are skipped.
+     *
+     * @param world tile IDs indexed as [x][y]
+     * @param y0    first row
+     * @param y1    last row
+     */
+    public void rebuildRows(int[][] world, int y0, int y1) {
+        for (int y = Math.max(0, y0); y <= Math.min(height - 1, y1); y++) {
+            int[] row = prefix[y];
+            for (int x = 0; x < width; x++)
+                row[x + 1] = row[x] + (IsWalkable(world, x, y) ? 1 : 0);
+        }
+    }
+
+    /**
+     * Updates the sums after the tile at (x, y) changed. Both the tile's own row and the row
+     * above it (whose floor support may have changed) are refreshed.
+     *
+     * @param world tile IDs indexed as [x][y], already containing the new tile
+     * @param x     column of the changed tile
+     * @param y     row of the changed tile
+     */
+    public void onTileChanged(int[][] world, int x, int y) {
+        refresh(world, x, y);
+        refresh(world, x, y - 1);
+    }
+
+    private void refresh(int[][] world, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return;
+        int[] row = prefix[y];
+        int delta = (IsWalkable(world, x, y) ? 1 : 0) - (row[x + 1] - row[x]);
+        if (delta == 0)
+            return;
+        for (int i = x + 1; i <= width; i++)
+            row[i] += delta;
+    }
+
+    /**
+     * Checks whether every tile in row y between xStart (inclusive) and xEnd (exclusive)
+     * is walkable. Runs in constant time.
+     *
+     * @param xStart first column
+     * @param xEnd   column after the last one
+     * @param y      row to check
+     * @return true if all tiles in the range are walkable; an empty range is walkable
+     */
+    public boolean isRangeWalkable(int xStart, int xEnd, int y) {
+        if (xStart >= xEnd)
+            return true;
+        if (xStart < 0 || xEnd > width || y < 0 || y >= height)
+            return false;
+        int[] row = prefix[y];
+        return row[xEnd] - row[xStart] == xEnd - xStart;
+    }
+
+    private static boolean IsWalkable(int[][] world, int x, int y) {
+        if (BlockRegistry.IsSolid(world[x][y]))
+            return false;
+        return y + 1 >= world[x].length || BlockRegistry.IsSolid(world[x][y + 1]);
+    }
+}
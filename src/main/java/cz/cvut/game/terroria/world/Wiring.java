@@ -0,0 +1,348 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockType;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static cz.cvut.game.terroria.world.WorldGenerator.CHUNK_SIZE;
+
+/**
+ * Wires, switches, pressure plates and actuated doors layered on the tile world.
+ * <p>
+ * Wires live on their own layer, one bit per tile, next to whatever block the tile holds.
+ * Wires touching horizontally or vertically form a network, and a switch, plate or door
+ * belongs to the network of the wire running over its tile. A network is powered while at
+ * least one of its sources is active (a switch that is on, or a plate something stands on),
+ * and its doors stand open while it is powered.
+ * <p>
+ * Networks are compiled when the wiring changes instead of being traced when a signal
+ * fires. Every wired tile points to its {@link Network}, which keeps the number of active
+ * sources and the list of its doors. Laying a wire joins or merges the neighbouring
+ * networks, cutting one splits its network with a flood over that network alone, and a
+ * device placed or removed on a wired tile only updates its own network's counts. A source
+ * changing state is then one counter update, and doors are only touched when their
+ * network's power flips. Nothing runs per tick, so idle wiring costs nothing however large.
+ */
+public class Wiring implements TileChangeListener {
+    /** Roles of a wired tile, from the block on it. */
+    private static final byte NONE = 0, SOURCE_OFF = 1, SOURCE_ON = 2, DOOR = 3;
+
+    /** A connected set of wires with its active source count and its doors. */
+    static final class Network {
+        int wires;
+        int activeSources;
+        /** Tile indices of the doors on this network. */
+        int[] doors = new int[4];
+        int doorCount;
+
+        boolean isPowered() {
+            return activeSources > 0;
+        }
+
+        void addDoor(int cell) {
+            if (doorCount == doors.length)
+                doors = Arrays.copyOf(doors, doorCount * 2);
+            doors[doorCount++] = cell;
+        }
+
+        void removeDoor(int cell) {
+            for (int i = 0; i < doorCount; i++) {
+                if (doors[i] == cell) {
+                    doors[i] = doors[--doorCount];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final WorldGenerator worldGen;
+    private final int width, height;
+    /** Wire layer, by tile index x * height + y. */
+    private final BitSet wires;
+    /** Network of every wired tile, null elsewhere. */
+    private final Network[] networks;
+    /** Last known role of every wired tile. */
+    private final byte[] roles;
+    /** Number of bodies standing on each pressed plate, by tile index. */
+    private final Map<Integer, Integer> plateLoad = new HashMap<>();
+    /** Plate tile each presser stands on. */
+    private final Map<Integer, Integer> presserPlate = new HashMap<>();
+    /** Flood queue of tile indices. */
+    private int[] queue = new int[256];
+
+    /**
+     * Creates an empty wire layer for the given world.
+     *
+     * @param worldGen world whose doors are actuated and whose edits are followed
+     * @param width    world width in tiles
+     * @param height   world height in tiles
+     */
+    public Wiring(WorldGenerator worldGen, int width, int height) {
+        this.worldGen = worldGen;
+        this.width = width;
+        this.height = height;
+        wires = new BitSet(width * height);
+        networks = new Network[width * height];
+        roles = new byte[width * height];
+    }
+
+    /**
+     * Lays a wire, joining or merging the networks it touches.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return true if a wire was laid; false if the tile is outside the world or already wired
+     */
+    public boolean placeWire(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height || wires.get(x * height + y))
+            return false;
+        int cell = x * height + y;
+        int[] around = neighbours(x, y);
+        Network target = null;
+        for (int n : around)
+            if (n >= 0 && (target == null || networks[n].wires > target.wires))
+                target = networks[n];
+        if (target == null)
+            target = new Network();
+        boolean merged = false;
+        for (int n : around) {
+            if (n >= 0 && networks[n] != target) {
+                relabel(n, networks[n], target);
+                merged = true;
+            }
+        }
+
+        wires.set(cell);
+        networks[cell] = target;
+        roles[cell] = NONE;
+        target.wires++;
+        updateRole(cell);
+        if (merged)
+            actuate(target);
+        return true;
+    }
+
+    /**
+     * Cuts a wire, splitting its network if the wire was a bridge.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return true if a wire was removed
+     */
+    public boolean removeWire(int x, int y) {
+        if (!isWire(x, y))
+            return false;
+        int cell = x * height + y;
+        Network old = networks[cell];
+        wires.clear(cell);
+        networks[cell] = null;
+        roles[cell] = NONE;
+        for (int n : neighbours(x, y)) {
+            if (n >= 0 && networks[n] == old) {
+                Network part = new Network();
+                relabel(n, old, part);
+                actuate(part);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flips a switch between on and off.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return true if the tile held a switch
+     */
+    public boolean toggleSwitch(int x, int y) {
+        int id = worldGen.getWorld()[x][y];
+        if (id == BlockType.SWITCH_OFF.ordinal())
+            worldGen.setBlock(x, y, BlockType.SWITCH_ON);
+        else if (id == BlockType.SWITCH_ON.ordinal())
+            worldGen.setBlock(x, y, BlockType.SWITCH_OFF);
+        else
+            return false;
+        return true;
+    }
+
+    /**
+     * Moves a body that can press plates, such as the player, onto a tile. A plate is pressed
+     * while at least one presser stands on it. Costs O(1) unless a plate changes state.
+     *
+     * @param presser id of the body, unique among pressers
+     * @param x       column of the tile the body stands in
+     * @param y       row of the tile the body stands in
+     * @return true if a plate was pressed or released
+     */
+    public boolean updatePresser(int presser, int x, int y) {
+        int cell = x >= 0 && x < width && y >= 0 && y < height
+                && worldGen.getWorld()[x][y] == BlockType.PRESSURE_PLATE.ordinal() ? x * height + y : -1;
+        Integer previous = presserPlate.get(presser);
+        if (previous != null && previous == cell)
+            return false;
+        boolean changed = false;
+        if (previous != null) {
+            presserPlate.remove(presser);
+            Integer load = plateLoad.get(previous);
+            if (load != null && load > 1) {
+                plateLoad.put(previous, load - 1);
+            } else if (load != null) {
+                plateLoad.remove(previous);
+                if (wires.get(previous))
+                    updateRole(previous);
+                changed = true;
+            }
+        }
+        if (cell >= 0) {
+            presserPlate.put(presser, cell);
+            if (plateLoad.merge(cell, 1, Integer::sum) == 1) {
+                if (wires.get(cell))
+                    updateRole(cell);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /** Drops every wire, network and pressed plate, e.g. when the world is regenerated. */
+    public void clear() {
+        wires.clear();
+        Arrays.fill(networks, null);
+        Arrays.fill(roles, NONE);
+        plateLoad.clear();
+        presserPlate.clear();
+    }
+
+    @Override
+    public void onTileChanged(int x, int y) {
+        int cell = x * height + y;
+        if (!plateLoad.isEmpty() && worldGen.getWorld()[x][y] != BlockType.PRESSURE_PLATE.ordinal())
+            plateLoad.remove(cell);
+        if (wires.get(cell))
+            updateRole(cell);
+    }
+
+    @Override
+    public void onChunkChanged(int chunkX, int chunkY) {
+        int y0 = chunkY * CHUNK_SIZE, y1 = Math.min(height, y0 + CHUNK_SIZE);
+        for (int x = chunkX * CHUNK_SIZE; x < Math.min(width, (chunkX + 1) * CHUNK_SIZE); x++) {
+            for (int y = y0; y < y1 && !plateLoad.isEmpty(); y++)
+                if (worldGen.getWorld()[x][y] != BlockType.PRESSURE_PLATE.ordinal())
+                    plateLoad.remove(x * height + y);
+            int end = x * height + y1;
+            for (int cell = wires.nextSetBit(x * height + y0); cell >= 0 && cell < end; cell = wires.nextSetBit(cell + 1))
+                updateRole(cell);
+        }
+    }
+
+    /** Brings a wired tile's role and its network's counts in line with the block on it. */
+    private void updateRole(int cell) {
+        byte role = roleOf(cell);
+        byte old = roles[cell];
+        Network network = networks[cell];
+        if (role == old) {
+            if (role == DOOR)
+                actuateDoor(cell, network.isPowered());   // a door swapped for one in the other state
+            return;
+        }
+        boolean wasPowered = network.isPowered();
+        if (old == SOURCE_ON)
+            network.activeSources--;
+        else if (old == DOOR)
+            network.removeDoor(cell);
+        if (role == SOURCE_ON)
+            network.activeSources++;
+        else if (role == DOOR)
+            network.addDoor(cell);
+        roles[cell] = role;
+        if (wasPowered != network.isPowered())
+            actuate(network);
+        else if (role == DOOR)
+            actuateDoor(cell, network.isPowered());
+    }
+
+    private byte roleOf(int cell) {
+        int id = worldGen.getWorld()[cell / height][cell % height];
+        if (id == BlockType.SWITCH_ON.ordinal())
+            return SOURCE_ON;
+        if (id == BlockType.SWITCH_OFF.ordinal())
+            return SOURCE_OFF;
+        if (id == BlockType.PRESSURE_PLATE.ordinal())
+            return plateLoad.containsKey(cell) ? SOURCE_ON : SOURCE_OFF;
+        if (id == BlockType.DOOR_CLOSED.ordinal() || id == BlockType.DOOR_OPEN.ordinal())
+            return DOOR;
+        return NONE;
+    }
+
+    /** Opens or closes every door of a network to match its power. */
+    private void actuate(Network network) {
+        boolean powered = network.isPowered();
+        for (int i = 0; i < network.doorCount; i++)
+            actuateDoor(network.doors[i], powered);
+    }
+
+    private void actuateDoor(int cell, boolean open) {
+        int x = cell / height, y = cell % height;
+        BlockType wanted = open ? BlockType.DOOR_OPEN : BlockType.DOOR_CLOSED;
+        if (worldGen.getWorld()[x][y] != wanted.ordinal())
+            worldGen.setBlock(x, y, wanted);    // the role stays DOOR, so this does not recurse
+    }
+
+    /**
+     * Moves every tile of one network, reached from start, to another network and adds
+     * the tiles' wires, sources and doors to its counts.
+     */
+    private void relabel(int start, Network from, Network to) {
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        networks[start] = to;
+        while (head < tail) {
+            int cell = queue[head++];
+            to.wires++;
+            if (roles[cell] == SOURCE_ON)
+                to.activeSources++;
+            else if (roles[cell] == DOOR)
+                to.addDoor(cell);
+            for (int n : neighbours(cell / height, cell % height)) {
+                if (n >= 0 && networks[n] == from) {
+                    networks[n] = to;
+                    if (tail == queue.length)
+                        queue = Arrays.copyOf(queue, tail * 2);
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+
+    /** Indices of the wired tiles left, right, above and below; -1 where there is none. */
+    private int[] neighbours(int x, int y) {
+        int[] around = {-1, -1, -1, -1};
+        if (x > 0 && wires.get((x - 1) * height + y)) around[0] = (x - 1) * height + y;
+        if (x + 1 < width && wires.get((x + 1) * height + y)) around[1] = (x + 1) * height + y;
+        if (y > 0 && wires.get(x * height + y - 1)) around[2] = x * height + y - 1;
+        if (y + 1 < height && wires.get(x * height + y + 1)) around[3] = x * height + y + 1;
+        return around;
+    }
+
+    public boolean isWire(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && wires.get(x * height + y);
+    }
+
+    /** Whether the tile carries a wire whose network is powered. */
+    public boolean isPowered(int x, int y) {
+        return isWire(x, y) && networks[x * height + y].isPowered();
+    }
+
+    /** Whether both tiles carry wires of the same network. */
+    public boolean isConnected(int x0, int y0, int x1, int y1) {
+        return isWire(x0, y0) && isWire(x1, y1) && networks[x0 * height + y0] == networks[x1 * height + y1];
+    }
+
+    /** Wire layer by tile index x * height + y, for the renderer. */
+    BitSet getWires() {
+        return wires;
+    }
+}
@@ -0,0 +1,185 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+import cz.cvut.game.terroria.utils.BlockType;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A batch of tile edits that is committed to the world in one go.
+ * <p>
+ * Obtained from {@link WorldGenerator#beginEdit()}. Each edit writes the tile into the world
+ * grid immediately, so later edits in the same batch see earlier ones, but the derived data
+ * (walkability, surface, autotiles, water, scheduled reactions) is only brought up to date
+ * by {@link #commit()}. The commit refreshes each derived structure once for the touched
+ * area and notifies listeners once per affected chunk, instead of once per tile, so an area
+ * effect touching thousands of tiles costs one invalidation per chunk. Blocks mined as part
+ * of the batch are counted and handed back by the commit, ready to be added to the
+ * inventory in bulk.
+ * <p>
+ * Every batch must be committed before the world is simulated or drawn again. Each touched
+ * chunk stays in a write section of the world's {@link ChunkSeqLocks} from its first write
+ * until the commit, so readers on other threads see the batch all at once or not at all.
+ */
+public class WorldEdit {
+    private final WorldGenerator worldGen;
+    private final int[][] world;
+    private final int width, height;
+    /** Tiles written by this batch, by index x * height + y. */
+    private final BitSet touched;
+    /** Chunks containing at least one touched tile, by index chunkX * chunkRows + chunkY. */
+    private final BitSet chunks;
+    private final int chunkRows;
+    /** Bounding box of the touched tiles; empty while minX > maxX. */
+    private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+    /** Number of mined drops per item id. */
+    private final int[] drops = new int[BlockRegistry.COUNT];
+    private boolean committed;
+
+    WorldEdit(WorldGenerator worldGen) {
+        this.worldGen = worldGen;
+        this.world = worldGen.getWorld();
+        this.width = world.length;
+        this.height = world[0].length;
+        this.chunkRows = (height + WorldGenerator.CHUNK_SIZE - 1) / WorldGenerator.CHUNK_SIZE;
+        this.touched = new BitSet(width * height);
+        this.chunks = new BitSet(((width + WorldGenerator.CHUNK_SIZE - 1) / WorldGenerator.CHUNK_SIZE) * chunkRows);
+    }
+
+    /**
+     * Sets a tile. Tiles outside the world are ignored.
+     *
+     * @param x    tile column index
+     * @param y    tile row index
+     * @param type block to place
+     * @return this edit, for chaining
+     */
+    public WorldEdit set(int x, int y, BlockType type) {
+        write(x, y, type.ordinal());
+        return this;
+    }
+
+    /**
+     * Clears a tile to AIR without collecting a drop.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return this edit, for chaining
+     */
+    public WorldEdit destroy(int x, int y) {
+        write(x, y, BlockType.AIR.ordinal());
+        return this;
+    }
+
+    /**
+     * Mines a tile: clears it to AIR and counts its drop. Tiles that cannot be mined are
+     * left unchanged.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return true if the tile was mined
+     */
+    public boolean mine(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return false;
+        int id = world[x][y];
+        if (BlockRegistry.GetHardness(id) == 0)
+            return false;
+        write(x, y, BlockType.AIR.ordinal());
+        drops[BlockRegistry.GetDrop(id)]++;
+        return true;
+    }
+
+    /**
+     * Mines every tile in a rectangle, clipped to the world.
+     *
+     * @param x0 first column
+     * @param y0 first row
+     * @param x1 last column, inclusive
+     * @param y1 last row, inclusive
+     * @return number of tiles mined
+     */
+    public int mineArea(int x0, int y0, int x1, int y1) {
+        int mined = 0;
+        for (int x = Math.max(0, x0); x <= Math.min(width - 1, x1); x++)
+            for (int y = Math.max(0, y0); y <= Math.min(height - 1, y1); y++)
+                if (mine(x, y))
+                    mined++;
+        return mined;
+    }
+
+    private void write(int x, int y, int id) {
+        if (committed)
+            throw new IllegalStateException("World edit already committed");
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return;
+        int chunk = x / WorldGenerator.CHUNK_SIZE * chunkRows + y / WorldGenerator.CHUNK_SIZE;
+        if (!chunks.get(chunk)) {
+            worldGen.getSeqLocks().beginWrite(x / WorldGenerator.CHUNK_SIZE, y / WorldGenerator.CHUNK_SIZE);
+            chunks.set(chunk);
+        }
+        world[x][y] = id;
+        touched.set(x * height + y);
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+    }
+
+    /**
+     * Brings the derived world data up to date, notifies listeners once per affected chunk
+     * and ends the batch.
+     *
+     * @return number of mined drops per item id, indexed by block id
+     * @throws IllegalStateException if the edit was already committed
+     */
+    public int[] commit() {
+        if (committed)
+            throw new IllegalStateException("World edit already committed");
+        committed = true;
+        if (maxX >= 0)
+            worldGen.applyEdit(this);
+        ChunkSeqLocks seqLocks = worldGen.getSeqLocks();
+        for (int c = chunks.nextSetBit(0); c >= 0; c = chunks.nextSetBit(c + 1))
+            seqLocks.endWrite(c / chunkRows, c % chunkRows);
+        return Arrays.copyOf(drops, drops.length);
+    }
+
+    /** Number of distinct tiles written by this batch. */
+    public int size() {
+        return touched.cardinality();
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    BitSet getTouched() {
+        return touched;
+    }
+
+    BitSet getChunks() {
+        return chunks;
+    }
+
+    int getChunkRows() {
+        return chunkRows;
+    }
+
+    int getMinX() {
+        return minX;
+    }
+
+    int getMinY() {
+        return minY;
+    }
+
+    int getMaxX() {
+        return maxX;
+    }
+
+    int getMaxY() {
+        return maxY;
+    }
+}
@@ -1,6 +1,7 @@
 package cz.cvut.game.terroria.world;
 
 import cz.cvut.game.terroria.Game;
+import cz.cvut.game.terroria.utils.BlockRegistry;
 import cz.cvut.game.terroria.utils.BlockType;
 import cz.cvut.game.terroria.utils.Constants;
 import fastnoise.FastNoiseLite;
@@ -8,8 +9,11 @@ import fastnoise.FastNoiseLite;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Random;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static cz.cvut.game.terroria.Game.TILES_SIZE;
 
@@ -17,19 +21,105 @@ import static cz.cvut.game.terroria.Game.TILES_SIZE;
  * Generates and manages the game world terrain, caves, ores, and trees using noise and randomness.
  * <p>
  * The world is represented as a 2D grid of tile IDs, with dimensions WIDTH_TILES x HEIGHT_TILES.
- * Terrain height is determined by Perlin noise, caves are carved randomly, ores are scattered,
- * and trees are placed at intervals. Provides methods to draw the visible portion of the world,
- * destroy or set blocks, and reset the world with a new seed.
+ * Terrain height is determined by Perlin noise, caves are carved from smoothed 2D noise, ores are scattered,
+ * prefab structures are stamped in, and trees are placed at intervals. Provides methods to draw
+ * the visible portion of the world, destroy or set blocks, and reset the world with a new seed.
  */
 public class WorldGenerator {
     public static final int WIDTH_TILES = 1000;
     public static final int HEIGHT_TILES = 75;
     public static final int GROUND_LEVEL = 25;
+    /** Width and height, in tiles, of the square chunks the world is divided into. */
+    public static final int CHUNK_SIZE = 16;
     private static final float NOISE_SCALE = 1.5f;
-    private static final float CAVE_DENSITY = 0.25f;
+    /** Chance for a dirt tile in the cave region to become ore. */
+    private static final float ORE_CHANCE = 0.05f;
+
+    /**
+     * Block update actions handled by {@link #runBlockUpdate(int, int, int)}. UPDATE_FALL drops
+     * dirt that lost its support; UPDATE_FALLING carries on a drop that has started.
+     */
+    public static final int UPDATE_FALL = 1, UPDATE_GRASS = 2, UPDATE_SAPLING = 3, UPDATE_FALLING = 4;
+    /** Maximum scheduled block updates processed per tick. */
+    public static final int BLOCK_UPDATE_BUDGET = 256;
+    /** Delay before unsupported dirt drops by one tile, and between the tiles of its fall. */
+    private static final int FALL_DELAY = Math.max(1, Game.UPS_SET / 20);
+    /** Shortest and longest delay before exposed dirt grows grass. */
+    private static final int GRASS_DELAY_MIN = 10 * Game.UPS_SET, GRASS_DELAY_MAX = 30 * Game.UPS_SET;
+    /** Delay before a felled tree grows back from its sapling. */
+    private static final int SAPLING_DELAY = 60 * Game.UPS_SET;
+    /** One in this many random ticks on enclosed deep dirt turns it back into ore. */
+    private static final int ORE_REGEN_CHANCE = 200_000;
+    /** Number of water pools seeded into caves per 100 columns. */
+    private static final int POOLS_PER_100_COLUMNS = 2;
+    private static final Color WATER_COLOR = new Color(40, 90, 200, 160);
+    /** Tint drawn over background walls so they read as being behind the foreground. */
+    private static final Color WALL_SHADE = new Color(0, 0, 0, 110);
+    /** Overlay per darkness level (MAX_LIGHT - light); unlit tiles stay faintly visible. */
+    private static final Color[] DARKNESS = new Color[TileLayers.MAX_LIGHT + 1];
+    /** Damaged tiles remembered at once; the one hit longest ago is forgotten first. */
+    public static final int DAMAGE_CAPACITY = 256;
+    /** Idle ticks before mining damage starts to heal, and ticks per healed point after that. */
+    private static final int DAMAGE_DECAY_DELAY = 3 * Game.UPS_SET, DAMAGE_DECAY_INTERVAL = Game.UPS_SET;
+    private static final Color CRACK_COLOR = new Color(20, 10, 0, 200);
+    private static final Color WIRE_COLOR = new Color(150, 20, 20), WIRE_POWERED_COLOR = new Color(255, 70, 50);
+    /** Crack segments as fractions of a tile (x1, y1, x2, y2); each crack stage adds two. */
+    private static final float[][] CRACKS = {
+            {0.5f, 0.5f, 0.2f, 0.15f}, {0.5f, 0.5f, 0.85f, 0.3f},
+            {0.5f, 0.5f, 0.3f, 0.8f}, {0.2f, 0.15f, 0.05f, 0.35f},
+            {0.85f, 0.3f, 0.75f, 0.9f}, {0.3f, 0.8f, 0.1f, 0.95f}};
+
+    static {
+        for (int i = 0; i < DARKNESS.length; i++)
+            DARKNESS[i] = new Color(0, 0, 0, i * 12);
+    }
+    /** Built-in structure templates, loaded once for all worlds. */
+    private static final StructurePlacer STRUCTURE_PLACER = StructurePlacer.LoadDefault();
+    /** Cave carver for the lower half of the world. */
+    private static final CaveGenerator CAVES = new CaveGenerator(WIDTH_TILES, HEIGHT_TILES / 2, HEIGHT_TILES);
     private int[][] world = new int[WIDTH_TILES][HEIGHT_TILES];
     private FastNoiseLite noise;
     private Random random;
+    /** Prefix sums of walkable tiles per row, kept in sync with every edit. */
+    private final WalkabilityMap walkability = new WalkabilityMap(WIDTH_TILES, HEIGHT_TILES);
+    /** Row of the topmost solid tile per column, kept in sync with every edit. */
+    private final SurfaceMap surface = new SurfaceMap(WIDTH_TILES, HEIGHT_TILES);
+    /** Render variants such as grass edges, kept in sync with every edit. */
+    private final AutotileMap autotiles = new AutotileMap(WIDTH_TILES, HEIGHT_TILES);
+    /** Air and solid tile counts per chunk, kept in sync with every edit and fluid move. */
+    private final ChunkOccupancy occupancy = new ChunkOccupancy(WIDTH_TILES, HEIGHT_TILES);
+    /** Sequence locks guarding the world grid against torn reads from other threads. */
+    private final ChunkSeqLocks seqLocks = new ChunkSeqLocks(WIDTH_TILES, HEIGHT_TILES);
+    /** Wires, switches, plates and doors; registered as a tile listener. */
+    private final Wiring wiring = new Wiring(this, WIDTH_TILES, HEIGHT_TILES);
+    /** Edit counter per chunk, letting resting entities skip their floor probes; registered as a tile listener. */
+    private final ChunkEditStamps editStamps = new ChunkEditStamps(WIDTH_TILES, HEIGHT_TILES);
+    /** Listeners notified after every single-tile edit. */
+    private final List<TileChangeListener> tileListeners = new ArrayList<>();
+    /** Pending delayed tile updates; only scheduled tiles are visited each tick. */
+    private final BlockUpdateScheduler blockUpdates = new BlockUpdateScheduler(WIDTH_TILES, HEIGHT_TILES);
+    private final BlockUpdateScheduler.Handler blockUpdateHandler = this::runBlockUpdate;
+    /** Samples random tiles around the player for ambient changes such as grass spreading. */
+    private final RandomTicker randomTicker;
+    private final RandomTicker.Handler randomTickHandler = this::onRandomTick;
+    /** Water flowing through the non-solid tiles. */
+    private final FluidSimulator water = new FluidSimulator(WIDTH_TILES, HEIGHT_TILES, BlockType.WATER);
+    /** Packed foreground, wall and light per tile; the renderer reads only this, plus the crack snapshot. */
+    private final TileLayers layers = new TileLayers(WIDTH_TILES, HEIGHT_TILES);
+    private final Lighting lighting = new Lighting();
+    /** Mining progress of the few tiles being dug at, keyed by tile. */
+    private final BlockDamageMap damage = new BlockDamageMap(DAMAGE_CAPACITY, DAMAGE_DECAY_DELAY, DAMAGE_DECAY_INTERVAL);
+    /**
+     * Cracks to draw as (x, y, stage) triples, rebuilt by the game thread after each update;
+     * the renderer reads this array and never walks the damage table while it is edited.
+     */
+    private volatile int[] cracks = new int[0];
+    /** Chunk copies the renderer draws from; touched only by the drawing thread. */
+    private final int[] drawPacked = new int[CHUNK_SIZE * CHUNK_SIZE];
+    private final int[] drawRenderIds = new int[CHUNK_SIZE * CHUNK_SIZE];
+    /** Whether prefab structures are placed during generation. */
+    private final boolean structuresEnabled;
+    private List<StructurePlacer.Placement> structures = new ArrayList<>();
 
     /**
      * Constructs the world generator with the given seed, initializes noise and randomness,
@@ -38,13 +128,38 @@ public class WorldGenerator {
      * @param seed seed value for reproducible world generation
      */
     public WorldGenerator(long seed) {
+        this(seed, true);
+    }
+
+    /**
+     * Constructs the world generator with the given seed, optionally without prefab structures.
+     *
+     * @param seed       seed value for reproducible world generation
+     * @param structures whether to place ruins, cabins and mine shafts
+     */
+    public WorldGenerator(long seed, boolean structures) {
+        structuresEnabled = structures;
+        water.setLayers(layers);
+        water.setOccupancy(occupancy);
+        water.setSeqLocks(seqLocks);
         noise = new FastNoiseLite((int) seed);
         noise.SetNoiseType(FastNoiseLite.NoiseType.Perlin);
         random = new Random(seed);
+        randomTicker = new RandomTicker(WIDTH_TILES, HEIGHT_TILES, seed);
+        randomTicker.setOccupancy(occupancy);
+        tileListeners.add(editStamps);
+        tileListeners.add(wiring);
         generateTerrain();
-        generateCaves();
+        generateCaves(seed);
         generateOres();
+        generateStructures(seed);
+        generateWater();
+        surface.build(world);
         generateTrees();
+        walkability.build(world);
+        autotiles.build(world);
+        occupancy.build(world);
+        buildLayers();
     }
 
     /** Generates ground, dirt, and air tiles across the world width based on Perlin noise. */
@@ -64,27 +179,64 @@ public class WorldGenerator {
         }
     }
 
-    /** Randomly carves out caves in the lower half of the world based on CAVE_DENSITY. */
-    private void generateCaves() {
-        for (int x = 0; x < WIDTH_TILES; x++) {
-            for (int y = HEIGHT_TILES / 2; y < HEIGHT_TILES; y++) {
-                if (random.nextFloat() < CAVE_DENSITY) {
-                    world[x][y] = 0;
-                }
-            }
-        }
+    /** Carves connected caves into the lower half of the world; see {@link CaveGenerator}. */
+    private void generateCaves(long seed) {
+        CAVES.carve(world, seed);
     }
 
     /** Randomly replaces dirt tiles with ore blocks at a 5% chance in cave regions. */
     private void generateOres() {
         for (int x = 0; x < WIDTH_TILES; x++) {
             for (int y = HEIGHT_TILES / 2; y < HEIGHT_TILES; y++) {
-                if (world[x][y] == 2 && random.nextFloat() < 0.05) {
+                if (world[x][y] == 2 && random.nextFloat() < ORE_CHANCE) {
                     world[x][y] = 3;
                 }
             }
         }
     }
+    /** Stamps ruins, cabins and mine shafts from their prefab templates, if enabled. */
+    private void generateStructures(long seed) {
+        structures = structuresEnabled ? STRUCTURE_PLACER.place(world, seed) : new ArrayList<>();
+    }
+
+    /**
+     * Seeds small water pools on cave floors. The pools start awake and settle during
+     * the first simulation steps.
+     */
+    private void generateWater() {
+        water.clear();
+        int pools = WIDTH_TILES * POOLS_PER_100_COLUMNS / 100;
+        for (int i = 0; i < pools; i++) {
+            int x = random.nextInt(WIDTH_TILES);
+            for (int y = HEIGHT_TILES / 2; y + 1 < HEIGHT_TILES; y++) {
+                if (world[x][y] == BlockType.AIR.ordinal() && BlockRegistry.IsSolid(world[x][y + 1])) {
+                    for (int dy = 0; dy < 3 && y - dy >= 0 && world[x][y - dy] == BlockType.AIR.ordinal(); dy++)
+                        water.setLevel(world, x, y - dy, FluidSimulator.MAX_LEVEL);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the packed layers from the generated world: the foreground mirrors the grid, the
+     * dirt band between the surface and the caves gets a dirt wall behind it, and the light
+     * is computed from scratch.
+     */
+    private void buildLayers() {
+        for (int x = 0; x < WIDTH_TILES; x++) {
+            int[] column = world[x];
+            int surfaceY = surface.getSurfaceY(x);
+            for (int y = 0; y < HEIGHT_TILES; y++) {
+                int wall = y > surfaceY && y < HEIGHT_TILES / 2 ? BlockType.DIRT.ordinal() : 0;
+                layers.set(x, y, 0);
+                layers.setForeground(x, y, column[y]);
+                layers.setWall(x, y, wall);
+            }
+        }
+        lighting.build(layers);
+    }
+
     /** Draws the visible tiles on screen, offset by level scroll values. */
     public void draw(Graphics g, int xLvlOffset, int yLvlOffset) {
         int tileSize = Game.TILES_SIZE;
@@ -100,21 +252,120 @@ public class WorldGenerator {
         int yEnd   = Math.min(world[0].length,
                 (yLvlOffset + screenH) / tileSize + 1);
 
-        for (int x = xStart; x < xEnd; x++) {
-            for (int y = yStart; y < yEnd; y++) {
-                BlockType type = BlockType.values()[ world[x][y] ];
-                BufferedImage tile = type.getTile();
-                if (tile != null) {
-                    g.drawImage(
-                            tile,
-                            x * tileSize - xLvlOffset,
-                            y * tileSize - yLvlOffset,
-                            tileSize, tileSize,
-                            null
-                    );
+        for (int cx = xStart / CHUNK_SIZE; cx <= (xEnd - 1) / CHUNK_SIZE; cx++) {
+            int x0 = Math.max(xStart, cx * CHUNK_SIZE), x1 = Math.min(xEnd, (cx + 1) * CHUNK_SIZE);
+            int ground = HEIGHT_TILES;
+            for (int x = cx * CHUNK_SIZE; x < Math.min(WIDTH_TILES, (cx + 1) * CHUNK_SIZE); x++)
+                ground = Math.min(ground, surface.getSurfaceY(x));
+            for (int cy = yStart / CHUNK_SIZE; cy <= (yEnd - 1) / CHUNK_SIZE; cy++) {
+                int state = occupancy.getState(cx, cy);
+                // open sky above the ground has no walls, no water and full light: nothing to draw
+                if (state == ChunkOccupancy.EMPTY && (cy + 1) * CHUNK_SIZE <= ground)
+                    continue;
+                int y0 = Math.max(yStart, cy * CHUNK_SIZE), y1 = Math.min(yEnd, (cy + 1) * CHUNK_SIZE);
+                readLayers(cx, cy, drawPacked, drawRenderIds);
+                for (int x = x0; x < x1; x++) {
+                    for (int y = y0; y < y1; y++) {
+                        int i = (x - cx * CHUNK_SIZE) * CHUNK_SIZE + y - cy * CHUNK_SIZE;
+                        drawTile(g, drawPacked[i], drawRenderIds[i], x, y, x * tileSize - xLvlOffset,
+                                y * tileSize - yLvlOffset, state == ChunkOccupancy.SOLID);
+                    }
                 }
             }
         }
+
+        drawWires(g, xStart, xEnd, yStart, yEnd, xLvlOffset, yLvlOffset);
+
+        // only the damaged tiles are visited, from the snapshot the game thread published
+        g.setColor(CRACK_COLOR);
+        int[] cracks = this.cracks;
+        for (int i = 0; i < cracks.length; i += 3) {
+            int x = cracks[i], y = cracks[i + 1], stage = cracks[i + 2];
+            if (x < xStart || x >= xEnd || y < yStart || y >= yEnd)
+                continue;
+            int px = x * tileSize - xLvlOffset, py = y * tileSize - yLvlOffset;
+            for (int j = 0; j < stage * 2; j++) {
+                float[] c = CRACKS[j];
+                g.drawLine(px + (int) (c[0] * tileSize), py + (int) (c[1] * tileSize),
+                        px + (int) (c[2] * tileSize), py + (int) (c[3] * tileSize));
+            }
+        }
+    }
+
+    /** Draws the visible wires as lines between the centres of neighbouring wired tiles. */
+    private void drawWires(Graphics g, int xStart, int xEnd, int yStart, int yEnd, int xLvlOffset, int yLvlOffset) {
+        int tileSize = Game.TILES_SIZE, half = tileSize / 2;
+        BitSet wires = wiring.getWires();
+        for (int x = xStart; x < xEnd; x++) {
+            int end = x * HEIGHT_TILES + yEnd;
+            for (int i = wires.nextSetBit(x * HEIGHT_TILES + yStart); i >= 0 && i < end; i = wires.nextSetBit(i + 1)) {
+                int y = i % HEIGHT_TILES;
+                int cx = x * tileSize - xLvlOffset + half, cy = y * tileSize - yLvlOffset + half;
+                g.setColor(wiring.isPowered(x, y) ? WIRE_POWERED_COLOR : WIRE_COLOR);
+                g.fillRect(cx - 1, cy - 1, 3, 3);
+                if (wiring.isWire(x + 1, y))
+                    g.drawLine(cx, cy, cx + tileSize, cy);
+                if (wiring.isWire(x, y + 1))
+                    g.drawLine(cx, cy, cx, cy + tileSize);
+            }
+        }
+    }
+
+    /**
+     * Draws one tile with its wall, water and darkness from its copied packed word and
+     * texture id. Tiles of an all-solid chunk are always covered by their own texture, so
+     * the wall and water checks are skipped.
+     */
+    private void drawTile(Graphics g, int packed, int renderId, int x, int y, int px, int py, boolean solidChunk) {
+        int tileSize = Game.TILES_SIZE;
+        int id = TileLayers.Foreground(packed);
+        BufferedImage tile = BlockRegistry.GetTexture(renderId);
+        if (!solidChunk && tile == null && TileLayers.Wall(packed) != 0) {
+            g.drawImage(BlockRegistry.GetTexture(TileLayers.Wall(packed)), px, py, tileSize, tileSize, null);
+            g.setColor(WALL_SHADE);
+            g.fillRect(px, py, tileSize, tileSize);
+        }
+        if (!solidChunk && id == BlockType.WATER.ordinal()) {
+            int h = water.getLevel(x, y) * tileSize / FluidSimulator.MAX_LEVEL;
+            g.setColor(WATER_COLOR);
+            g.fillRect(px, py + tileSize - h, tileSize, h);
+        } else if (tile != null) {
+            g.drawImage(tile, px, py, tileSize, tileSize, null);
+        }
+        int dark = TileLayers.MAX_LIGHT - TileLayers.Light(packed);
+        if (dark > 0) {
+            g.setColor(DARKNESS[dark]);
+            g.fillRect(px, py, tileSize, tileSize);
+        }
+    }
+
+    /**
+     * Lands one mining hit on a tile. Hits add up to the block's hardness, at which point the
+     * block breaks; damage left alone for a while heals again.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return true if this hit breaks the block; the caller then mines it
+     */
+    public boolean hitBlock(int x, int y) {
+        if (!layers.contains(x, y))
+            return false;
+        int hardness = BlockRegistry.GetHardness(world[x][y]);
+        if (hardness == 0 || damage.hit(x, y, 1, blockUpdates.getTick()) < hardness)
+            return false;
+        damage.remove(x, y);
+        return true;
+    }
+
+    /**
+     * Returns the mining damage a tile has taken, after healing.
+     *
+     * @param x tile column index
+     * @param y tile row index
+     * @return number of hits still counting towards breaking the block
+     */
+    public int getDamage(int x, int y) {
+        return damage.getDamage(x, y, blockUpdates.getTick());
     }
     /**
      * Sets the tile at the given coordinates to AIR, simulating block destruction.
@@ -125,7 +376,8 @@ public class WorldGenerator {
     public void destroyBlock(int x, int y) {
         if (x >= 0 && x < WIDTH_TILES
                 && y >= 0 && y < HEIGHT_TILES) {
-            world[x][y] = 0;
+            writeTile(x, y, BlockType.AIR.ordinal());
+            onTileChanged(x, y);
         }
     }
 
@@ -133,15 +385,30 @@ public class WorldGenerator {
 
     /** Resets the world generation with a new time-based seed and regenerates all features. */
     public void resetWrld() {
+        seqLocks.beginWriteAll();
         long newSeed = System.currentTimeMillis();
         noise = new FastNoiseLite((int) newSeed);
         noise.SetNoiseType(FastNoiseLite.NoiseType.Perlin);
         random = new Random(newSeed);
+        randomTicker.setSeed(newSeed);
 
         generateTerrain();
-        generateCaves();
+        generateCaves(newSeed);
         generateOres();
+        generateStructures(newSeed);
+        generateWater();
+        surface.build(world);
         generateTrees();
+        walkability.build(world);
+        autotiles.build(world);
+        occupancy.build(world);
+        buildLayers();
+        blockUpdates.clear();
+        damage.clear();
+        cracks = new int[0];
+        wiring.clear();
+        editStamps.touchAll();
+        seqLocks.endWriteAll();
     }
 
     /**
@@ -169,19 +436,15 @@ public class WorldGenerator {
      * Randomly places trees across the world at intervals of 10-30 tiles atop ground.
      */
     private void generateTrees() {
-        trees = new ArrayList<>();
+        trees = new CopyOnWriteArrayList<>();
         int x = 0;
         while (x < WIDTH_TILES) {
             x += 10 + random.nextInt(21);
             if (x >= WIDTH_TILES) break;
 
-            int groundY = 0;
-            for (int y = 0; y < HEIGHT_TILES; y++) {
-                if (world[x][y] != BlockType.AIR.ordinal()) {
-                    groundY = y;
-                    break;
-                }
-            }
+            int groundY = surface.getSurfaceY(x);
+            if (groundY >= HEIGHT_TILES)
+                groundY = 0;
 
             int type = random.nextInt(3);  // 0,1,2
             trees.add(new Tree(x, groundY - 1, type));
@@ -198,15 +461,358 @@ public class WorldGenerator {
     public void setBlock(int x, int y, BlockType type) {
         if (x >= 0 && x < WIDTH_TILES
                 && y >= 0 && y < HEIGHT_TILES) {
-            world[x][y] = type.ordinal();
+            writeTile(x, y, type.ordinal());
+            onTileChanged(x, y);
+        }
+    }
+
+    /** Stores a tile inside a write section of its chunk, so concurrent readers retry. */
+    private void writeTile(int x, int y, int id) {
+        seqLocks.beginWrite(x / CHUNK_SIZE, y / CHUNK_SIZE);
+        world[x][y] = id;
+        seqLocks.endWrite(x / CHUNK_SIZE, y / CHUNK_SIZE);
+    }
+
+    /**
+     * Copies the tiles of one chunk for a reader on another thread, such as a renderer, AI
+     * or save worker. The copy is a state the chunk actually had between two writes; if
+     * the game thread writes to the chunk meanwhile, the copy is retried, and the writer is
+     * never held up.
+     *
+     * @param chunkX chunk column index
+     * @param chunkY chunk row index
+     * @param dst    receives CHUNK_SIZE * CHUNK_SIZE tile IDs, indexed localX * CHUNK_SIZE + localY;
+     *               entries for tiles past the world's edge are left untouched
+     * @return version of the chunk the copy belongs to; see {@link ChunkSeqLocks#getVersion(int, int)}
+     */
+    public long readChunk(int chunkX, int chunkY, int[] dst) {
+        int x0 = chunkX * CHUNK_SIZE, x1 = Math.min(WIDTH_TILES, x0 + CHUNK_SIZE);
+        int y0 = chunkY * CHUNK_SIZE, n = Math.min(HEIGHT_TILES, y0 + CHUNK_SIZE) - y0;
+        while (true) {
+            long stamp = seqLocks.beginRead(chunkX, chunkY);
+            for (int x = x0; x < x1; x++)
+                System.arraycopy(world[x], y0, dst, (x - x0) * CHUNK_SIZE, n);
+            if (seqLocks.validate(chunkX, chunkY, stamp))
+                return stamp;
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Copies what the renderer needs of one chunk: the packed layer words and the texture id
+     * of every tile. Like {@link #readChunk(int, int, int[])}, the copy is retried until no
+     * write to the chunk overlapped it.
+     *
+     * @param chunkX    chunk column index
+     * @param chunkY    chunk row index
+     * @param packed    receives the packed words, indexed localX * CHUNK_SIZE + localY
+     * @param renderIds receives the texture block ids, same indexing; tiles past the world's edge are skipped
+     */
+    private void readLayers(int chunkX, int chunkY, int[] packed, int[] renderIds) {
+        int x0 = chunkX * CHUNK_SIZE, x1 = Math.min(WIDTH_TILES, x0 + CHUNK_SIZE);
+        int y0 = chunkY * CHUNK_SIZE, y1 = Math.min(HEIGHT_TILES, y0 + CHUNK_SIZE);
+        while (true) {
+            long stamp = seqLocks.beginRead(chunkX, chunkY);
+            layers.copyChunk(chunkX, chunkY, packed);
+            for (int x = x0; x < x1; x++) {
+                for (int y = y0; y < y1; y++) {
+                    int i = (x - x0) * CHUNK_SIZE + y - y0;
+                    renderIds[i] = autotiles.getRenderId(TileLayers.Foreground(packed[i]), x, y);
+                }
+            }
+            if (seqLocks.validate(chunkX, chunkY, stamp))
+                return;
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Opens or closes write sections on every chunk of the columns x0..x1, clipped to the world. */
+    private void writeColumns(int x0, int x1, boolean open) {
+        int c0 = Math.max(0, x0) / CHUNK_SIZE, c1 = Math.min(WIDTH_TILES - 1, x1) / CHUNK_SIZE;
+        for (int cx = c0; cx <= c1; cx++) {
+            for (int cy = 0; cy < seqLocks.getChunkRows(); cy++) {
+                if (open)
+                    seqLocks.beginWrite(cx, cy);
+                else
+                    seqLocks.endWrite(cx, cy);
+            }
+        }
+    }
+
+    /**
+     * Updates derived data for an edited tile, schedules the neighbours' reactions and
+     * notifies the listeners.
+     */
+    private void onTileChanged(int x, int y) {
+        damage.remove(x, y);
+        walkability.onTileChanged(world, x, y);
+        surface.onTileChanged(world, x, y);
+        occupancy.onTileChanged(x, y, layers.getForeground(x, y), world[x][y]);
+        // everything the renderer copies changes inside write sections of the relit band
+        int x0 = x - Lighting.RELIGHT_RADIUS, x1 = x + Lighting.RELIGHT_RADIUS;
+        writeColumns(x0, x1, true);
+        // layer before variant: an unlocked reader may see a new id with a stale variant, never the reverse
+        layers.setForeground(x, y, world[x][y]);
+        autotiles.onTileChanged(world, x, y);
+        lighting.onTileChanged(layers, x);
+        writeColumns(x0, x1, false);
+        reactToTileChange(x, y);
+        for (TileChangeListener listener : tileListeners)
+            listener.onTileChanged(x, y);
+    }
+
+    /** Wakes the water around an edited tile and schedules its neighbours' reactions. */
+    private void reactToTileChange(int x, int y) {
+        water.onTileChanged(world, x, y);
+        if (BlockRegistry.IsSolid(world[x][y])) {
+            scheduleIfDirt(x, y, UPDATE_FALL, FALL_DELAY);
+            scheduleIfDirt(x, y, UPDATE_GRASS, grassDelay());
+        } else {
+            // only the tiles this one held up may have lost their support
+            scheduleIfDirt(x, y - 1, UPDATE_FALL, FALL_DELAY);
+            if (x > 0)
+                scheduleIfDirt(x - 1, y, UPDATE_FALL, FALL_DELAY);
+            if (x + 1 < WIDTH_TILES)
+                scheduleIfDirt(x + 1, y, UPDATE_FALL, FALL_DELAY);
+            scheduleIfDirt(x, y + 1, UPDATE_GRASS, grassDelay());
+        }
+    }
+
+    /**
+     * Starts a batch of tile edits that is committed in one go; see {@link WorldEdit}.
+     *
+     * @return a new, empty edit
+     */
+    public WorldEdit beginEdit() {
+        return new WorldEdit(this);
+    }
+
+    /**
+     * Applies a committed batch: each derived map is rebuilt once over the touched area,
+     * every touched tile gets its reactions, and listeners hear once per affected chunk.
+     */
+    void applyEdit(WorldEdit edit) {
+        int minX = edit.getMinX(), maxX = edit.getMaxX(), minY = edit.getMinY(), maxY = edit.getMaxY();
+        walkability.rebuildRows(world, minY - 1, maxY);
+        surface.rebuildColumns(world, minX, maxX);
+        BitSet touched = edit.getTouched();
+        writeColumns(minX - Lighting.RELIGHT_RADIUS, maxX + Lighting.RELIGHT_RADIUS, true);
+        for (int i = touched.nextSetBit(0); i >= 0; i = touched.nextSetBit(i + 1)) {
+            damage.remove(i / HEIGHT_TILES, i % HEIGHT_TILES);
+            layers.setForeground(i / HEIGHT_TILES, i % HEIGHT_TILES, world[i / HEIGHT_TILES][i % HEIGHT_TILES]);
+        }
+        autotiles.rebuild(world, minX - 1, minY - 1, maxX + 1, maxY + 1);
+        lighting.onAreaChanged(layers, minX, maxX);
+        writeColumns(minX - Lighting.RELIGHT_RADIUS, maxX + Lighting.RELIGHT_RADIUS, false);
+        for (int i = touched.nextSetBit(0); i >= 0; i = touched.nextSetBit(i + 1))
+            reactToTileChange(i / HEIGHT_TILES, i % HEIGHT_TILES);
+        BitSet chunks = edit.getChunks();
+        int rows = edit.getChunkRows();
+        for (int c = chunks.nextSetBit(0); c >= 0; c = chunks.nextSetBit(c + 1))
+            occupancy.rebuildChunk(world, c / rows, c % rows);
+        for (int c = chunks.nextSetBit(0); c >= 0; c = chunks.nextSetBit(c + 1)) {
+            for (TileChangeListener listener : tileListeners)
+                listener.onChunkChanged(c / rows, c % rows);
+        }
+    }
+
+    private void scheduleIfDirt(int x, int y, int action, int delay) {
+        if (y >= 0 && y < HEIGHT_TILES && world[x][y] == BlockType.DIRT.ordinal())
+            blockUpdates.schedule(x, y, action, delay);
+    }
+
+    private int grassDelay() {
+        return GRASS_DELAY_MIN + random.nextInt(GRASS_DELAY_MAX - GRASS_DELAY_MIN + 1);
+    }
+
+    /** Runs one scheduled update; every action re-checks its condition, since the tile may have changed. */
+    private void runBlockUpdate(int x, int y, int action) {
+        switch (action) {
+            case UPDATE_FALL -> {
+                if (world[x][y] == BlockType.DIRT.ordinal() && !IsSupported(world, x, y))
+                    fallStep(x, y);
+            }
+            case UPDATE_FALLING -> {
+                // once falling, only the tile below stops it; walls it passes do not
+                if (world[x][y] == BlockType.DIRT.ordinal()
+                        && y + 1 < HEIGHT_TILES && !BlockRegistry.IsSolid(world[x][y + 1]))
+                    fallStep(x, y);
+            }
+            case UPDATE_GRASS -> {
+                if (world[x][y] == BlockType.DIRT.ordinal()
+                        && (y == 0 || !BlockRegistry.IsSolid(world[x][y - 1])))
+                    setBlock(x, y, BlockType.GRASS);
+            }
+            case UPDATE_SAPLING -> {
+                boolean occupied = trees.stream().anyMatch(t -> t.tileX == x);
+                if (!occupied && !BlockRegistry.IsSolid(world[x][y])
+                        && y + 1 < HEIGHT_TILES && BlockRegistry.IsSolid(world[x][y + 1]))
+                    trees.add(new Tree(x, y, random.nextInt(3)));
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Moves falling dirt down one tile and schedules its next step. Water in the way is
+     * displaced into the tile the dirt left instead of being overwritten.
+     */
+    private void fallStep(int x, int y) {
+        int displaced = water.getLevel(x, y + 1);
+        destroyBlock(x, y);
+        setBlock(x, y + 1, BlockType.DIRT);
+        if (displaced > 0)
+            water.setLevel(world, x, y, displaced);
+        blockUpdates.schedule(x, y + 1, UPDATE_FALLING, FALL_DELAY);
+    }
+
+    /** Whether a tile rests on the tile below or is held from the side, as tunnel ceilings are. */
+    private static boolean IsSupported(int[][] world, int x, int y) {
+        return y + 1 >= world[x].length || BlockRegistry.IsSolid(world[x][y + 1])
+                || x > 0 && BlockRegistry.IsSolid(world[x - 1][y])
+                || x + 1 < world.length && BlockRegistry.IsSolid(world[x + 1][y]);
+    }
+
+    /**
+     * Handles a random tick: exposed dirt next to grass turns into grass, and deep dirt
+     * enclosed on all sides occasionally turns back into ore.
+     */
+    private void onRandomTick(int x, int y) {
+        if (world[x][y] != BlockType.DIRT.ordinal())
+            return;
+        if (y == 0 || !BlockRegistry.IsSolid(world[x][y - 1])) {
+            if (HasGrassNeighbour(world, x, y))
+                setBlock(x, y, BlockType.GRASS);
+        } else if (y >= HEIGHT_TILES / 2 && random.nextInt(ORE_REGEN_CHANCE) == 0 && IsEnclosed(world, x, y)) {
+            setBlock(x, y, BlockType.ORE);
+        }
+    }
+
+    private static boolean HasGrassNeighbour(int[][] world, int x, int y) {
+        for (int nx = Math.max(0, x - 1); nx <= Math.min(WIDTH_TILES - 1, x + 1); nx++) {
+            for (int ny = Math.max(0, y - 1); ny <= Math.min(HEIGHT_TILES - 1, y + 1); ny++) {
+                if (world[nx][ny] == BlockType.GRASS.ordinal())
+                    return true;
+            }
         }
+        return false;
+    }
+
+    private static boolean IsEnclosed(int[][] world, int x, int y) {
+        return x > 0 && x + 1 < WIDTH_TILES && y + 1 < HEIGHT_TILES
+                && BlockRegistry.IsSolid(world[x - 1][y]) && BlockRegistry.IsSolid(world[x + 1][y])
+                && BlockRegistry.IsSolid(world[x][y - 1]) && BlockRegistry.IsSolid(world[x][y + 1]);
     }
 
-    public void update() {
+    /**
+     * Removes a felled tree and plants a sapling that grows it back later.
+     *
+     * @param tree the tree to remove
+     */
+    public void removeTree(Tree tree) {
+        if (trees.remove(tree))
+            blockUpdates.schedule(tree.tileX, tree.tileY, UPDATE_SAPLING, SAPLING_DELAY);
+    }
 
+    /**
+     * Registers a listener that is notified after every single-tile edit.
+     *
+     * @param listener the listener to add
+     */
+    public void addTileChangeListener(TileChangeListener listener) {
+        tileListeners.add(listener);
+    }
+
+    /**
+     * Runs the random ticks around the focus column, one fluid step, and the block updates
+     * due this tick, up to {@link #BLOCK_UPDATE_BUDGET}. Once a second, fully healed mining
+     * damage is dropped. The crack snapshot the renderer draws is rebuilt last.
+     *
+     * @param focusTileX column the simulated area is centred on, normally the player's
+     * @return number of scheduled block updates that ran
+     */
+    public int update(int focusTileX) {
+        randomTicker.tick(focusTileX, randomTickHandler);
+        water.update(world);
+        if (blockUpdates.getTick() % Game.UPS_SET == 0)
+            damage.update(blockUpdates.getTick());
+        int ran = blockUpdates.update(blockUpdateHandler, BLOCK_UPDATE_BUDGET);
+        publishCracks();
+        return ran;
+    }
+
+    /** Rebuilds the crack snapshot the renderer draws from; free while nothing is damaged. */
+    private void publishCracks() {
+        if (damage.size() == 0 && cracks.length == 0)
+            return;
+        int[] next = new int[damage.size() * 3];
+        int[] count = {0};
+        damage.forEach(blockUpdates.getTick(), (x, y, d) -> {
+            int hardness = BlockRegistry.GetHardness(world[x][y]);
+            if (hardness == 0)
+                return;
+            next[count[0]++] = x;
+            next[count[0]++] = y;
+            next[count[0]++] = Math.min(CRACKS.length / 2, Math.max(1, d * CRACKS.length / 2 / hardness));
+        });
+        cracks = Arrays.copyOf(next, count[0]);
+    }
+
+    public FluidSimulator getWater() {
+        return water;
+    }
+
+    public RandomTicker getRandomTicker() {
+        return randomTicker;
+    }
+
+    public BlockUpdateScheduler getBlockUpdates() {
+        return blockUpdates;
     }
 
     public int[][] getWorld() {
         return world;
     }
+
+    public WalkabilityMap getWalkability() {
+        return walkability;
+    }
+
+    public SurfaceMap getSurface() {
+        return surface;
+    }
+
+    public ChunkOccupancy getOccupancy() {
+        return occupancy;
+    }
+
+    public ChunkSeqLocks getSeqLocks() {
+        return seqLocks;
+    }
+
+    public ChunkEditStamps getEditStamps() {
+        return editStamps;
+    }
+
+    public Wiring getWiring() {
+        return wiring;
+    }
+
+    /**
+     * Returns the structures placed during the last generation.
+     *
+     * @return placed structures, ordered by column
+     */
+    public List<StructurePlacer.Placement> getStructures() {
+        return structures;
+    }
+
+    public TileLayers getLayers() {
+        return layers;
+    }
+
+    public AutotileMap getAutotiles() {
+        return autotiles;
+    }
 }
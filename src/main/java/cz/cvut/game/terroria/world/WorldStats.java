@@ -0,0 +1,95 @@
+package cz.cvut.game.terroria.world;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+import cz.cvut.game.terroria.utils.BlockType;
+
+import java.util.Locale;
+
+/**
+ * Summary statistics of one generated world, used to tune the generation parameters
+ * across many seeds.
+ */
+public class WorldStats {
+    /** Column names matching {@link #toCsv()}. */
+    public static final String CSV_HEADER =
+            "seed,ore_count,cave_ratio,surface_roughness,tree_count,structure_count,generation_ms";
+
+    public final long seed;
+    /** Number of ORE tiles. */
+    public final int oreCount;
+    /** Fraction of non-solid tiles in the cave region, the lower half of the world. */
+    public final double caveRatio;
+    /** Mean absolute height difference, in tiles, between neighbouring surface columns. */
+    public final double surfaceRoughness;
+    public final int treeCount;
+    public final int structureCount;
+    /** Wall-clock time spent constructing the world. */
+    public final double generationMillis;
+
+    private WorldStats(long seed, int oreCount, double caveRatio, double surfaceRoughness,
+                       int treeCount, int structureCount, double generationMillis) {
+        this.seed = seed;
+        this.oreCount = oreCount;
+        this.caveRatio = caveRatio;
+        this.surfaceRoughness = surfaceRoughness;
+        this.treeCount = treeCount;
+        this.structureCount = structureCount;
+        this.generationMillis = generationMillis;
+    }
+
+    /**
+     * Generates the world for a seed and measures it.
+     *
+     * @param seed world seed
+     * @return statistics of the generated world
+     */
+    public static WorldStats Generate(long seed) {
+        long start = System.nanoTime();
+        WorldGenerator worldGen = new WorldGenerator(seed);
+        double millis = (System.nanoTime() - start) / 1e6;
+        return Of(seed, worldGen, millis);
+    }
+
+    /**
+     * Measures an already generated world.
+     *
+     * @param seed             seed the world was generated from
+     * @param worldGen         the generated world
+     * @param generationMillis time its generation took
+     * @return statistics of the world
+     */
+    public static WorldStats Of(long seed, WorldGenerator worldGen, double generationMillis) {
+        int[][] world = worldGen.getWorld();
+        int width = world.length, height = world[0].length;
+        int ores = 0, open = 0;
+        for (int x = 0; x < width; x++) {
+            int[] column = world[x];
+            for (int y = 0; y < height; y++) {
+                if (column[y] == BlockType.ORE.ordinal())
+                    ores++;
+                if (y >= height / 2 && !BlockRegistry.IsSolid(column[y]))
+                    open++;
+            }
+        }
+        double caveRatio = open / (double) (width * (height - height / 2));
+
+        SurfaceMap surface = worldGen.getSurface();
+        long steps = 0;
+        for (int x = 1; x < width; x++)
+            steps += Math.abs(surface.getSurfaceY(x) - surface.getSurfaceY(x - 1));
+        double roughness = width > 1 ? steps / (double) (width - 1) : 0;
+
+        return new WorldStats(seed, ores, caveRatio, roughness, worldGen.getTrees().size(),
+                worldGen.getStructures().size(), generationMillis);
+    }
+
+    /**
+     * Formats the statistics as one CSV row in the order of {@link #CSV_HEADER}.
+     *
+     * @return the row, without a line terminator
+     */
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%d,%d,%.5f,%.4f,%d,%d,%.3f",
+                seed, oreCount, caveRatio, surfaceRoughness, treeCount, structureCount, generationMillis);
+    }
+}
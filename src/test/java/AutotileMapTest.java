@@ -0,0 +1,65 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockRegistry;
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.AutotileMap;
+
+import java.util.Random;
+
+public class AutotileMapTest {
+
+    private static int bruteForce(int[][] world, int x, int y) {
+        if (world[x][y] != BlockType.GRASS.ordinal())
+            return 0;
+        int v = 0;
+        if (x > 0 && !BlockRegistry.IsSolid(world[x - 1][y]))
+            v |= AutotileMap.OPEN_LEFT;
+        if (x + 1 < world.length && !BlockRegistry.IsSolid(world[x + 1][y]))
+            v |= AutotileMap.OPEN_RIGHT;
+        return v;
+    }
+
+    @Test
+    void grassEdgesFollowMinedNeighbours() {
+        int[][] world = new int[5][3];
+        for (int x = 0; x < 5; x++) {
+            world[x][1] = BlockType.GRASS.ordinal();
+            world[x][2] = BlockType.DIRT.ordinal();
+        }
+        AutotileMap map = new AutotileMap(5, 3);
+        map.build(world);
+        assertEquals(BlockType.GRASS.ordinal(), map.getRenderId(world, 2, 1));
+
+        world[3][1] = BlockType.AIR.ordinal();
+        map.onTileChanged(world, 3, 1);
+        assertEquals(BlockType.GRASS_RIGHT_AIR.ordinal(), map.getRenderId(world, 2, 1));
+        assertEquals(BlockType.GRASS_LEFT_AIR.ordinal(), map.getRenderId(world, 4, 1));
+
+        world[1][1] = BlockType.AIR.ordinal();
+        map.onTileChanged(world, 1, 1);
+        assertEquals(BlockType.GRASS_LR_AIR.ordinal(), map.getRenderId(world, 2, 1));
+        assertEquals(BlockType.GRASS_RIGHT_AIR.ordinal(), map.getRenderId(world, 0, 1),
+                "The world border does not count as open");
+        assertEquals(BlockType.DIRT.ordinal(), map.getRenderId(world, 2, 2));
+    }
+
+    @Test
+    void variantsMatchNeighbourScanAfterEdits() {
+        int width = 40, height = 20;
+        Random random = new Random(5);
+        int[][] world = new int[width][height];
+        AutotileMap map = new AutotileMap(width, height);
+        map.build(world);
+
+        int[] types = {BlockType.AIR.ordinal(), BlockType.GRASS.ordinal(), BlockType.DIRT.ordinal(), BlockType.WATER.ordinal()};
+        for (int edit = 0; edit < 2000; edit++) {
+            int x = random.nextInt(width), y = random.nextInt(height);
+            world[x][y] = types[random.nextInt(types.length)];
+            map.onTileChanged(world, x, y);
+        }
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                assertEquals(bruteForce(world, x, y), map.getVariant(x, y), "Tile " + x + "," + y);
+    }
+}
@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.BlockDamageMap;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class BlockDamageMapTest {
+
+    @Test
+    void damageAccumulatesAndHealsAfterTheDelay() {
+        BlockDamageMap map = new BlockDamageMap(16, 100, 10);
+        assertEquals(1, map.hit(3, 4, 1, 0));
+        assertEquals(3, map.hit(3, 4, 2, 50));
+        assertEquals(3, map.getDamage(3, 4, 150), "No healing within the delay");
+        assertEquals(2, map.getDamage(3, 4, 151));
+        assertEquals(1, map.getDamage(3, 4, 161));
+        assertEquals(0, map.getDamage(3, 4, 171));
+        assertEquals(3, map.hit(3, 4, 1, 155), "A hit starts from the healed damage");
+        assertEquals(0, map.getDamage(4, 3, 155));
+
+        map.update(1000);
+        assertEquals(0, map.size(), "Healed entries are dropped");
+    }
+
+    @Test
+    void fullMapEvictsTheTileHitLongestAgo() {
+        BlockDamageMap map = new BlockDamageMap(4, 1000, 1000);
+        for (int i = 0; i < 4; i++)
+            map.hit(i, 0, 1, i);
+        map.hit(0, 0, 1, 10);                // tile 0 is the most recently hit now
+        map.hit(9, 9, 1, 11);
+        assertEquals(4, map.size());
+        assertEquals(0, map.getDamage(1, 0, 11), "The oldest entry is evicted");
+        assertEquals(2, map.getDamage(0, 0, 11));
+        assertEquals(1, map.getDamage(9, 9, 11));
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomHitsAndRemovals() {
+        BlockDamageMap map = new BlockDamageMap(512, 1 << 30, 1);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(45);
+        for (int i = 0; i < 100_000; i++) {
+            int x = random.nextInt(25) - 5, y = random.nextInt(20);     // 500 keys, never full
+            long key = (long) x << 32 | y;
+            if (random.nextInt(3) == 0) {
+                map.remove(x, y);
+                expected.remove(key);
+            } else {
+                expected.merge(key, 1, Integer::sum);
+                assertEquals(expected.get(key), map.hit(x, y, 1, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        int[] visited = {0};
+        map.forEach(0, (x, y, d) -> {
+            assertEquals(expected.get((long) x << 32 | y), d);
+            visited[0]++;
+        });
+        assertEquals(expected.size(), visited[0]);
+    }
+
+    @Test
+    void blocksBreakAfterTheirHardnessInHits() {
+        WorldGenerator worldGen = new WorldGenerator(45);
+        int[][] world = worldGen.getWorld();
+        worldGen.setBlock(500, 60, BlockType.ORE);
+        assertFalse(worldGen.hitBlock(500, 60));
+        assertFalse(worldGen.hitBlock(500, 60));
+        assertEquals(2, worldGen.getDamage(500, 60));
+        assertTrue(worldGen.hitBlock(500, 60), "Ore breaks on the third hit");
+        assertEquals(0, worldGen.getDamage(500, 60));
+
+        worldGen.hitBlock(500, 60);
+        worldGen.setBlock(500, 60, BlockType.DIRT);
+        assertEquals(0, worldGen.getDamage(500, 60), "Replacing a block clears its damage");
+        assertTrue(worldGen.hitBlock(500, 60));
+        worldGen.destroyBlock(500, 60);
+        assertFalse(worldGen.hitBlock(500, 60), "Air cannot be mined");
+        assertEquals(BlockType.AIR.ordinal(), world[500][60]);
+    }
+}
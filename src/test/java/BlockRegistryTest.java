@@ -0,0 +1,58 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.Game;
+import cz.cvut.game.terroria.entities.Mushroom;
+import cz.cvut.game.terroria.entities.Player;
+import cz.cvut.game.terroria.utils.BlockRegistry;
+import cz.cvut.game.terroria.utils.BlockType;
+
+import java.awt.geom.Rectangle2D;
+
+public class BlockRegistryTest {
+
+    @Test
+    void itemsAreNeitherSolidNorPlaceable() {
+        for (BlockType item : new BlockType[]{BlockType.SWORD, BlockType.MUSHROOM_MEAT, BlockType.SHIRT_ICON,
+                BlockType.PANTS_ICON, BlockType.SHOES_ICON}) {
+            assertFalse(BlockRegistry.IsSolid(item.getId()), item + " should not be solid");
+            assertFalse(BlockRegistry.IsPlaceable(item.getId()), item + " should not be placeable");
+        }
+        assertFalse(BlockRegistry.IsSolid(BlockType.AIR.getId()));
+        assertTrue(BlockRegistry.IsSolid(BlockType.DIRT.getId()));
+        assertTrue(BlockRegistry.IsPlaceable(BlockType.PLANK_RED.getId()));
+    }
+
+    @Test
+    void everyMinableBlockDropsSomething() {
+        for (BlockType type : BlockType.values()) {
+            int id = type.getId();
+            if (BlockRegistry.GetHardness(id) > 0)
+                assertNotEquals(BlockType.AIR.getId(), BlockRegistry.GetDrop(id), type + " should drop an item");
+        }
+        assertEquals(BlockType.GRASS.getId(), BlockRegistry.GetDrop(BlockType.GRASS_LR_AIR.getId()));
+    }
+
+    @Test
+    void texturesAreResolvedOnce() {
+        assertNull(BlockRegistry.GetTexture(BlockType.AIR.getId()));
+        assertSame(BlockType.SWORD.getTile(), BlockType.SWORD.getTile());
+        assertSame(BlockRegistry.GetTexture(BlockType.DIRT.getId()), BlockType.DIRT.getTile());
+    }
+
+    @Test
+    void enemiesFallThroughNonSolidItemTiles() {
+        int[][] lvlData = new int[20][40];
+        int itemRow = 10, floorRow = 30;
+        for (int x = 0; x < lvlData.length; x++) {
+            lvlData[x][itemRow] = BlockType.SWORD.getId();
+            lvlData[x][floorRow] = BlockType.DIRT.getId();
+        }
+        Mushroom m = new Mushroom(5 * Game.TILES_SIZE, 0);
+        Player player = new Player(0, 0, 80, 64, null);
+        for (int t = 0; t < 3 * Game.UPS_SET; t++)
+            m.update(lvlData, player);
+        Rectangle2D.Float hb = m.getHitbox();
+        assertEquals(floorRow * Game.TILES_SIZE, hb.y + hb.height, 1e-3f);
+    }
+}
@@ -0,0 +1,125 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.Game;
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.BlockUpdateScheduler;
+import cz.cvut.game.terroria.world.FluidSimulator;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BlockUpdateSchedulerTest {
+
+    @Test
+    void runsOnlyDueUpdatesInTickOrder() {
+        BlockUpdateScheduler scheduler = new BlockUpdateScheduler(10, 10);
+        List<String> ran = new ArrayList<>();
+        BlockUpdateScheduler.Handler handler = (x, y, action) -> ran.add(x + "," + y + ":" + action);
+
+        scheduler.schedule(5, 5, 2, 3);
+        scheduler.schedule(1, 1, 1, 1);
+        scheduler.schedule(2, 2, 3, 3);
+        scheduler.schedule(20, 2, 1, 1);
+
+        assertEquals(1, scheduler.update(handler, 100));
+        assertEquals(List.of("1,1:1"), ran);
+        assertEquals(0, scheduler.update(handler, 100));
+        assertEquals(2, scheduler.update(handler, 100));
+        assertEquals(List.of("1,1:1", "2,2:3", "5,5:2"), ran);
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void budgetCarriesOverflowToLaterTicks() {
+        BlockUpdateScheduler scheduler = new BlockUpdateScheduler(100, 100);
+        for (int x = 0; x < 100; x++)
+            scheduler.schedule(x, 0, 1, 1);
+        int[] count = new int[1];
+        BlockUpdateScheduler.Handler handler = (x, y, action) -> count[0]++;
+
+        assertEquals(30, scheduler.update(handler, 30));
+        assertEquals(30, scheduler.update(handler, 30));
+        assertEquals(30, scheduler.update(handler, 30));
+        assertEquals(10, scheduler.update(handler, 30));
+        assertEquals(100, count[0]);
+    }
+
+    @Test
+    void unsupportedDirtFallsUntilItLands() {
+        WorldGenerator worldGen = new WorldGenerator(3);
+        worldGen.getRandomTicker().setSamplesPerChunk(0);
+        int[][] world = worldGen.getWorld();
+        int x = 500;
+        int surfaceY = worldGen.getSurface().getSurfaceY(x);
+        world[x][2] = BlockType.AIR.ordinal();
+        worldGen.setBlock(x, 2, BlockType.DIRT);
+
+        for (int t = 0; t < 2 * Game.UPS_SET; t++)
+            worldGen.update(x);
+
+        assertEquals(BlockType.AIR.ordinal(), world[x][2]);
+        assertEquals(BlockType.DIRT.ordinal(), world[x][surfaceY - 1], "Dirt should rest on the old surface");
+        assertEquals(surfaceY - 1, worldGen.getSurface().getSurfaceY(x));
+    }
+
+    private static WorldGenerator quietWorld() {
+        WorldGenerator worldGen = new WorldGenerator(3);
+        worldGen.getRandomTicker().setSamplesPerChunk(0);
+        return worldGen;
+    }
+
+    private static void settle(WorldGenerator worldGen, int x) {
+        for (int t = 0; t < 2 * Game.UPS_SET; t++)
+            worldGen.update(x);
+    }
+
+    @Test
+    void miningUnderACeilingLeavesItHanging() {
+        WorldGenerator worldGen = quietWorld();
+        int[][] world = worldGen.getWorld();
+        int x = 500, surfaceY = worldGen.getSurface().getSurfaceY(x);
+        for (int cx = x - 2; cx <= x + 2; cx++)
+            for (int y = 4; y <= 6; y++)
+                worldGen.setBlock(cx, y, BlockType.DIRT);
+        settle(worldGen, x);
+
+        for (int cx = x - 1; cx <= x + 1; cx++)
+            worldGen.destroyBlock(cx, 6);
+        settle(worldGen, x);
+        for (int cx = x - 2; cx <= x + 2; cx++)
+            assertEquals(BlockType.DIRT.ordinal(), world[cx][5], "The tunnel ceiling is held from the side");
+        for (int cx = x - 1; cx <= x + 1; cx++)
+            assertEquals(BlockType.AIR.ordinal(), world[cx][6], "Nothing falls into the tunnel");
+
+        worldGen.destroyBlock(x - 1, 5);
+        worldGen.destroyBlock(x - 1, 4);
+        worldGen.destroyBlock(x + 1, 5);
+        worldGen.destroyBlock(x + 1, 4);
+        settle(worldGen, x);
+        assertEquals(BlockType.AIR.ordinal(), world[x][4]);
+        assertEquals(BlockType.AIR.ordinal(), world[x][5]);
+        assertEquals(BlockType.DIRT.ordinal(), world[x][surfaceY - 1], "A pillar cut loose on both sides drops");
+        assertEquals(BlockType.DIRT.ordinal(), world[x][surfaceY - 2]);
+    }
+
+    @Test
+    void fallingDirtDisplacesWater() {
+        WorldGenerator worldGen = quietWorld();
+        int[][] world = worldGen.getWorld();
+        FluidSimulator water = worldGen.getWater();
+        int x = 500, floor = 12;
+        worldGen.setBlock(x - 1, floor - 1, BlockType.ORE);
+        worldGen.setBlock(x + 1, floor - 1, BlockType.ORE);
+        worldGen.setBlock(x, floor, BlockType.ORE);
+        water.setLevel(world, x, floor - 1, FluidSimulator.MAX_LEVEL);
+        long fluid = water.getTotalFluid();
+
+        worldGen.setBlock(x, 3, BlockType.DIRT);
+        settle(worldGen, x);
+        assertEquals(BlockType.DIRT.ordinal(), world[x][floor - 1], "The dirt sank to the bottom of the cup");
+        assertEquals(BlockType.AIR.ordinal(), world[x][3]);
+        assertEquals(fluid, water.getTotalFluid(), "The water was pushed up, not deleted");
+    }
+}
@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.world.CaveGenerator;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+public class CaveGeneratorTest {
+
+    @Test
+    void parallelBandsMatchTheSequentialResult() {
+        CaveGenerator caves = new CaveGenerator(WorldGenerator.WIDTH_TILES, 37, 75);
+        for (long seed = 0; seed < 5; seed++)
+            assertArrayEquals(caves.generate(seed, false), caves.generate(seed, true), "Seed " + seed);
+        assertArrayEquals(new WorldGenerator(46).getWorld(), new WorldGenerator(46).getWorld());
+    }
+
+    @Test
+    void smoothingLeavesNoIsolatedSpecks() {
+        int width = 300, rows = 40;
+        byte[] cells = new CaveGenerator(width, 30, 30 + rows).generate(46, false);
+        int open = 0;
+        for (int y = 0; y < rows; y++)
+            for (int x = 0; x < width; x++) {
+                if (cells[y * width + x] == 0)
+                    continue;
+                open++;
+                int openNeighbours = 0;
+                for (int dy = -1; dy <= 1; dy++)
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx, ny = y + dy;
+                        if ((dx != 0 || dy != 0) && nx >= 0 && nx < width && ny >= 0 && ny < rows
+                                && cells[ny * width + nx] == 1)
+                            openNeighbours++;
+                    }
+                assertTrue(openNeighbours > 0, "Open tile " + x + "," + y + " stands alone");
+            }
+        assertTrue(open > 0, "Some caves are carved");
+    }
+
+    @Test
+    void benchmarkSequentialAgainstParallel() {
+        CaveGenerator caves = new CaveGenerator(WorldGenerator.WIDTH_TILES, 37, 75);
+        CaveGenerator large = new CaveGenerator(4 * WorldGenerator.WIDTH_TILES, 0, 150);
+        for (int i = 0; i < 20; i++) {
+            caves.generate(i, false);
+            caves.generate(i, true);
+        }
+        for (CaveGenerator generator : new CaveGenerator[] {caves, large}) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < 20; i++)
+                generator.generate(i, false);
+            long t1 = System.nanoTime();
+            for (int i = 0; i < 20; i++)
+                generator.generate(i, true);
+            long t2 = System.nanoTime();
+            System.out.printf("[BENCH] caves %s: sequential %.2f ms, parallel %.2f ms%n",
+                    generator == caves ? "world" : "4x wide, 2x deep", (t1 - t0) / 20e6, (t2 - t1) / 20e6);
+        }
+    }
+}
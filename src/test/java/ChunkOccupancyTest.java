@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.ChunkOccupancy;
+import cz.cvut.game.terroria.world.RandomTicker;
+import cz.cvut.game.terroria.world.WorldEdit;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.util.Random;
+
+public class ChunkOccupancyTest {
+
+    @Test
+    void incrementalCountsMatchARecount() {
+        WorldGenerator worldGen = new WorldGenerator(47);
+        worldGen.getRandomTicker().setSamplesPerChunk(0);
+        Random random = new Random(47);
+        for (int i = 0; i < 2000; i++) {
+            int x = random.nextInt(WorldGenerator.WIDTH_TILES), y = random.nextInt(WorldGenerator.HEIGHT_TILES);
+            switch (random.nextInt(3)) {
+                case 0 -> worldGen.destroyBlock(x, y);
+                case 1 -> worldGen.setBlock(x, y, BlockType.DIRT);
+                default -> worldGen.getWater().setLevel(worldGen.getWorld(), x, y, 4);
+            }
+        }
+        WorldEdit edit = worldGen.beginEdit();
+        edit.mineArea(100, 20, 140, 60);
+        edit.commit();
+        for (int i = 0; i < 200; i++)
+            worldGen.update(120);
+
+        ChunkOccupancy actual = worldGen.getOccupancy();
+        ChunkOccupancy expected = new ChunkOccupancy(WorldGenerator.WIDTH_TILES, WorldGenerator.HEIGHT_TILES);
+        expected.build(worldGen.getWorld());
+        for (int cx = 0; cx < expected.getChunkColumns(); cx++)
+            for (int cy = 0; cy < expected.getChunkRows(); cy++) {
+                assertEquals(expected.getAirCount(cx, cy), actual.getAirCount(cx, cy), "Air in chunk " + cx + "," + cy);
+                assertEquals(expected.getSolidCount(cx, cy), actual.getSolidCount(cx, cy), "Solid in chunk " + cx + "," + cy);
+            }
+    }
+
+    @Test
+    void statesFollowEdits() {
+        int[][] world = new int[40][20];
+        for (int x = 0; x < 40; x++)
+            for (int y = 16; y < 20; y++)
+                world[x][y] = BlockType.DIRT.ordinal();
+        ChunkOccupancy occupancy = new ChunkOccupancy(40, 20);
+        occupancy.build(world);
+        assertEquals(ChunkOccupancy.EMPTY, occupancy.getState(0, 0));
+        assertEquals(ChunkOccupancy.SOLID, occupancy.getState(0, 1), "A partial chunk at the edge is full at 4 rows");
+        assertEquals(8 * 4, occupancy.getTileCount(2, 1));
+
+        world[3][4] = BlockType.WATER.ordinal();
+        occupancy.onTileChanged(3, 4, BlockType.AIR.ordinal(), BlockType.WATER.ordinal());
+        assertEquals(ChunkOccupancy.MIXED, occupancy.getState(0, 0), "Water is neither air nor solid");
+        world[3][4] = BlockType.AIR.ordinal();
+        occupancy.onTileChanged(3, 4, BlockType.WATER.ordinal(), BlockType.AIR.ordinal());
+        assertEquals(ChunkOccupancy.EMPTY, occupancy.getState(0, 0));
+    }
+
+    @Test
+    void randomTicksSkipEmptyChunks() {
+        WorldGenerator worldGen = new WorldGenerator(47);
+        ChunkOccupancy occupancy = worldGen.getOccupancy();
+        RandomTicker ticker = new RandomTicker(WorldGenerator.WIDTH_TILES, WorldGenerator.HEIGHT_TILES, 1);
+        int all = ticker.tick(500, (x, y) -> { });
+        ticker.setOccupancy(occupancy);
+        int sampled = ticker.tick(500, (x, y) ->
+                assertFalse(occupancy.isEmpty(x / WorldGenerator.CHUNK_SIZE, y / WorldGenerator.CHUNK_SIZE)));
+        assertTrue(sampled < all, "The sky chunks are skipped");
+    }
+}
@@ -0,0 +1,167 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.ChunkSeqLocks;
+import cz.cvut.game.terroria.world.WorldEdit;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static cz.cvut.game.terroria.world.WorldGenerator.CHUNK_SIZE;
+
+public class ChunkSeqLocksTest {
+
+    private static final int READERS = 3;
+
+    /** Whether every tile of the copy holds the same value, as every write leaves it. */
+    private static boolean uniform(int[] chunk) {
+        for (int v : chunk)
+            if (v != chunk[0])
+                return false;
+        return true;
+    }
+
+    @Test
+    void readersNeverSeeAHalfWrittenChunk() throws InterruptedException {
+        int[][] grid = new int[CHUNK_SIZE][CHUNK_SIZE];
+        ChunkSeqLocks locks = new ChunkSeqLocks(CHUNK_SIZE, CHUNK_SIZE);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong validated = new AtomicLong(), retried = new AtomicLong(), tornUnlocked = new AtomicLong();
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread reader = new Thread(() -> {
+                int[] copy = new int[CHUNK_SIZE * CHUNK_SIZE];
+                while (!done.get()) {
+                    long stamp = locks.beginRead(0, 0);
+                    for (int x = 0; x < CHUNK_SIZE; x++)
+                        System.arraycopy(grid[x], 0, copy, x * CHUNK_SIZE, CHUNK_SIZE);
+                    boolean consistent = uniform(copy);
+                    if (!locks.validate(0, 0, stamp)) {
+                        retried.incrementAndGet();
+                        if (!consistent)
+                            tornUnlocked.incrementAndGet();
+                    } else if (!consistent) {
+                        failure.compareAndSet(null, "Validated a torn chunk at stamp " + stamp);
+                    } else {
+                        validated.incrementAndGet();
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        long end = System.nanoTime() + 300_000_000L;
+        int value = 0;
+        while (System.nanoTime() < end || validated.get() == 0) {
+            value++;
+            locks.beginWrite(0, 0);
+            for (int[] column : grid)
+                Arrays.fill(column, value);
+            locks.endWrite(0, 0);
+        }
+        done.set(true);
+        for (Thread reader : readers)
+            reader.join();
+
+        assertNull(failure.get(), failure.get());
+        assertEquals(2L * value, locks.getVersion(0, 0), "Every write bumps the counter by two");
+        System.out.printf("[BENCH] seqlock: %d writes, %d consistent reads, %d retries (%d of them torn)%n",
+                value, validated.get(), retried.get(), tornUnlocked.get());
+    }
+
+    @Test
+    void worldReadsSeeWholeBatchesWhileTheGameThreadEdits() throws InterruptedException {
+        WorldGenerator worldGen = new WorldGenerator(48);
+        int cx = 10, cy = 3;
+        WorldEdit first = worldGen.beginEdit();
+        for (int x = 0; x < CHUNK_SIZE; x++)
+            for (int y = 0; y < CHUNK_SIZE; y++)
+                first.set(cx * CHUNK_SIZE + x, cy * CHUNK_SIZE + y, BlockType.DIRT);
+        first.commit();
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong reads = new AtomicLong();
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread reader = new Thread(() -> {
+                int[] copy = new int[CHUNK_SIZE * CHUNK_SIZE];
+                long lastVersion = -1;
+                while (!done.get()) {
+                    long version = worldGen.readChunk(cx, cy, copy);
+                    if (!uniform(copy))
+                        failure.compareAndSet(null, "Torn chunk at version " + version);
+                    if ((version & 1) != 0 || version < lastVersion)
+                        failure.compareAndSet(null, "Bad version " + version + " after " + lastVersion);
+                    lastVersion = version;
+                    reads.incrementAndGet();
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        int batches = 0;
+        long end = System.nanoTime() + 300_000_000L;
+        while (System.nanoTime() < end || reads.get() == 0) {
+            BlockType type = batches++ % 2 == 0 ? BlockType.ORE : BlockType.DIRT;
+            WorldEdit edit = worldGen.beginEdit();
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                for (int y = 0; y < CHUNK_SIZE; y++) {
+                    edit.set(cx * CHUNK_SIZE + x, cy * CHUNK_SIZE + y, type);
+                    if (x == 5 && y == 5)
+                        worldGen.setBlock(cx * CHUNK_SIZE + x, cy * CHUNK_SIZE + y, type);  // nested in the batch
+                }
+            }
+            assertEquals(1, worldGen.getSeqLocks().getVersion(cx, cy) & 1, "The chunk stays locked until the commit");
+            edit.commit();
+        }
+        done.set(true);
+        for (Thread reader : readers)
+            reader.join();
+
+        assertNull(failure.get(), failure.get());
+        assertEquals(0, worldGen.getSeqLocks().getVersion(cx, cy) & 1);
+        System.out.printf("[BENCH] world chunk reads: %d batches, %d consistent reads%n", batches, reads.get());
+    }
+
+    @Test
+    void editsLockTheChunksTheyRelight() {
+        WorldGenerator worldGen = new WorldGenerator(48, false);
+        worldGen.getRandomTicker().setSamplesPerChunk(0);
+        ChunkSeqLocks locks = worldGen.getSeqLocks();
+        int x = 20 * CHUNK_SIZE, y = 2;
+        long[] before = new long[5];
+        for (int d = -2; d <= 2; d++)
+            before[d + 2] = locks.getVersion(x / CHUNK_SIZE + d, locks.getChunkRows() - 1);
+        worldGen.setBlock(x, y, BlockType.DIRT);
+        for (int d = -1; d <= 1; d++)
+            assertTrue(locks.getVersion(x / CHUNK_SIZE + d, locks.getChunkRows() - 1) > before[d + 2],
+                    "The light below the edit is written under the lock, chunk column " + d);
+        assertEquals(before[0], locks.getVersion(x / CHUNK_SIZE - 2, locks.getChunkRows() - 1));
+        assertEquals(before[4], locks.getVersion(x / CHUNK_SIZE + 2, locks.getChunkRows() - 1));
+        for (int cx = 0; cx < locks.getChunkColumns(); cx++)
+            for (int cy = 0; cy < locks.getChunkRows(); cy++)
+                assertEquals(0, locks.getVersion(cx, cy) & 1, "Every section is closed again");
+    }
+
+    @Test
+    void unbalancedEndIsRejected() {
+        ChunkSeqLocks locks = new ChunkSeqLocks(40, 40);
+        locks.beginWrite(1, 1);
+        locks.beginWrite(1, 1);
+        locks.endWrite(1, 1);
+        assertEquals(1, locks.getVersion(1, 1), "Nested sections keep the chunk locked");
+        locks.endWrite(1, 1);
+        assertEquals(2, locks.getVersion(1, 1));
+        assertThrows(IllegalStateException.class, () -> locks.endWrite(1, 1));
+    }
+}
@@ -2,12 +2,15 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import cz.cvut.game.terroria.entities.EnemyManager;
+import cz.cvut.game.terroria.entities.EnemySpawner;
 import cz.cvut.game.terroria.entities.Mushroom;
+import cz.cvut.game.terroria.entities.Player;
 import cz.cvut.game.terroria.Game;
 import cz.cvut.game.terroria.utils.BlockType;
 import static cz.cvut.game.terroria.utils.Constants.EnemyConstants.MUSHROOM_HEIGHT_DEFAULT;
 
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
 import java.util.List;
 
 public class EnemyManagerTest {
@@ -51,4 +54,136 @@ public class EnemyManagerTest {
                     "Mushroom should spawn just above the first solid block");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTwoPhaseUpdateMatchesSerialUpdate() {
+        int width = 200, height = 20, ground = 10;
+        int[][] lvlData = new int[width][height];
+        for (int x = 0; x < width; x++)
+            for (int y = ground; y < height; y++)
+                lvlData[x][y] = BlockType.DIRT.ordinal();
+        lvlData[60][ground - 1] = BlockType.DIRT.ordinal();
+
+        float spawnY = ground * Game.TILES_SIZE - 32 * Game.SCALE;
+        List<Mushroom> serial = new ArrayList<>(), twoPhase = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            float x = (i % (width - 2) + 1) * Game.TILES_SIZE;
+            serial.add(new Mushroom(x, spawnY));
+            twoPhase.add(new Mushroom(x, spawnY));
+        }
+        float playerY = ground * Game.TILES_SIZE - 42 * Game.SCALE;
+        Player serialPlayer = new Player(50 * Game.TILES_SIZE, playerY, 80, 64, null);
+        Player twoPhasePlayer = new Player(50 * Game.TILES_SIZE, playerY, 80, 64, null);
+        serialPlayer.loadLvlData(lvlData);
+        twoPhasePlayer.loadLvlData(lvlData);
+
+        for (int t = 0; t < 400; t++) {
+            if (t % 50 == 0) {
+                serial.get(t).hurt(10);
+                twoPhase.get(t).hurt(10);
+            }
+            for (Mushroom m : serial)
+                m.update(lvlData, serialPlayer);
+            EnemyManager.UpdateMushrooms(twoPhase, lvlData, twoPhasePlayer);
+        }
+
+        for (int i = 0; i < serial.size(); i++) {
+            Rectangle2D.Float a = serial.get(i).getHitbox(), b = twoPhase.get(i).getHitbox();
+            assertEquals(a.x, b.x, "x of mushroom " + i);
+            assertEquals(a.y, b.y, "y of mushroom " + i);
+            assertEquals(serial.get(i).getEnemyState(), twoPhase.get(i).getEnemyState());
+            assertEquals(serial.get(i).isActive(), twoPhase.get(i).isActive());
+        }
+        assertTrue(serialPlayer.getCurrentHealth() < 100, "Mushrooms should have attacked the player");
+        assertEquals(serialPlayer.getCurrentHealth(), twoPhasePlayer.getCurrentHealth());
+        assertEquals(serialPlayer.getInventory().countOf(BlockType.MUSHROOM_MEAT),
+                twoPhasePlayer.getInventory().countOf(BlockType.MUSHROOM_MEAT));
+    }
+
+    @Test
+    void testSpawnerRecyclesDeadMushroomsNearPlayer() {
+        int width = 300, height = 20, ground = 10;
+        int[][] lvlData = new int[width][height];
+        for (int x = 0; x < width; x++)
+            lvlData[x][ground] = BlockType.DIRT.ordinal();
+        Player player = new Player(150 * Game.TILES_SIZE, 0, 80, 64, null);
+
+        EnemySpawner spawner = new EnemySpawner();
+        spawner.setTargetPopulation(5);
+        spawner.setSpawnBudget(2);
+        List<Mushroom> live = new ArrayList<>();
+        spawner.update(live, lvlData, player);
+        assertEquals(2, live.size(), "Spawns are limited by the per-tick budget");
+        for (int t = 0; t < 5; t++)
+            spawner.update(live, lvlData, player);
+        assertEquals(5, spawner.getPopulation());
+
+        Mushroom dead = live.get(1);
+        dead.hurt(100);
+        for (int t = 0; t < 15 * 25; t++)
+            dead.update(lvlData, player);
+        assertFalse(dead.isActive());
+
+        spawner.update(live, lvlData, player);
+        assertEquals(5, live.size());
+        assertTrue(live.contains(dead), "The dead mushroom should be respawned from the pool");
+        assertTrue(dead.isActive());
+        assertEquals(1, spawner.getPoolHits());
+        assertEquals(1 / 6.0, spawner.getPoolHitRate(), 1e-9);
+    }
+
+    @Test
+    void testSpawnerRetiresEnemiesLeftBehind() {
+        int width = 1000, height = 20, ground = 10;
+        int[][] lvlData = new int[width][height];
+        for (int x = 0; x < width; x++)
+            lvlData[x][ground] = BlockType.DIRT.ordinal();
+        Player player = new Player(20 * Game.TILES_SIZE, 0, 80, 64, null);
+
+        EnemySpawner spawner = new EnemySpawner();
+        List<Mushroom> live = new ArrayList<>();
+        for (int x = 10; x < width; x += 20)
+            live.add(spawner.obtain(x * Game.TILES_SIZE, ground * Game.TILES_SIZE - MUSHROOM_HEIGHT_DEFAULT));
+        // the initial spawns within reach, plus the target population near the player and
+        // as many again trailing behind it before they are retired
+        int bound = 2 * (EnemySpawner.DEFAULT_SPAWN_RADIUS + EnemySpawner.DEFAULT_DESPAWN_MARGIN) / 20 + 1
+                + 2 * EnemySpawner.DEFAULT_POPULATION;
+        for (int t = 0; t < 960; t++) {
+            player.getHitbox().x = (20 + t) * Game.TILES_SIZE;
+            spawner.update(live, lvlData, player);
+            int playerTileX = 20 + t;
+            for (Mushroom m : live)
+                assertTrue(Math.abs(m.getHitbox().x / Game.TILES_SIZE - playerTileX)
+                        <= EnemySpawner.DEFAULT_SPAWN_RADIUS + EnemySpawner.DEFAULT_DESPAWN_MARGIN + 1,
+                        "Enemies far behind the player are retired");
+            assertTrue(live.size() <= bound, "Live count " + live.size() + " at tick " + t);
+        }
+        assertTrue(spawner.getPoolHits() > 0, "Retired enemies are reused for new spawns");
+    }
+
+    @Test
+    void testSeedKeepsOnlySpawnsInsideTheRing() {
+        int width = 1000, ground = 10, playerTileX = 500;
+        float[] points = new float[2 * width / 5];
+        for (int i = 0; i < width / 5; i++) {
+            points[2 * i] = i * 5 * Game.TILES_SIZE;
+            points[2 * i + 1] = ground * Game.TILES_SIZE - MUSHROOM_HEIGHT_DEFAULT;
+        }
+        EnemySpawner spawner = new EnemySpawner();
+        spawner.setTargetPopulation(100);
+        List<Mushroom> live = new ArrayList<>();
+        spawner.seed(live, points, playerTileX);
+        // columns 420..460 and 540..580 in steps of 5
+        assertEquals(18, live.size());
+        for (Mushroom m : live) {
+            int distance = Math.abs((int) (m.getHitbox().x / Game.TILES_SIZE) - playerTileX);
+            assertTrue(distance >= EnemySpawner.DEFAULT_MIN_SPAWN_DISTANCE
+                    && distance <= EnemySpawner.DEFAULT_SPAWN_RADIUS, "Seeded at distance " + distance);
+        }
+
+        spawner.releaseAll(live);
+        spawner.setTargetPopulation(4);
+        spawner.seed(live, points, playerTileX);
+        assertEquals(4, live.size(), "Seeding stops at the target population");
+    }
+}
@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.Game;
+import cz.cvut.game.terroria.entities.EnemyStore;
+import cz.cvut.game.terroria.entities.Mushroom;
+import cz.cvut.game.terroria.entities.Player;
+import cz.cvut.game.terroria.utils.BlockType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EnemyStoreBenchmarkTest {
+
+    private static final int ENEMIES = 10_000;
+    private static final int WIDTH = 1000, HEIGHT = 75, GROUND = 40;
+    private static final int WARMUP_TICKS = 200, TICKS = 400;
+    /** Tick budget at 200 UPS. */
+    private static final double TICK_BUDGET_MS = 1000.0 / 200;
+
+    private static int[][] flatWorld() {
+        int[][] lvlData = new int[WIDTH][HEIGHT];
+        for (int x = 0; x < WIDTH; x++)
+            for (int y = GROUND; y < HEIGHT; y++)
+                lvlData[x][y] = BlockType.DIRT.ordinal();
+        return lvlData;
+    }
+
+    private static float spawnX(int i) {
+        return (i % (WIDTH - 2) + 1) * Game.TILES_SIZE;
+    }
+
+    private static float spawnY() {
+        return GROUND * Game.TILES_SIZE - EnemyStore.HITBOX_HEIGHT;
+    }
+
+    @Test
+    void storeMovesEnemiesLikeMushrooms() {
+        int[][] lvlData = flatWorld();
+        EnemyStore store = new EnemyStore(1);
+        store.add(spawnX(500), spawnY());
+        Mushroom m = new Mushroom(spawnX(500), spawnY());
+        Player player = new Player(0, 0, 80, 64, null);
+        for (int t = 0; t < 100; t++) {
+            store.update(lvlData, player.getHitbox().x);
+            m.update(lvlData, player);
+        }
+        assertEquals(m.getHitbox().x, store.getX(0), 1e-3f);
+        assertEquals(m.getHitbox().y, store.getY(0), 1e-3f);
+    }
+
+    @Test
+    void storeGrowsAndCompactsDeadEnemies() {
+        EnemyStore store = new EnemyStore(1);
+        for (int i = 0; i < 10; i++)
+            store.add(spawnX(i * 3), spawnY());
+        assertEquals(10, store.size());
+        var box = new java.awt.geom.Rectangle2D.Float(store.getX(4), store.getY(4), 1, 1);
+        assertTrue(store.checkEnemyHit(box, 100));
+        int[][] lvlData = flatWorld();
+        for (int t = 0; t < 25 * 15; t++)
+            store.update(lvlData, 0);
+        assertEquals(9, store.size());
+    }
+
+    @Test
+    void benchmarkTenThousandEnemies() {
+        int[][] lvlData = flatWorld();
+        Player player = new Player(0, 0, 80, 64, null);
+
+        List<Mushroom> objects = new ArrayList<>(ENEMIES);
+        EnemyStore store = new EnemyStore(ENEMIES);
+        for (int i = 0; i < ENEMIES; i++) {
+            objects.add(new Mushroom(spawnX(i), spawnY()));
+            store.add(spawnX(i), spawnY());
+        }
+
+        double objectMs = measure(() -> {
+            for (Mushroom m : objects)
+                m.update(lvlData, player);
+        });
+        double storeMs = measure(() -> store.update(lvlData, player.getHitbox().x));
+
+        System.out.printf("[BENCH] %d enemies: object model %.3f ms/tick, struct-of-arrays %.3f ms/tick%n",
+                ENEMIES, objectMs, storeMs);
+        assertEquals(ENEMIES, store.size());
+        assertTrue(storeMs < TICK_BUDGET_MS,
+                "Store update should fit the 200 UPS tick budget, took " + storeMs + " ms");
+    }
+
+    private static double measure(Runnable tick) {
+        for (int t = 0; t < WARMUP_TICKS; t++)
+            tick.run();
+        long start = System.nanoTime();
+        for (int t = 0; t < TICKS; t++)
+            tick.run();
+        return (System.nanoTime() - start) / 1e6 / TICKS;
+    }
+}
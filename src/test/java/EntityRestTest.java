@@ -0,0 +1,167 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.Game;
+import cz.cvut.game.terroria.entities.Entity;
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.ChunkEditStamps;
+import cz.cvut.game.terroria.world.WorldEdit;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.util.Random;
+
+public class EntityRestTest {
+
+    /** Bare entity exposing the floor check. */
+    private static class Body extends Entity {
+        Body(float x, float y, boolean fixedPoint, ChunkEditStamps stamps) {
+            super(x, y, Game.TILES_SIZE, 2 * Game.TILES_SIZE);
+            initHitbox(x, y, width, height);
+            setFixedPoint(fixedPoint);
+            setEditStamps(stamps);
+        }
+
+        boolean onFloor(int[][] lvlData) {
+            return isOnFloor(lvlData);
+        }
+
+        void moveTo(float x, float y) {
+            hitbox.x = x;
+            hitbox.y = y;
+            loadFixedPosition();
+        }
+    }
+
+    private static WorldGenerator world() {
+        WorldGenerator worldGen = new WorldGenerator(50, false);
+        worldGen.getRandomTicker().setSamplesPerChunk(0);
+        return worldGen;
+    }
+
+    /** A column whose right neighbour has the same surface, so a body can stand across both. */
+    private static int flatColumn(WorldGenerator worldGen, int from) {
+        for (int x = from; ; x++)
+            if (worldGen.getSurface().getSurfaceY(x) == worldGen.getSurface().getSurfaceY(x + 1)
+                    && worldGen.getSurface().getSurfaceY(x) < WorldGenerator.HEIGHT_TILES)
+                return x;
+    }
+
+    private static Body standOn(WorldGenerator worldGen, int column, boolean fixedPoint, ChunkEditStamps stamps) {
+        int row = worldGen.getSurface().getSurfaceY(column);
+        return new Body(column * Game.TILES_SIZE + Game.TILES_SIZE / 2f, (row - 2) * Game.TILES_SIZE, fixedPoint, stamps);
+    }
+
+    @Test
+    void restingBodyIgnoresTheGridUntilAnEditWakesIt() {
+        for (boolean fixedPoint : new boolean[]{false, true}) {
+            WorldGenerator worldGen = world();
+            int[][] world = worldGen.getWorld();
+            int column = flatColumn(worldGen, 200), row = worldGen.getSurface().getSurfaceY(column);
+            Body body = standOn(worldGen, column, fixedPoint, worldGen.getEditStamps());
+            assertTrue(body.onFloor(world));
+
+            world[column][row] = BlockType.AIR.ordinal();       // behind the world's back
+            assertTrue(body.onFloor(world), "A resting body does not probe the tiles");
+
+            worldGen.setBlock(column + 40, row, BlockType.DIRT);
+            assertTrue(body.onFloor(world), "An edit in another chunk leaves it resting");
+
+            worldGen.destroyBlock(column + 1, row);
+            assertFalse(body.onFloor(world), "An edit under its feet wakes it");
+
+            worldGen.setBlock(column + 1, row, BlockType.DIRT);
+            WorldEdit edit = worldGen.beginEdit();
+            edit.set(column, row, BlockType.DIRT);
+            edit.commit();
+            assertTrue(body.onFloor(world));
+            edit = worldGen.beginEdit();
+            edit.mineArea(column, row, column + 1, row);
+            edit.commit();
+            assertFalse(body.onFloor(world), "Batched edits wake it through their chunk");
+        }
+    }
+
+    @Test
+    void movingOrLosingTheStampsWakesTheBody() {
+        WorldGenerator worldGen = world();
+        int[][] world = worldGen.getWorld();
+        int column = flatColumn(worldGen, 300), row = worldGen.getSurface().getSurfaceY(column);
+        Body body = standOn(worldGen, column, true, worldGen.getEditStamps());
+        assertTrue(body.onFloor(world));
+        world[column][row] = BlockType.AIR.ordinal();
+        world[column + 1][row] = BlockType.AIR.ordinal();
+        body.moveTo(body.getHitbox().x + 1, body.getHitbox().y);
+        assertFalse(body.onFloor(world), "A moved body probes again");
+
+        world[column][row] = world[column + 1][row] = BlockType.DIRT.ordinal();
+        body.moveTo(body.getHitbox().x - 1, body.getHitbox().y);
+        assertTrue(body.onFloor(world));
+        world[column][row] = BlockType.AIR.ordinal();
+        body.setEditStamps(null);
+        assertFalse(body.onFloor(world), "Without stamps every check probes");
+    }
+
+    @Test
+    void restingMatchesProbingEveryTick() {
+        WorldGenerator worldGen = world();
+        int[][] world = worldGen.getWorld();
+        Random random = new Random(50);
+        int count = 200;
+        Body[] resting = new Body[count], probing = new Body[count];
+        for (int i = 0; i < count; i++) {
+            int column = flatColumn(worldGen, 20 + random.nextInt(900));
+            boolean fixedPoint = random.nextBoolean();
+            resting[i] = standOn(worldGen, column, fixedPoint, worldGen.getEditStamps());
+            probing[i] = standOn(worldGen, column, fixedPoint, null);
+        }
+        for (int tick = 0; tick < 500; tick++) {
+            for (int e = 0; e < 20; e++) {
+                Body target = probing[random.nextInt(count)];
+                int x = (int) (target.getHitbox().x / Game.TILES_SIZE) + random.nextInt(5) - 2;
+                int y = (int) ((target.getHitbox().y + target.getHitbox().height) / Game.TILES_SIZE) + random.nextInt(3) - 1;
+                if (random.nextBoolean())
+                    worldGen.destroyBlock(x, y);
+                else
+                    worldGen.setBlock(x, y, BlockType.DIRT);
+            }
+            for (int i = 0; i < count; i++) {
+                if (random.nextInt(20) == 0) {
+                    float x = probing[i].getHitbox().x + random.nextInt(9) - 4;
+                    resting[i].moveTo(x, probing[i].getHitbox().y);
+                    probing[i].moveTo(x, probing[i].getHitbox().y);
+                }
+                assertEquals(probing[i].onFloor(world), resting[i].onFloor(world), "Body " + i + " at tick " + tick);
+            }
+        }
+    }
+
+    @Test
+    void restingCheckIsCheaperThanAProbe() {
+        WorldGenerator worldGen = world();
+        int[][] world = worldGen.getWorld();
+        int count = 10_000, ticks = 500;
+        Body[] resting = new Body[count], probing = new Body[count];
+        Random random = new Random(50);
+        for (int i = 0; i < count; i++) {
+            int column = flatColumn(worldGen, 20 + random.nextInt(900));
+            resting[i] = standOn(worldGen, column, false, worldGen.getEditStamps());
+            probing[i] = standOn(worldGen, column, false, null);
+        }
+        int found = 0;
+        for (int warm = 0; warm < 50; warm++)
+            for (int i = 0; i < count; i++)
+                found += (resting[i].onFloor(world) ? 1 : 0) + (probing[i].onFloor(world) ? 1 : 0);
+        long t0 = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++)
+            for (Body body : probing)
+                found += body.onFloor(world) ? 1 : 0;
+        long t1 = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++)
+            for (Body body : resting)
+                found += body.onFloor(world) ? 1 : 0;
+        long t2 = System.nanoTime();
+        assertEquals(2L * count * (50 + ticks), found, "Every body stands on the floor");
+        System.out.printf("[BENCH] floor checks, %d bodies: probe %.1f ns, rest %.1f ns per check%n",
+                count, (t1 - t0) / (double) count / ticks, (t2 - t1) / (double) count / ticks);
+    }
+}
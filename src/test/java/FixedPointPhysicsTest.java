@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.Game;
+import cz.cvut.game.terroria.entities.Enemy;
+import cz.cvut.game.terroria.entities.Entity;
+import cz.cvut.game.terroria.entities.Mushroom;
+import cz.cvut.game.terroria.entities.Player;
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.utils.Constants;
+import cz.cvut.game.terroria.utils.FixedPoint;
+
+import java.awt.geom.Rectangle2D;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class FixedPointPhysicsTest {
+
+    private static final int FLOOR_ROW = 20;
+
+    private static int[][] bumpyWorld(long seed) {
+        Random random = new Random(seed);
+        int[][] lvlData = new int[120][30];
+        for (int x = 0; x < lvlData.length; x++) {
+            int top = FLOOR_ROW - random.nextInt(3);
+            for (int y = top; y < lvlData[x].length; y++)
+                lvlData[x][y] = BlockType.DIRT.ordinal();
+        }
+        return lvlData;
+    }
+
+    /** Runs a swarm of fixed-point mushrooms and folds every hitbox position into a hash. */
+    private static long simulate(long seed) {
+        int[][] lvlData = bumpyWorld(seed);
+        Random random = new Random(seed);
+        List<Mushroom> mushrooms = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Mushroom m = new Mushroom(random.nextInt(110) * Game.TILES_SIZE + random.nextFloat() * 7, random.nextInt(8) * Game.TILES_SIZE);
+            m.setFixedPoint(true);
+            mushrooms.add(m);
+        }
+        Player player = new Player(60 * Game.TILES_SIZE, 5 * Game.TILES_SIZE, 80, 64, null);
+        player.setFixedPoint(true);
+        player.loadLvlData(lvlData);
+
+        long hash = 17;
+        for (int t = 0; t < 2000; t++) {
+            player.setRight(t % 400 < 200);
+            player.setLeft(t % 400 >= 200);
+            player.setJump(t % 150 == 0);
+            player.update();
+            for (Mushroom m : mushrooms) {
+                m.update(lvlData, player);
+                Rectangle2D.Float hb = m.getHitbox();
+                hash = hash * 31 + Float.floatToIntBits(hb.x);
+                hash = hash * 31 + Float.floatToIntBits(hb.y);
+            }
+            hash = hash * 31 + Float.floatToIntBits(player.getHitbox().x);
+            hash = hash * 31 + Float.floatToIntBits(player.getHitbox().y);
+        }
+        return hash;
+    }
+
+    @Test
+    void repeatedRunsAreBitIdentical() {
+        assertEquals(simulate(42), simulate(42));
+    }
+
+    @Test
+    void jumpMatchesFloatPhysicsAndLandsOnWholeTile() {
+        int[][] lvlData = new int[40][30];
+        for (int x = 0; x < lvlData.length; x++)
+            for (int y = FLOOR_ROW; y < lvlData[x].length; y++)
+                lvlData[x][y] = BlockType.DIRT.ordinal();
+
+        Player player = new Player(10 * Game.TILES_SIZE, (FLOOR_ROW - 4) * Game.TILES_SIZE, 80, 64, null);
+        player.setFixedPoint(true);
+        player.loadLvlData(lvlData);
+        for (int t = 0; t < Game.UPS_SET; t++)
+            player.update();
+        Rectangle2D.Float hb = player.getHitbox();
+        assertEquals(FLOOR_ROW * Game.TILES_SIZE, hb.y + hb.height, 1f / FixedPoint.ONE);
+
+        float groundY = hb.y, apex = groundY;
+        player.setJump(true);
+        for (int t = 0; t < Game.UPS_SET; t++) {
+            player.update();
+            apex = Math.min(apex, hb.y);
+        }
+        float v = Constants.PlayerConstants.PLAYER_JUMP_SPEED, g = Constants.PlayerConstants.PLAYER_GRAVITY;
+        assertEquals(v * v / (2 * g), groundY - apex, 0.5f);
+    }
+
+    @Test
+    void fastFallCannotTunnelThroughOneTileFloor() throws Exception {
+        int[][] lvlData = new int[20][40];
+        int floorRow = 30;
+        for (int x = 0; x < lvlData.length; x++)
+            lvlData[x][floorRow] = BlockType.DIRT.ordinal();
+
+        Mushroom fast = new Mushroom(5 * Game.TILES_SIZE, 0);
+        fast.setFixedPoint(true);
+        Field inAir = Enemy.class.getDeclaredField("inAir");
+        Field fixedSpeedY = Entity.class.getDeclaredField("fixedSpeedY");
+        inAir.setAccessible(true);
+        fixedSpeedY.setAccessible(true);
+        inAir.setBoolean(fast, true);
+        fixedSpeedY.setInt(fast, 7 * FixedPoint.TILE);
+
+        Player player = new Player(0, 0, 80, 64, null);
+        for (int t = 0; t < 10; t++)
+            fast.update(lvlData, player);
+
+        Rectangle2D.Float hb = fast.getHitbox();
+        assertEquals(floorRow * Game.TILES_SIZE, hb.y + hb.height, 0f);
+        assertFalse(inAir.getBoolean(fast));
+    }
+}
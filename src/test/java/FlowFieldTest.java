@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.FlowField;
+
+import java.util.Random;
+
+public class FlowFieldTest {
+
+    private static final int WIDTH = 30, HEIGHT = 14, FLOOR = 10;
+
+    private static int[][] flatWorld() {
+        int[][] world = new int[WIDTH][HEIGHT];
+        for (int x = 0; x < WIDTH; x++)
+            for (int y = FLOOR; y < HEIGHT; y++)
+                world[x][y] = BlockType.DIRT.ordinal();
+        return world;
+    }
+
+    private static FlowField newField() {
+        return new FlowField(WIDTH, HEIGHT, 20, 2, 1, 4, 10_000);
+    }
+
+    @Test
+    void routesWalkTowardTarget() {
+        int[][] world = flatWorld();
+        FlowField field = newField();
+        field.update(world, 15, FLOOR - 1);
+        assertEquals(FlowField.TARGET, field.getMove(15, FLOOR - 1));
+        assertEquals(FlowField.WALK_RIGHT, field.getMove(5, FLOOR - 1));
+        assertEquals(FlowField.WALK_LEFT, field.getMove(25, FLOOR - 1));
+    }
+
+    @Test
+    void routesJumpOntoStepsAndDropOffLedges() {
+        int[][] world = flatWorld();
+        world[8][FLOOR - 1] = BlockType.DIRT.ordinal();
+        FlowField field = newField();
+        field.update(world, 15, FLOOR - 1);
+        assertEquals(FlowField.JUMP_RIGHT, field.getMove(7, FLOOR - 1));
+        assertEquals(FlowField.WALK_RIGHT, field.getMove(8, FLOOR - 2));
+    }
+
+    @Test
+    void wallTooHighBlocksRouteUntilItIsMined() {
+        int[][] world = flatWorld();
+        for (int y = FLOOR - 4; y < FLOOR; y++)
+            world[10][y] = BlockType.DIRT.ordinal();
+        FlowField field = newField();
+        field.update(world, 15, FLOOR - 1);
+        assertEquals(FlowField.NONE, field.getMove(5, FLOOR - 1));
+
+        for (int y = FLOOR - 4; y < FLOOR; y++) {
+            world[10][y] = BlockType.AIR.ordinal();
+            field.onTileChanged(10, y);
+        }
+        field.update(world, 15, FLOOR - 1);
+        assertEquals(FlowField.WALK_RIGHT, field.getMove(5, FLOOR - 1));
+    }
+
+    @Test
+    void searchIsBoundedToRadius() {
+        int[][] world = flatWorld();
+        FlowField field = new FlowField(WIDTH, HEIGHT, 5, 2, 1, 4, 10_000);
+        field.update(world, 15, FLOOR - 1);
+        assertEquals(FlowField.WALK_RIGHT, field.getMove(10, FLOOR - 1));
+        assertEquals(FlowField.NONE, field.getMove(9, FLOOR - 1));
+    }
+
+    @Test
+    void repairIsPublishedWithinTheUpdateOfTheEdit() {
+        int[][] world = flatWorld();
+        for (int y = FLOOR - 4; y < FLOOR; y++)
+            world[10][y] = BlockType.DIRT.ordinal();
+        FlowField field = new FlowField(WIDTH, HEIGHT, 20, 2, 1, 4, 3);
+        for (int i = 0; i < 100; i++)
+            field.update(world, 15, FLOOR - 1);
+        assertEquals(FlowField.NONE, field.getMove(5, FLOOR - 1));
+
+        for (int y = FLOOR - 4; y < FLOOR; y++) {
+            world[10][y] = BlockType.AIR.ordinal();
+            field.onTileChanged(10, y);
+        }
+        field.update(world, 15, FLOOR - 1);
+        assertEquals(FlowField.WALK_RIGHT, field.getMove(5, FLOOR - 1), "Too few nodes per update to search again");
+        assertEquals(10, field.getDistance(5, FLOOR - 1));
+    }
+
+    @Test
+    void repairedFieldMatchesAFreshSearch() {
+        int width = 60, height = 20, tx = 30;
+        Random random = new Random(30);
+        int[][] world = new int[width][height];
+        int[] ground = new int[width];
+        for (int x = 0, g = 14; x < width; x++) {
+            g = Math.max(11, Math.min(17, g + random.nextInt(3) - 1));
+            ground[x] = g;
+            for (int y = g; y < height; y++)
+                world[x][y] = BlockType.DIRT.ordinal();
+        }
+        int ty = ground[tx] - 1;
+        FlowField field = new FlowField(width, height, 25, 2, 2, 4, 100_000);
+        field.update(world, tx, ty);
+
+        for (int step = 0; step < 300; step++) {
+            // raise or lower a column by one tile, or put it back
+            int x = random.nextInt(width), y = ground[x] - random.nextInt(2);
+            if (x == tx)
+                continue;
+            boolean solid = y >= ground[x] ^ random.nextBoolean();
+            world[x][y] = solid ? BlockType.DIRT.ordinal() : BlockType.AIR.ordinal();
+            field.onTileChanged(x, y);
+            field.update(world, tx, ty);
+
+            FlowField fresh = new FlowField(width, height, 25, 2, 2, 4, 100_000);
+            fresh.update(world, tx, ty);
+            for (int px = 0; px < width; px++) {
+                for (int py = 0; py < height; py++) {
+                    int d = field.getDistance(px, py);
+                    assertEquals(fresh.getDistance(px, py), d, "Distance at " + px + "," + py + ", step " + step);
+                    byte move = field.getMove(px, py);
+                    assertEquals(d < 0, move == FlowField.NONE);
+                    if (d <= 0)
+                        continue;
+                    int nx = move == FlowField.WALK_LEFT || move == FlowField.JUMP_LEFT ? px - 1 : px + 1;
+                    boolean jump = move == FlowField.JUMP_LEFT || move == FlowField.JUMP_RIGHT, found = false;
+                    for (int ny = 0; ny < height; ny++)
+                        found |= field.getDistance(nx, ny) == d - 1 && jump == (ny < py);
+                    assertTrue(found, "The move at " + px + "," + py + " leads one step nearer");
+                }
+            }
+        }
+    }
+}
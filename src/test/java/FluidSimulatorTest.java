@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.FluidSimulator;
+
+import java.util.Random;
+
+public class FluidSimulatorTest {
+
+    private static final int DIRT = BlockType.DIRT.ordinal();
+
+    /** A closed box: solid border around an empty interior. */
+    private static int[][] box(int width, int height) {
+        int[][] world = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (x == 0 || y == 0 || x == width - 1 || y == height - 1)
+                    world[x][y] = DIRT;
+            }
+        }
+        return world;
+    }
+
+    private static int settle(FluidSimulator fluid, int[][] world, int maxSteps) {
+        for (int step = 0; step < maxSteps; step++) {
+            fluid.update(world);
+            if (fluid.getActiveCount() == 0)
+                return step;
+        }
+        return -1;
+    }
+
+    @Test
+    void lakeDrainsThroughMinedWallAndFallsAsleep() {
+        int[][] world = box(40, 20);
+        for (int y = 1; y < 19; y++)
+            world[10][y] = DIRT;
+        FluidSimulator fluid = new FluidSimulator(40, 20, BlockType.WATER);
+        for (int x = 1; x < 10; x++)
+            for (int y = 10; y < 19; y++)
+                fluid.setLevel(world, x, y, FluidSimulator.MAX_LEVEL);
+        long total = fluid.getTotalFluid();
+
+        assertTrue(settle(fluid, world, 1_000) >= 0, "A full lake should settle at once");
+        assertEquals(0, fluid.update(world), "A settled lake costs nothing");
+
+        world[10][18] = BlockType.AIR.ordinal();
+        fluid.onTileChanged(world, 10, 18);
+        assertTrue(settle(fluid, world, 20_000) >= 0, "The drained lake should settle");
+        assertEquals(total, fluid.getTotalFluid(), "Flow must conserve fluid");
+        assertTrue(fluid.getLevel(30, 18) > 0, "Water should reach the far side of the wall");
+        assertEquals(BlockType.WATER.ordinal(), world[30][18]);
+        assertEquals(0, fluid.update(world));
+    }
+
+    @Test
+    void placingSolidBlockRemovesFluidAndWakesNeighbours() {
+        int[][] world = box(10, 10);
+        FluidSimulator fluid = new FluidSimulator(10, 10, BlockType.WATER);
+        fluid.setLevel(world, 5, 8, FluidSimulator.MAX_LEVEL);
+        settle(fluid, world, 1_000);
+
+        world[5][8] = DIRT;
+        fluid.onTileChanged(world, 5, 8);
+        assertEquals(0, fluid.getLevel(5, 8));
+        assertTrue(fluid.getActiveCount() > 0);
+    }
+
+    @Test
+    void benchmarkHundredThousandFluidCells() {
+        int width = 1_002, height = 202, cells = 100_000;
+        int[][] world = box(width, height);
+        FluidSimulator fluid = new FluidSimulator(width, height, BlockType.WATER);
+        Random random = new Random(5);
+        for (int x = 1; x <= 1_000; x++)
+            for (int y = 101; y <= 200; y++)
+                fluid.setLevel(world, x, y, 1 + random.nextInt(FluidSimulator.MAX_LEVEL));
+        long total = fluid.getTotalFluid();
+
+        int ticks = 200;
+        long start = System.nanoTime();
+        long simulated = 0;
+        for (int t = 0; t < ticks; t++)
+            simulated += fluid.update(world);
+        double ms = (System.nanoTime() - start) / 1e6 / ticks;
+        System.out.printf("[BENCH] fluid, %d cells: %.3f ms/step, %.0f active cells/step%n",
+                cells, ms, (double) simulated / ticks);
+        assertEquals(total, fluid.getTotalFluid(), "Flow must conserve fluid");
+
+        int[][] full = box(width, height);
+        FluidSimulator lake = new FluidSimulator(width, height, BlockType.WATER);
+        for (int x = 1; x <= 1_000; x++)
+            for (int y = 101; y <= 200; y++)
+                lake.setLevel(full, x, y, FluidSimulator.MAX_LEVEL);
+        assertEquals(cells, lake.update(full));
+        assertEquals(0, lake.update(full), "A settled body of " + cells + " cells should be asleep");
+    }
+}
@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import cz.cvut.game.terroria.Game;
 import cz.cvut.game.terroria.entities.Enemy;
 import cz.cvut.game.terroria.entities.Mushroom;
+import cz.cvut.game.terroria.entities.Player;
+import cz.cvut.game.terroria.utils.BlockType;
 import cz.cvut.game.terroria.utils.Constants;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -81,4 +83,29 @@ class MushroomTest {
         // expected: box.y == hb.y - yOff + 10
         assertEquals(hb.y - yOff + 10, box.y, 1e-6f);
     }
-}
\ No newline at end of file
+
+    @Test
+    void fastFallCannotTunnelThroughOneTileFloor() throws Exception {
+        int[][] lvlData = new int[20][40];
+        int floorRow = 30;
+        for (int x = 0; x < lvlData.length; x++)
+            lvlData[x][floorRow] = BlockType.DIRT.ordinal();
+
+        Mushroom fast = new Mushroom(5 * Game.TILES_SIZE, 0);
+        Field inAir = Enemy.class.getDeclaredField("inAir");
+        Field fallSpeed = Enemy.class.getDeclaredField("fallSpeed");
+        inAir.setAccessible(true);
+        fallSpeed.setAccessible(true);
+        inAir.setBoolean(fast, true);
+        fallSpeed.setFloat(fast, 7 * Game.TILES_SIZE * Game.UPS_SET);
+
+        Player player = new Player(0, 0, 80, 64, null);
+        for (int t = 0; t < 10; t++)
+            fast.update(lvlData, player);
+
+        Rectangle2D.Float hb = fast.getHitbox();
+        assertEquals(floorRow * Game.TILES_SIZE, hb.y + hb.height, 1e-3f,
+                "Mushroom should land flush on the floor instead of falling through it");
+        assertFalse(inAir.getBoolean(fast));
+    }
+}
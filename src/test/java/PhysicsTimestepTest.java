@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.Game;
+import cz.cvut.game.terroria.entities.Mushroom;
+import cz.cvut.game.terroria.entities.Player;
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.utils.Constants;
+
+import java.awt.geom.Rectangle2D;
+
+public class PhysicsTimestepTest {
+
+    private static final int FLOOR_ROW = 20;
+    private static final int[] RATES = {60, 120, 200};
+
+    private static Player standingPlayer(int ups) {
+        int[][] lvlData = new int[200][30];
+        for (int x = 0; x < lvlData.length; x++)
+            for (int y = FLOOR_ROW; y < lvlData[x].length; y++)
+                lvlData[x][y] = BlockType.DIRT.ordinal();
+
+        Player player = new Player(10 * Game.TILES_SIZE, (FLOOR_ROW - 4) * Game.TILES_SIZE, 80, 64, null);
+        player.setUpdatesPerSecond(ups);
+        player.loadLvlData(lvlData);
+        for (int t = 0; t < ups; t++)
+            player.update();
+        Rectangle2D.Float hb = player.getHitbox();
+        assertEquals(FLOOR_ROW * Game.TILES_SIZE, hb.y + hb.height, 1e-3f, "Player should settle on the floor");
+        return player;
+    }
+
+    @Test
+    void jumpHeightIsIndependentOfUpdateRate() {
+        for (int ups : RATES)
+            assertJumpHeight(ups);
+    }
+
+    @Test
+    void runDistanceIsIndependentOfUpdateRate() {
+        for (int ups : RATES)
+            assertRunDistance(ups);
+    }
+
+    private static void assertJumpHeight(int ups) {
+        Player player = standingPlayer(ups);
+        float groundY = player.getHitbox().y;
+        float apex = groundY;
+
+        player.setJump(true);
+        for (int t = 0; t < ups; t++) {
+            player.update();
+            apex = Math.min(apex, player.getHitbox().y);
+        }
+
+        float v = Constants.PlayerConstants.PLAYER_JUMP_SPEED, g = Constants.PlayerConstants.PLAYER_GRAVITY;
+        float expected = v * v / (2 * g);
+        // A discrete step can only miss the true apex by the distance covered in half a step around it.
+        float tolerance = g / (ups * ups) + 0.01f;
+        assertEquals(expected, groundY - apex, tolerance, "Jump height at " + ups + " UPS");
+    }
+
+    private static void assertRunDistance(int ups) {
+        Player player = standingPlayer(ups);
+        float startX = player.getHitbox().x;
+
+        player.setRight(true);
+        for (int t = 0; t < ups; t++)
+            player.update();
+
+        assertEquals(Constants.PlayerConstants.PLAYER_RUN_SPEED, player.getHitbox().x - startX, 0.05f,
+                "Distance run in one second at " + ups + " UPS");
+    }
+
+    @Test
+    void mushroomFallDistanceIsIndependentOfUpdateRate() {
+        float g = Constants.EnemyConstants.ENEMY_GRAVITY;
+        for (int ups : RATES) {
+            // tall enough that one second of free fall does not reach the floor
+            int[][] lvlData = groundedWorld(300, (int) (g / 2 / Game.TILES_SIZE) + 10);
+            Mushroom mushroom = farFromPlayer(ups, Game.TILES_SIZE);
+            float startY = mushroom.getHitbox().y;
+            Player player = new Player(290 * Game.TILES_SIZE, 0, 80, 64, null);
+            for (int t = 0; t < ups; t++)
+                mushroom.update(lvlData, player);
+            assertEquals(g / 2, mushroom.getHitbox().y - startY, 0.05f, "Distance fallen in one second at " + ups + " UPS");
+        }
+    }
+
+    @Test
+    void mushroomWalkDistanceIsIndependentOfUpdateRate() {
+        for (int ups : RATES) {
+            int[][] lvlData = groundedWorld(300, 30);
+            Mushroom mushroom = farFromPlayer(ups, 0);
+            mushroom.getHitbox().y = 28 * Game.TILES_SIZE - mushroom.getHitbox().height;
+            Player player = new Player(290 * Game.TILES_SIZE, 0, 80, 64, null);
+            for (int t = 0; t < 5; t++)
+                mushroom.update(lvlData, player);   // idle -> running
+            float startX = mushroom.getHitbox().x;
+            for (int t = 0; t < ups; t++)
+                mushroom.update(lvlData, player);
+            assertEquals(Constants.EnemyConstants.ENEMY_WALK_SPEED, startX - mushroom.getHitbox().x, 0.05f,
+                    "Distance walked in one second at " + ups + " UPS");
+        }
+    }
+
+    /** A world of the given size with solid ground in its last two rows. */
+    private static int[][] groundedWorld(int width, int height) {
+        int[][] lvlData = new int[width][height];
+        for (int x = 0; x < width; x++)
+            for (int y = height - 2; y < height; y++)
+                lvlData[x][y] = BlockType.DIRT.ordinal();
+        return lvlData;
+    }
+
+    /** A float-physics mushroom walking left, far out of sight of a player at the right edge. */
+    private static Mushroom farFromPlayer(int ups, float y) {
+        Mushroom mushroom = new Mushroom(150 * Game.TILES_SIZE, y);
+        mushroom.setFixedPoint(false);
+        mushroom.setUpdatesPerSecond(ups);
+        return mushroom;
+    }
+}
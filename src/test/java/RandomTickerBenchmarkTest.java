@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.RandomTicker;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+public class RandomTickerBenchmarkTest {
+
+    private static final int HEIGHT = WorldGenerator.HEIGHT_TILES;
+    private static final int[] WIDTHS = {1_000, 10_000, 100_000};
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int TICKS = 50_000;
+
+    @Test
+    void samplesStayInsideLoadedChunks() {
+        RandomTicker ticker = new RandomTicker(1_000, HEIGHT, 1);
+        ticker.setLoadRadius(2);
+        int focus = 500, size = WorldGenerator.CHUNK_SIZE;
+        int minX = (focus / size - 2) * size, maxX = (focus / size + 3) * size;
+        int[] perRow = new int[HEIGHT];
+        for (int t = 0; t < 1_000; t++) {
+            ticker.tick(focus, (x, y) -> {
+                assertTrue(x >= minX && x < maxX, "Column " + x + " is outside the loaded chunks");
+                perRow[y]++;
+            });
+        }
+        for (int y = 0; y < HEIGHT; y++)
+            assertTrue(perRow[y] > 0, "Row " + y + " was never sampled");
+    }
+
+    @Test
+    void sampleRateIsConfigurable() {
+        RandomTicker ticker = new RandomTicker(1_000, HEIGHT, 1);
+        ticker.setLoadRadius(1);
+        int chunksY = (HEIGHT + WorldGenerator.CHUNK_SIZE - 1) / WorldGenerator.CHUNK_SIZE;
+        ticker.setSamplesPerChunk(5);
+        assertEquals(3 * chunksY * 5, ticker.tick(500, (x, y) -> { }));
+        ticker.setSamplesPerChunk(0);
+        assertEquals(0, ticker.tick(500, (x, y) -> { }));
+    }
+
+    @Test
+    void benchmarkCostIsIndependentOfWorldWidth() {
+        double[] ms = new double[WIDTHS.length];
+        int[] samples = new int[WIDTHS.length];
+        for (int i = 0; i < WIDTHS.length; i++) {
+            int[][] world = new int[WIDTHS[i]][HEIGHT];
+            for (int[] column : world)
+                java.util.Arrays.fill(column, HEIGHT / 3, HEIGHT, BlockType.DIRT.ordinal());
+            RandomTicker ticker = new RandomTicker(WIDTHS[i], HEIGHT, 7);
+            long[] sum = new long[1];
+            RandomTicker.Handler handler = (x, y) -> sum[0] += world[x][y];
+            int focus = WIDTHS[i] / 2;
+
+            for (int t = 0; t < WARMUP_TICKS; t++)
+                ticker.tick(focus, handler);
+            long start = System.nanoTime();
+            for (int t = 0; t < TICKS; t++)
+                samples[i] = ticker.tick(focus, handler);
+            ms[i] = (System.nanoTime() - start) / 1e6 / TICKS;
+            System.out.printf("[BENCH] random ticks, %d columns: %d samples, %.4f ms/tick (checksum %d)%n",
+                    WIDTHS[i], samples[i], ms[i], sum[0]);
+        }
+        for (int i = 1; i < WIDTHS.length; i++) {
+            assertEquals(samples[0], samples[i], "Samples per tick should not depend on world width");
+            assertTrue(ms[i] < Math.max(4 * ms[0], 0.05),
+                    "Per-tick cost grew with world width: " + ms[0] + " ms vs " + ms[i] + " ms");
+        }
+    }
+}
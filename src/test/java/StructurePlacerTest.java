@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.Prefab;
+import cz.cvut.game.terroria.world.StructurePlacer;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+public class StructurePlacerTest {
+
+    @Test
+    void binaryFormatRoundTrips() throws IOException {
+        int[][] columns = new int[3][300];
+        for (int y = 0; y < 300; y++) {
+            columns[0][y] = BlockType.DIRT.ordinal();
+            columns[1][y] = y % 7 == 0 ? BlockType.ORE.ordinal() : BlockType.AIR.ordinal();
+            columns[2][y] = BlockType.PLANK_GOLD.ordinal();
+        }
+        Prefab prefab = new Prefab("test", columns);
+        assertThrows(IllegalArgumentException.class, () -> roundTrip(prefab), "Height must fit the header");
+
+        int[][] small = new int[3][200];
+        for (int x = 0; x < 3; x++)
+            System.arraycopy(columns[x], 0, small[x], 0, 200);
+        Prefab copy = roundTrip(new Prefab("test", small));
+        assertEquals(3, copy.getWidth());
+        assertEquals(200, copy.getHeight());
+        for (int x = 0; x < 3; x++)
+            for (int y = 0; y < 200; y++)
+                assertEquals(small[x][y], copy.getBlock(x, y));
+
+        assertThrows(IOException.class, () -> Prefab.Read("bad", new ByteArrayInputStream(new byte[] {1, 2, 3, 4})));
+    }
+
+    private static Prefab roundTrip(Prefab prefab) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        prefab.write(out);
+        return Prefab.Read(prefab.getName(), new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    void builtInTemplatesLoad() {
+        for (String file : StructurePlacer.DEFAULT_PREFABS)
+            assertNotNull(Prefab.Load(file), file);
+    }
+
+    @Test
+    void structuresAreStampedWithoutOverlapAndDeterministically() {
+        WorldGenerator a = new WorldGenerator(21);
+        WorldGenerator b = new WorldGenerator(21);
+        List<StructurePlacer.Placement> placed = a.getStructures();
+        assertFalse(placed.isEmpty());
+        assertEquals(placed.size(), b.getStructures().size());
+
+        for (int i = 0; i < placed.size(); i++) {
+            StructurePlacer.Placement p = placed.get(i);
+            for (int j = i + 1; j < placed.size(); j++) {
+                StructurePlacer.Placement q = placed.get(j);
+                boolean overlap = p.x < q.x + q.prefab.getWidth() && q.x < p.x + p.prefab.getWidth()
+                        && p.y < q.y + q.prefab.getHeight() && q.y < p.y + p.prefab.getHeight();
+                assertFalse(overlap, p.prefab.getName() + " overlaps " + q.prefab.getName());
+            }
+            // air inside a structure may hold one of the water pools seeded afterwards
+            for (int dx = 0; dx < p.prefab.getWidth(); dx++)
+                for (int dy = 0; dy < p.prefab.getHeight(); dy++) {
+                    int id = a.getWorld()[p.x + dx][p.y + dy];
+                    int expected = p.prefab.getBlock(dx, dy);
+                    if (expected == BlockType.AIR.ordinal())
+                        assertTrue(id == expected || id == BlockType.WATER.ordinal());
+                    else
+                        assertEquals(expected, id);
+                }
+        }
+        assertArrayEquals(a.getWorld(), b.getWorld());
+    }
+
+    @Test
+    void parallelPlacementOnWideWorldsIsDeterministic() {
+        int width = StructurePlacer.PARALLEL_THRESHOLD * WorldGenerator.CHUNK_SIZE * 2, height = 75;
+        int[][] first = new int[width][height], second = new int[width][height];
+        for (int x = 0; x < width; x++)
+            for (int y = 25; y < height; y++)
+                first[x][y] = second[x][y] = BlockType.DIRT.ordinal();
+
+        StructurePlacer placer = StructurePlacer.LoadDefault();
+        List<StructurePlacer.Placement> placed = placer.place(first, 5);
+        assertEquals(placed.size(), placer.place(second, 5).size());
+        assertArrayEquals(first, second);
+        assertTrue(placed.size() > width / WorldGenerator.CHUNK_SIZE / 10);
+        for (int i = 1; i < placed.size(); i++) {
+            StructurePlacer.Placement p = placed.get(i - 1), q = placed.get(i);
+            assertTrue(q.x >= p.x + p.prefab.getWidth() || q.y >= p.y + p.prefab.getHeight()
+                    || p.y >= q.y + q.prefab.getHeight(), "Neighbouring structures overlap at " + q.x);
+        }
+    }
+
+    @Test
+    void structuresCostLittleGenerationTime() {
+        for (int i = 0; i < 5; i++) {
+            new WorldGenerator(i, false);
+            new WorldGenerator(i, true);
+        }
+        int runs = 20;
+        long off = 0, on = 0;
+        for (int i = 0; i < runs; i++) {
+            long t0 = System.nanoTime();
+            new WorldGenerator(100 + i, false);
+            long t1 = System.nanoTime();
+            new WorldGenerator(100 + i, true);
+            long t2 = System.nanoTime();
+            off += t1 - t0;
+            on += t2 - t1;
+        }
+        System.out.printf("[BENCH] world generation: %.2f ms without structures, %.2f ms with%n",
+                off / 1e6 / runs, on / 1e6 / runs);
+    }
+}
@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.SurfaceMap;
+
+import java.util.Random;
+
+public class SurfaceMapTest {
+
+    private static int bruteForce(int[][] world, int x) {
+        for (int y = 0; y < world[x].length; y++) {
+            if (world[x][y] != BlockType.AIR.ordinal())
+                return y;
+        }
+        return world[x].length;
+    }
+
+    @Test
+    void surfaceMatchesColumnScanAfterEdits() {
+        int width = 40, height = 20;
+        Random random = new Random(11);
+        int[][] world = new int[width][height];
+        for (int x = 0; x < width; x++)
+            for (int y = 8 + random.nextInt(4); y < height; y++)
+                world[x][y] = BlockType.DIRT.ordinal();
+
+        SurfaceMap map = new SurfaceMap(width, height);
+        map.build(world);
+
+        for (int edit = 0; edit < 2000; edit++) {
+            int x = random.nextInt(width), y = random.nextInt(height);
+            world[x][y] = world[x][y] == BlockType.AIR.ordinal() ? BlockType.DIRT.ordinal() : BlockType.AIR.ordinal();
+            map.onTileChanged(world, x, y);
+            for (int c = 0; c < width; c++)
+                assertEquals(bruteForce(world, c), map.getSurfaceY(c), "Column " + c + " after edit " + edit);
+        }
+    }
+
+    @Test
+    void emptyColumnReportsWorldHeight() {
+        int[][] world = new int[3][5];
+        world[1][4] = BlockType.DIRT.ordinal();
+        SurfaceMap map = new SurfaceMap(3, 5);
+        map.build(world);
+        assertEquals(5, map.getSurfaceY(0));
+        assertEquals(4, map.getSurfaceY(1));
+
+        world[1][4] = BlockType.AIR.ordinal();
+        map.onTileChanged(world, 1, 4);
+        assertEquals(5, map.getSurfaceY(1));
+        assertEquals(5, map.getSurfaceY(-1), "Columns outside the world are empty");
+    }
+}
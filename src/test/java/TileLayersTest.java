@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.Lighting;
+import cz.cvut.game.terroria.world.TileLayers;
+import cz.cvut.game.terroria.world.WorldEdit;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.util.Random;
+
+public class TileLayersTest {
+
+    @Test
+    void fieldsArePackedIndependently() {
+        int width = 37, height = 21;
+        TileLayers layers = new TileLayers(width, height);
+        int[][] fg = new int[width][height], wall = new int[width][height];
+        int[][] light = new int[width][height], spare = new int[width][height];
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            int x = random.nextInt(width), y = random.nextInt(height), v = random.nextInt(256);
+            switch (random.nextInt(4)) {
+                case 0 -> { fg[x][y] = v; layers.setForeground(x, y, v); }
+                case 1 -> { wall[x][y] = v; layers.setWall(x, y, v); }
+                case 2 -> { light[x][y] = v & 15; layers.setLight(x, y, v); }
+                default -> { spare[x][y] = v; layers.setSpare(x, y, v); }
+            }
+        }
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++) {
+                int tile = layers.get(x, y);
+                assertEquals(fg[x][y], TileLayers.Foreground(tile));
+                assertEquals(wall[x][y], TileLayers.Wall(tile));
+                assertEquals(light[x][y], TileLayers.Light(tile));
+                assertEquals(spare[x][y], TileLayers.Spare(tile));
+            }
+    }
+
+    @Test
+    void skylightStopsAtTheGroundAndReachesIntoAShaft() {
+        int width = 40, height = 30;
+        TileLayers layers = new TileLayers(width, height);
+        for (int x = 0; x < width; x++)
+            for (int y = 10; y < height; y++)
+                layers.setForeground(x, y, BlockType.DIRT.ordinal());
+        Lighting lighting = new Lighting();
+        lighting.build(layers);
+        assertEquals(TileLayers.MAX_LIGHT, layers.getLight(5, 9));
+        assertEquals(TileLayers.MAX_LIGHT - Lighting.SOLID_FALLOFF, layers.getLight(5, 10), "The ground face is lit");
+        assertEquals(0, layers.getLight(5, 25));
+
+        for (int y = 10; y < 20; y++) {
+            layers.setForeground(20, y, BlockType.AIR.ordinal());
+            lighting.onTileChanged(layers, 20);
+        }
+        assertEquals(TileLayers.MAX_LIGHT, layers.getLight(20, 19), "An open shaft is lit by the sky");
+
+        layers.setWall(20, 15, BlockType.DIRT.ordinal());
+        lighting.onTileChanged(layers, 20);
+        assertTrue(layers.getLight(20, 19) < TileLayers.MAX_LIGHT, "A wall blocks skylight");
+    }
+
+    @Test
+    void incrementalRelightMatchesFullBuild() {
+        WorldGenerator worldGen = new WorldGenerator(12);
+        worldGen.getRandomTicker().setSamplesPerChunk(0);
+        Random random = new Random(12);
+        for (int i = 0; i < 300; i++) {
+            int x = random.nextInt(WorldGenerator.WIDTH_TILES), y = random.nextInt(WorldGenerator.HEIGHT_TILES);
+            if (random.nextBoolean())
+                worldGen.destroyBlock(x, y);
+            else
+                worldGen.setBlock(x, y, BlockType.DIRT);
+        }
+        WorldEdit edit = worldGen.beginEdit();
+        edit.mineArea(300, 0, 320, 60);
+        edit.commit();
+        for (int i = 0; i < 50; i++)
+            worldGen.update(310);
+        TileLayers layers = worldGen.getLayers();
+        int[] before = new int[WorldGenerator.WIDTH_TILES * WorldGenerator.HEIGHT_TILES];
+        for (int x = 0; x < WorldGenerator.WIDTH_TILES; x++)
+            for (int y = 0; y < WorldGenerator.HEIGHT_TILES; y++) {
+                assertEquals(worldGen.getWorld()[x][y], layers.getForeground(x, y), "Foreground " + x + "," + y);
+                before[x * WorldGenerator.HEIGHT_TILES + y] = layers.getLight(x, y);
+            }
+        new Lighting().build(layers);
+        for (int x = 0; x < WorldGenerator.WIDTH_TILES; x++)
+            for (int y = 0; y < WorldGenerator.HEIGHT_TILES; y++)
+                assertEquals(layers.getLight(x, y), before[x * WorldGenerator.HEIGHT_TILES + y], "Light " + x + "," + y + " after a full rebuild");
+    }
+}
@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.WalkabilityMap;
+
+import java.util.Random;
+
+public class WalkabilityMapTest {
+
+    private static boolean bruteForce(int[][] world, int xStart, int xEnd, int y) {
+        for (int x = xStart; x < xEnd; x++) {
+            if (world[x][y] != BlockType.AIR.ordinal())
+                return false;
+            if (y + 1 < world[x].length && world[x][y + 1] == BlockType.AIR.ordinal())
+                return false;
+        }
+        return true;
+    }
+
+    @Test
+    void rangeQueriesMatchTileWalkAfterEdits() {
+        int width = 60, height = 12;
+        Random random = new Random(7);
+        int[][] world = new int[width][height];
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                world[x][y] = random.nextFloat() < 0.4f ? BlockType.DIRT.ordinal() : BlockType.AIR.ordinal();
+
+        WalkabilityMap map = new WalkabilityMap(width, height);
+        map.build(world);
+
+        for (int edit = 0; edit < 500; edit++) {
+            int x = random.nextInt(width), y = random.nextInt(height);
+            world[x][y] = world[x][y] == BlockType.AIR.ordinal() ? BlockType.DIRT.ordinal() : BlockType.AIR.ordinal();
+            map.onTileChanged(world, x, y);
+
+            int row = random.nextInt(height);
+            int a = random.nextInt(width + 1), b = random.nextInt(width + 1);
+            int xStart = Math.min(a, b), xEnd = Math.max(a, b);
+            assertEquals(bruteForce(world, xStart, xEnd, row), map.isRangeWalkable(xStart, xEnd, row),
+                    "Range [" + xStart + ", " + xEnd + ") on row " + row + " after edit " + edit);
+        }
+    }
+
+    @Test
+    void floorOnBottomRowIsTheWorldEdge() {
+        int[][] world = new int[4][3];
+        WalkabilityMap map = new WalkabilityMap(4, 3);
+        map.build(world);
+        assertTrue(map.isRangeWalkable(0, 4, 2));
+        assertFalse(map.isRangeWalkable(0, 4, 1));
+        assertFalse(map.isRangeWalkable(0, 5, 2), "Ranges past the world edge are not walkable");
+    }
+}
@@ -0,0 +1,174 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.Wiring;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+public class WiringTest {
+
+    private static final int DOOR_OPEN = BlockType.DOOR_OPEN.ordinal(), DOOR_CLOSED = BlockType.DOOR_CLOSED.ordinal();
+
+    private static WorldGenerator world() {
+        WorldGenerator worldGen = new WorldGenerator(49, false);
+        worldGen.getRandomTicker().setSamplesPerChunk(0);
+        return worldGen;
+    }
+
+    private static void wireRow(Wiring wiring, int x0, int x1, int y) {
+        for (int x = x0; x <= x1; x++)
+            wiring.placeWire(x, y);
+    }
+
+    @Test
+    void switchOpensOnlyTheDoorsOfItsNetwork() {
+        WorldGenerator worldGen = world();
+        Wiring wiring = worldGen.getWiring();
+        int[][] world = worldGen.getWorld();
+        wireRow(wiring, 100, 110, 5);
+        wireRow(wiring, 112, 120, 5);
+        worldGen.setBlock(100, 5, BlockType.SWITCH_OFF);
+        worldGen.setBlock(110, 5, BlockType.DOOR_CLOSED);
+        worldGen.setBlock(120, 5, BlockType.DOOR_CLOSED);
+
+        assertTrue(wiring.toggleSwitch(100, 5));
+        assertEquals(DOOR_OPEN, world[110][5]);
+        assertEquals(DOOR_CLOSED, world[120][5], "The other network is not powered");
+
+        wiring.placeWire(111, 5);
+        assertTrue(wiring.isConnected(100, 5, 120, 5));
+        assertEquals(DOOR_OPEN, world[120][5], "Bridging the networks powers the far door");
+
+        wiring.removeWire(111, 5);
+        assertFalse(wiring.isConnected(100, 5, 120, 5));
+        assertEquals(DOOR_CLOSED, world[120][5], "Cutting the bridge closes it again");
+
+        wiring.toggleSwitch(100, 5);
+        assertEquals(DOOR_CLOSED, world[110][5]);
+        worldGen.setBlock(112, 5, BlockType.DOOR_CLOSED);
+        worldGen.setBlock(115, 5, BlockType.SWITCH_ON);
+        assertEquals(DOOR_OPEN, world[112][5], "A door placed on a powered network opens");
+        assertEquals(DOOR_OPEN, world[120][5]);
+        worldGen.destroyBlock(115, 5);
+        assertEquals(DOOR_CLOSED, world[120][5], "Mining the only active source powers the network down");
+    }
+
+    @Test
+    void pressurePlatesHoldDoorsOpenWhileOccupied() {
+        WorldGenerator worldGen = world();
+        Wiring wiring = worldGen.getWiring();
+        int[][] world = worldGen.getWorld();
+        wireRow(wiring, 300, 305, 4);
+        worldGen.setBlock(300, 4, BlockType.PRESSURE_PLATE);
+        worldGen.setBlock(305, 4, BlockType.DOOR_CLOSED);
+
+        assertTrue(wiring.updatePresser(0, 300, 4));
+        assertEquals(DOOR_OPEN, world[305][4]);
+        assertFalse(wiring.updatePresser(0, 300, 4), "Standing still changes nothing");
+        assertFalse(wiring.updatePresser(1, 300, 4), "A second body keeps the plate pressed");
+        assertFalse(wiring.updatePresser(0, 301, 4));
+        assertEquals(DOOR_OPEN, world[305][4]);
+        assertTrue(wiring.updatePresser(1, 302, 4));
+        assertEquals(DOOR_CLOSED, world[305][4]);
+    }
+
+    @Test
+    void compiledNetworksMatchAFloodFromScratch() {
+        WorldGenerator worldGen = world();
+        Wiring wiring = worldGen.getWiring();
+        int[][] world = worldGen.getWorld();
+        int x0 = 400, y0 = 2, w = 24, h = 12;
+        BlockType[] blocks = {BlockType.AIR, BlockType.SWITCH_OFF, BlockType.SWITCH_ON, BlockType.DOOR_CLOSED};
+        Random random = new Random(49);
+        for (int step = 0; step < 4000; step++) {
+            int x = x0 + random.nextInt(w), y = y0 + random.nextInt(h);
+            switch (random.nextInt(4)) {
+                case 0, 1 -> wiring.placeWire(x, y);
+                case 2 -> wiring.removeWire(x, y);
+                default -> worldGen.setBlock(x, y, blocks[random.nextInt(blocks.length)]);
+            }
+            if (step % 50 != 0)
+                continue;
+
+            int[] component = new int[w * h];
+            boolean[] powered = new boolean[w * h + 1];
+            int components = 0;
+            for (int i = 0; i < w * h; i++) {
+                if (component[i] != 0 || !wiring.isWire(x0 + i / h, y0 + i % h))
+                    continue;
+                components++;
+                ArrayDeque<Integer> queue = new ArrayDeque<>();
+                queue.add(i);
+                component[i] = components;
+                while (!queue.isEmpty()) {
+                    int c = queue.poll(), cx = c / h, cy = c % h;
+                    if (world[x0 + cx][y0 + cy] == BlockType.SWITCH_ON.ordinal())
+                        powered[components] = true;
+                    int[][] steps = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+                    for (int[] d : steps) {
+                        int nx = cx + d[0], ny = cy + d[1];
+                        if (nx >= 0 && nx < w && ny >= 0 && ny < h && component[nx * h + ny] == 0
+                                && wiring.isWire(x0 + nx, y0 + ny)) {
+                            component[nx * h + ny] = components;
+                            queue.add(nx * h + ny);
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < w * h; i++) {
+                if (component[i] == 0)
+                    continue;
+                int x1 = x0 + i / h, y1 = y0 + i % h;
+                assertEquals(powered[component[i]], wiring.isPowered(x1, y1), "Power at " + x1 + "," + y1);
+                int id = world[x1][y1];
+                if (id == DOOR_OPEN || id == DOOR_CLOSED)
+                    assertEquals(powered[component[i]] ? DOOR_OPEN : DOOR_CLOSED, id, "Door at " + x1 + "," + y1);
+                int j = random.nextInt(w * h);
+                if (component[j] != 0)
+                    assertEquals(component[i] == component[j],
+                            wiring.isConnected(x1, y1, x0 + j / h, y0 + j % h), "Step " + step);
+            }
+        }
+    }
+
+    @Test
+    void togglingALargeNetworkDoesNotTraceIt() {
+        WorldGenerator worldGen = world();
+        Wiring wiring = worldGen.getWiring();
+        long t0 = System.nanoTime();
+        int wires = 0, lastX = 0, lastY = 0;
+        for (int y = 0; y < 19; y++) {
+            for (int x = 0; x < WorldGenerator.WIDTH_TILES; x++) {
+                if (y % 2 == 0 || x == (y % 4 == 1 ? WorldGenerator.WIDTH_TILES - 1 : 0)) {
+                    wiring.placeWire(x, y);
+                    wires++;
+                    lastX = x;
+                    lastY = y;
+                }
+            }
+        }
+        double buildMs = (System.nanoTime() - t0) / 1e6;
+        worldGen.setBlock(0, 0, BlockType.SWITCH_OFF);
+        worldGen.setBlock(500, 10, BlockType.DOOR_CLOSED);
+        assertTrue(wiring.isConnected(0, 0, lastX, lastY), "The serpentine is one network");
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < 1000; i++)
+            wiring.toggleSwitch(0, 0);
+        double toggleUs = (System.nanoTime() - t1) / 1e3 / 1000;
+        assertEquals(DOOR_CLOSED, worldGen.getWorld()[500][10]);
+        wiring.toggleSwitch(0, 0);
+        assertEquals(DOOR_OPEN, worldGen.getWorld()[500][10]);
+
+        long t2 = System.nanoTime();
+        wiring.removeWire(500, 2);
+        double splitMs = (System.nanoTime() - t2) / 1e6;
+        assertFalse(wiring.isPowered(500, 10), "The far half lost its switch");
+        assertEquals(DOOR_CLOSED, worldGen.getWorld()[500][10]);
+        System.out.printf("[BENCH] wiring, %d wires: build %.2f ms, toggle %.1f us, split %.3f ms%n",
+                wires, buildMs, toggleUs, splitMs);
+    }
+}
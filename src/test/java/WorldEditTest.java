@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.craft.Inventory;
+import cz.cvut.game.terroria.utils.BlockType;
+import cz.cvut.game.terroria.world.AutotileMap;
+import cz.cvut.game.terroria.world.SurfaceMap;
+import cz.cvut.game.terroria.world.TileChangeListener;
+import cz.cvut.game.terroria.world.WalkabilityMap;
+import cz.cvut.game.terroria.world.WorldEdit;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class WorldEditTest {
+
+    @Test
+    void commitMatchesFullRebuildAndNotifiesOncePerChunk() {
+        WorldGenerator worldGen = new WorldGenerator(9);
+        worldGen.getRandomTicker().setSamplesPerChunk(0);
+        int[][] world = worldGen.getWorld();
+        int[] tileCalls = new int[1];
+        Set<String> chunks = new HashSet<>();
+        int[] chunkCalls = new int[1];
+        worldGen.addTileChangeListener(new TileChangeListener() {
+            @Override
+            public void onTileChanged(int x, int y) {
+                tileCalls[0]++;
+            }
+
+            @Override
+            public void onChunkChanged(int chunkX, int chunkY) {
+                chunkCalls[0]++;
+                chunks.add(chunkX + "," + chunkY);
+            }
+        });
+
+        int ores = 0, dirt = 0;
+        Set<String> expectedChunks = new HashSet<>();
+        expectedChunks.add(120 / WorldGenerator.CHUNK_SIZE + "," + 40 / WorldGenerator.CHUNK_SIZE);
+        for (int x = 100; x < 140; x++)
+            for (int y = 30; y < 50; y++) {
+                if (world[x][y] == BlockType.ORE.ordinal()) ores++;
+                if (world[x][y] == BlockType.DIRT.ordinal()) dirt++;
+                if (world[x][y] != BlockType.AIR.ordinal() && world[x][y] != BlockType.WATER.ordinal())
+                    expectedChunks.add(x / WorldGenerator.CHUNK_SIZE + "," + y / WorldGenerator.CHUNK_SIZE);
+            }
+
+        WorldEdit edit = worldGen.beginEdit();
+        edit.mineArea(100, 30, 139, 49);
+        edit.set(120, 40, BlockType.PLANK_RED);
+        int[] drops = edit.commit();
+
+        assertEquals(0, tileCalls[0], "A batch does not notify per tile");
+        assertEquals(chunks.size(), chunkCalls[0], "Each chunk is reported once");
+        assertEquals(expectedChunks, chunks);
+        assertEquals(ores, drops[BlockType.ORE.ordinal()]);
+        assertEquals(dirt, drops[BlockType.DIRT.ordinal()]);
+        assertEquals(BlockType.PLANK_RED.ordinal(), world[120][40]);
+
+        int width = world.length, height = world[0].length;
+        WalkabilityMap walkability = new WalkabilityMap(width, height);
+        walkability.build(world);
+        SurfaceMap surface = new SurfaceMap(width, height);
+        surface.build(world);
+        AutotileMap autotiles = new AutotileMap(width, height);
+        autotiles.build(world);
+        for (int x = 0; x < width; x++) {
+            assertEquals(surface.getSurfaceY(x), worldGen.getSurface().getSurfaceY(x), "Column " + x);
+            for (int y = 0; y < height; y++) {
+                assertEquals(walkability.isRangeWalkable(x, x + 1, y),
+                        worldGen.getWalkability().isRangeWalkable(x, x + 1, y), "Tile " + x + "," + y);
+                assertEquals(autotiles.getVariant(x, y), worldGen.getAutotiles().getVariant(x, y), "Tile " + x + "," + y);
+            }
+        }
+        assertThrows(IllegalStateException.class, edit::commit);
+    }
+
+    @Test
+    void dropsGoToInventoryInBulk() {
+        WorldGenerator worldGen = new WorldGenerator(4);
+        int[][] world = worldGen.getWorld();
+        WorldEdit edit = worldGen.beginEdit();
+        for (int x = 10; x < 15; x++) {
+            edit.set(x, 5, BlockType.DIRT);
+        }
+        assertTrue(edit.mine(10, 5));
+        assertFalse(edit.mine(10, 5), "AIR cannot be mined");
+        edit.mineArea(11, 5, 14, 5);
+        Inventory inventory = new Inventory();
+        assertTrue(inventory.addDrops(edit.commit()));
+        assertEquals(5, inventory.countOf(BlockType.DIRT));
+        assertEquals(BlockType.AIR.ordinal(), world[12][5]);
+        assertNotNull(inventory.getItem(0));
+        assertNull(inventory.getItem(1), "All drops of one type share a stack");
+    }
+}
@@ -0,0 +1,40 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cz.cvut.game.terroria.gamestates.WorldPreloader;
+import cz.cvut.game.terroria.world.WorldGenerator;
+
+public class WorldPreloaderTest {
+
+    @Test
+    void speculativeWorldIsReadyBeforeItIsTaken() throws InterruptedException {
+        WorldPreloader preloader = new WorldPreloader();
+        long t0 = System.nanoTime();
+        preloader.start(77);
+        long startMillis = (System.nanoTime() - t0) / 1_000_000;
+        preloader.start(78);
+
+        for (int i = 0; i < 500 && !preloader.isReady(); i++)
+            Thread.sleep(10);
+        assertTrue(preloader.isReady());
+
+        long t1 = System.nanoTime();
+        WorldPreloader.Bundle bundle = preloader.take();
+        double takeMillis = (System.nanoTime() - t1) / 1e6;
+        assertEquals(77, bundle.seed, "A second start while one is pending is ignored");
+        assertArrayEquals(new WorldGenerator(77).getWorld(), bundle.worldGen.getWorld());
+        assertEquals(WorldGenerator.WIDTH_TILES / 20 * 2, bundle.enemySpawns.length);
+        assertFalse(preloader.isReady());
+        System.out.printf("[BENCH] world preload: start %d ms, take %.3f ms%n", startMillis, takeMillis);
+        preloader.shutdown();
+    }
+
+    @Test
+    void takeWithoutStartGeneratesOnTheCallingThread() {
+        WorldPreloader preloader = new WorldPreloader();
+        WorldPreloader.Bundle bundle = preloader.take();
+        assertNotNull(bundle.worldGen);
+        assertTrue(bundle.enemySpawns.length > 0);
+        preloader.shutdown();
+    }
+}
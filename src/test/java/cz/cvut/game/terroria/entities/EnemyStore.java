@@ -0,0 +1,254 @@
+package cz.cvut.game.terroria.entities;
+
+import cz.cvut.game.terroria.Game;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import static cz.cvut.game.terroria.utils.Constants.Directions.LEFT;
+import static cz.cvut.game.terroria.utils.Constants.Directions.RIGHT;
+import static cz.cvut.game.terroria.utils.Constants.EnemyConstants.*;
+
+/**
+ * Struct-of-arrays storage for large numbers of mushroom enemies.
+ * <p>
+ * Instead of one heap object per enemy, every property lives in a parallel primitive
+ * array indexed by slot. The batch {@link #update(int[][], float)} walks those arrays in
+ * tight loops (gravity, horizontal movement, animation), which keeps the hot data
+ * contiguous in memory. Dead enemies are removed by swapping the last live slot into
+ * their place, so the live set always occupies indices {@code [0, size)}.
+ * <p>
+ * This is a benchmark prototype, not part of the game: {@link EnemyManager} still keeps
+ * one {@link Mushroom} object per enemy, and only EnemyStoreBenchmarkTest uses this class.
+ * It copies the gravity, patrol and animation rules of Mushroom but not its AI, attacks,
+ * flow field or resting, so the two must be kept in step by hand until the game's enemies
+ * move onto this layout. It sits in the entities package to reach the shared collision
+ * helpers of {@link Entity}.
+ */
+public class EnemyStore {
+    /** Hitbox dimensions shared by every mushroom in the store. */
+    public static final float HITBOX_WIDTH = (int) (14 * Game.SCALE);
+    public static final float HITBOX_HEIGHT = (int) (32 * Game.SCALE);
+
+    private static final float PATROL_RANGE = 50 * Game.TILES_SIZE;
+    private static final int ANI_SPEED = Math.round(ENEMY_ANI_FRAME_SECONDS * Game.UPS_SET);
+    private static final float DT = Game.TICK_SECONDS;
+
+    /** Hitbox position, vertical speed and patrol origin. */
+    private float[] x, y, fallSpeed, startX;
+    /** Animation state, frame and tick, walking direction and health. */
+    private int[] state, aniIndex, aniTick, walkDir, health;
+    /** Whether each enemy is currently falling or jumping. */
+    private boolean[] inAir;
+    /** Number of live enemies; slots at and above this index are unused. */
+    private int size;
+    /** Reusable result of the swept moves. */
+    private final Entity.SweepResult sweep = new Entity.SweepResult();
+
+    /**
+     * Creates an empty store able to hold {@code capacity} enemies before growing.
+     *
+     * @param capacity initial number of slots
+     */
+    public EnemyStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        x = new float[capacity];
+        y = new float[capacity];
+        fallSpeed = new float[capacity];
+        startX = new float[capacity];
+        state = new int[capacity];
+        aniIndex = new int[capacity];
+        aniTick = new int[capacity];
+        walkDir = new int[capacity];
+        health = new int[capacity];
+        inAir = new boolean[capacity];
+    }
+
+    /**
+     * Spawns a new mushroom with its hitbox at the given position.
+     *
+     * @param px hitbox X-coordinate in pixels
+     * @param py hitbox Y-coordinate in pixels
+     * @return the slot index of the new enemy
+     */
+    public int add(float px, float py) {
+        if (size == x.length)
+            grow(size * 2);
+        int i = size++;
+        x[i] = px;
+        y[i] = py;
+        startX[i] = px;
+        fallSpeed[i] = 0;
+        state[i] = IDLE;
+        aniIndex[i] = 0;
+        aniTick[i] = 0;
+        walkDir[i] = LEFT;
+        health[i] = GetMaxHealth(MUSHROOM);
+        inAir[i] = false;
+        return i;
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        fallSpeed = Arrays.copyOf(fallSpeed, capacity);
+        startX = Arrays.copyOf(startX, capacity);
+        state = Arrays.copyOf(state, capacity);
+        aniIndex = Arrays.copyOf(aniIndex, capacity);
+        aniTick = Arrays.copyOf(aniTick, capacity);
+        walkDir = Arrays.copyOf(walkDir, capacity);
+        health = Arrays.copyOf(health, capacity);
+        inAir = Arrays.copyOf(inAir, capacity);
+    }
+
+    /**
+     * Advances every live enemy by one tick: gravity, movement, then animation.
+     * Enemies whose death animation finished are removed at the end of the tick.
+     *
+     * @param lvlData tile map data for collision checks
+     * @param playerX X-coordinate of the player's hitbox, used for facing
+     */
+    public void update(int[][] lvlData, float playerX) {
+        updateGravity(lvlData);
+        updateMovement(lvlData, playerX);
+        updateAnimation();
+        removeDead();
+    }
+
+    /** Applies gravity to airborne enemies and lands them on floors and under roofs. */
+    private void updateGravity(int[][] lvlData) {
+        for (int i = 0; i < size; i++) {
+            if (!inAir[i]) {
+                if (IsOnFloor(x[i], y[i], lvlData))
+                    continue;
+                inAir[i] = true;
+            }
+            float fs = fallSpeed[i];
+            float dy = Entity.Displacement(fs, ENEMY_GRAVITY, DT);
+            if (Entity.Sweep(x[i], y[i], HITBOX_WIDTH, HITBOX_HEIGHT, 0, dy, lvlData, sweep)) {
+                y[i] = sweep.y;
+                fallSpeed[i] = 0;
+                if (sweep.normalY < 0)
+                    inAir[i] = false;
+            } else {
+                y[i] += dy;
+                fallSpeed[i] = fs + ENEMY_GRAVITY * DT;
+            }
+        }
+    }
+
+    /** Walks running or airborne enemies, jumping when the path ahead is blocked. */
+    private void updateMovement(int[][] lvlData, float playerX) {
+        float worldWidth = lvlData.length * Game.TILES_SIZE;
+        for (int i = 0; i < size; i++) {
+            int s = state[i];
+            if (s == HIT || s == DEAD)
+                continue;
+            if (!inAir[i]) {
+                if (s == IDLE)
+                    newState(i, RUNNING);
+                float px = x[i];
+                if (px <= 0 || px <= startX[i] - PATROL_RANGE) walkDir[i] = RIGHT;
+                else if (px + HITBOX_WIDTH >= worldWidth || px >= startX[i] + PATROL_RANGE) walkDir[i] = LEFT;
+                else if (Math.abs(playerX - px) <= Game.TILES_SIZE * 5)
+                    walkDir[i] = playerX > px ? RIGHT : LEFT;
+            }
+            float xSpeed = (walkDir[i] == LEFT ? -ENEMY_WALK_SPEED : ENEMY_WALK_SPEED) * DT;
+            if (!Entity.Sweep(x[i], y[i], HITBOX_WIDTH, HITBOX_HEIGHT, xSpeed, 0, lvlData, sweep)) {
+                x[i] += xSpeed;
+            } else {
+                x[i] = sweep.x;
+                if (!inAir[i]) {
+                    inAir[i] = true;
+                    fallSpeed[i] = -MUSHROOM_JUMP_SPEED;
+                }
+            }
+        }
+    }
+
+    /** Advances animation frames and resolves end-of-sequence state transitions. */
+    private void updateAnimation() {
+        for (int i = 0; i < size; i++) {
+            if (++aniTick[i] < ANI_SPEED)
+                continue;
+            aniTick[i] = 0;
+            if (++aniIndex[i] >= GetSpriteAmount(MUSHROOM, state[i])) {
+                aniIndex[i] = 0;
+                if (state[i] == RUNNING || state[i] == HIT)
+                    state[i] = IDLE;
+                else if (state[i] == DEAD)
+                    state[i] = -1;
+            }
+        }
+    }
+
+    /** Compacts the live range by moving the last enemy into each finished slot. */
+    private void removeDead() {
+        for (int i = size - 1; i >= 0; i--) {
+            if (state[i] < 0)
+                removeAt(i);
+        }
+    }
+
+    private void removeAt(int i) {
+        int last = --size;
+        if (i == last)
+            return;
+        x[i] = x[last];
+        y[i] = y[last];
+        fallSpeed[i] = fallSpeed[last];
+        startX[i] = startX[last];
+        state[i] = state[last];
+        aniIndex[i] = aniIndex[last];
+        aniTick[i] = aniTick[last];
+        walkDir[i] = walkDir[last];
+        health[i] = health[last];
+        inAir[i] = inAir[last];
+    }
+
+    private void newState(int i, int newState) {
+        state[i] = newState;
+        aniIndex[i] = 0;
+        aniTick[i] = 0;
+    }
+
+    /**
+     * Applies damage to the first live enemy whose hitbox intersects the attack box.
+     *
+     * @param attackBox the player's attack hitbox
+     * @param amount    health to subtract
+     * @return true if an enemy was hit
+     */
+    public boolean checkEnemyHit(Rectangle2D.Float attackBox, int amount) {
+        for (int i = 0; i < size; i++) {
+            if (state[i] == DEAD)
+                continue;
+            if (attackBox.intersects(x[i], y[i], HITBOX_WIDTH, HITBOX_HEIGHT)) {
+                health[i] -= amount;
+                newState(i, health[i] <= 0 ? DEAD : HIT);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Checks both bottom corners of a mushroom hitbox for solid support. */
+    private static boolean IsOnFloor(float px, float py, int[][] lvlData) {
+        float probeY = py + HITBOX_HEIGHT + Entity.COLLISION_OFFSET;
+        return Entity.IsSolid(px + Entity.COLLISION_OFFSET, probeY, lvlData)
+                && Entity.IsSolid(px + HITBOX_WIDTH - Entity.COLLISION_OFFSET, probeY, lvlData);
+    }
+
+    public int size() { return size; }
+    public float getX(int i) { return x[i]; }
+    public float getY(int i) { return y[i]; }
+    public int getState(int i) { return state[i]; }
+    public int getAniIndex(int i) { return aniIndex[i]; }
+    public int getWalkDir(int i) { return walkDir[i]; }
+    public boolean isInAir(int i) { return inAir[i]; }
+
+    /** Removes every enemy from the store, keeping the allocated arrays. */
+    public void clear() {
+        size = 0;
+    }
+}